@@ -12,7 +12,9 @@
 
 package io.usethesource.vallang;
 
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Random;
 
 import org.checkerframework.checker.interning.qual.EqualsMethod;
@@ -356,6 +358,113 @@ public interface IList extends ICollection<IList> {
         return w.done();
     }
 
+    /**
+     * Sum of a list of numbers, added from left to right
+     * @return the sum of all elements
+     * @throws NoSuchElementException if the list is empty
+     * @throws ClassCastException if an element is not a number
+     */
+    public default INumber sum() {
+        Iterator<IValue> it = iterator();
+        if (!it.hasNext()) {
+            throw new NoSuchElementException("sum of an empty list");
+        }
+
+        INumber result = (INumber) it.next();
+        while (it.hasNext()) {
+            result = result.add((INumber) it.next());
+        }
+        return result;
+    }
+
+    /**
+     * Minimum of a list of numbers
+     * @return the first of the smallest elements
+     * @throws NoSuchElementException if the list is empty
+     * @throws ClassCastException if an element is not a number
+     */
+    public default INumber min() {
+        Iterator<IValue> it = iterator();
+        if (!it.hasNext()) {
+            throw new NoSuchElementException("min of an empty list");
+        }
+
+        INumber result = (INumber) it.next();
+        while (it.hasNext()) {
+            INumber next = (INumber) it.next();
+            if (next.compare(result) < 0) {
+                result = next;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Maximum of a list of numbers
+     * @return the first of the largest elements
+     * @throws NoSuchElementException if the list is empty
+     * @throws ClassCastException if an element is not a number
+     */
+    public default INumber max() {
+        Iterator<IValue> it = iterator();
+        if (!it.hasNext()) {
+            throw new NoSuchElementException("max of an empty list");
+        }
+
+        INumber result = (INumber) it.next();
+        while (it.hasNext()) {
+            INumber next = (INumber) it.next();
+            if (next.compare(result) > 0) {
+                result = next;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sorts a list of numbers from small to large, numbers which compare as equal keep their order
+     * @return a new list with the same elements in ascending order
+     * @throws ClassCastException if an element is not a number
+     */
+    public default IList sort() {
+        IValue[] elements = new IValue[length()];
+        int i = 0;
+        for (IValue e : this) {
+            elements[i++] = e;
+        }
+        Arrays.sort(elements, (a, b) -> ((INumber) a).compare((INumber) b));
+
+        IListWriter w = writer();
+        w.append(elements);
+        return w.done();
+    }
+
+    /**
+     * Adds the same number to every element of a list of numbers
+     * @return a new list with <code>e.add(term)</code> for every element e
+     * @throws ClassCastException if an element is not a number
+     */
+    public default IList addEach(INumber term) {
+        IListWriter w = writer();
+        for (IValue e : this) {
+            w.append(((INumber) e).add(term));
+        }
+        return w.done();
+    }
+
+    /**
+     * Multiplies every element of a list of numbers with the same number
+     * @return a new list with <code>e.multiply(factor)</code> for every element e
+     * @throws ClassCastException if an element is not a number
+     */
+    public default IList multiplyEach(INumber factor) {
+        IListWriter w = writer();
+        for (IValue e : this) {
+            w.append(((INumber) e).multiply(factor));
+        }
+        return w.done();
+    }
+
     @Override
     public default boolean match(IValue other) {
         if (other == this) {
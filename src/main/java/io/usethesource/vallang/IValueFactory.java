@@ -303,6 +303,21 @@ public interface IValueFactory {
      */
     public ISourceLocation sourceLocation(URI uri);
 
+    /**
+     * Create an exact reference to a source location from the textual form of a URI,
+     * such as produced by {@link URI#toString()}. This is equal to <code>sourceLocation(new URI(uri))</code>,
+     * but implementations may avoid constructing the intermediate URI.
+     *
+     * @param uri
+     *            the (encoded) uri where the source is located.
+     * @return a value representing a source location, with type
+     *         SourceLocationType
+     * @throws URISyntaxException if the string is not a valid URI
+     */
+    public default ISourceLocation sourceLocationFromURI(String uri) throws URISyntaxException {
+        return sourceLocation(new URI(uri));
+    }
+
     /**
      * Create an exact reference to a source location
      *
@@ -476,6 +491,52 @@ public interface IValueFactory {
      */
     public IList list(IValue... elems);
 
+    /**
+     * Construct a list of integers
+     *
+     * @param values
+     *            the elements of the list, which are not retained by the list
+     * @return a list of type list[int], or list[void] if there are no values
+     */
+    public default IList integerList(int[] values) {
+        IListWriter w = listWriter();
+        for (int v : values) {
+            w.append(integer(v));
+        }
+        return w.done();
+    }
+
+    /**
+     * Construct a list of integers
+     *
+     * @param values
+     *            the elements of the list, which are not retained by the list
+     * @return a list of type list[int], or list[void] if there are no values
+     */
+    public default IList integerList(long[] values) {
+        IListWriter w = listWriter();
+        for (long v : values) {
+            w.append(integer(v));
+        }
+        return w.done();
+    }
+
+    /**
+     * Construct a list of reals
+     *
+     * @param values
+     *            the elements of the list, which are not retained by the list
+     * @return a list of type list[real], or list[void] if there are no values
+     * @throws NumberFormatException if a value is infinite or NaN
+     */
+    public default IList realList(double[] values) {
+        IListWriter w = listWriter();
+        for (double v : values) {
+            w.append(real(v));
+        }
+        return w.done();
+    }
+
     /**
      * Get a map writer of which the key and value types will be the least upper
      * bound of the keys and values that are put in.
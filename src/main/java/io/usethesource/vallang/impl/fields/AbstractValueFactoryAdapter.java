@@ -109,6 +109,21 @@ public /* abstract */ class AbstractValueFactoryAdapter implements IValueFactory
         return adapted.list(elems);
     }
 
+    @Override
+    public IList integerList(int[] values) {
+        return adapted.integerList(values);
+    }
+
+    @Override
+    public IList integerList(long[] values) {
+        return adapted.integerList(values);
+    }
+
+    @Override
+    public IList realList(double[] values) {
+        return adapted.realList(values);
+    }
+
     @Override
     public IListWriter listWriter() {
         return adapted.listWriter();
@@ -171,6 +186,11 @@ public /* abstract */ class AbstractValueFactoryAdapter implements IValueFactory
         return adapted.sourceLocation(path);
     }
 
+    @Override
+    public ISourceLocation sourceLocationFromURI(String uri) throws URISyntaxException {
+        return adapted.sourceLocationFromURI(uri);
+    }
+
     @Override
     public ISourceLocation sourceLocation(ISourceLocation loc, int offset, int length, int beginLine, int endLine,
             int beginCol, int endCol) {
@@ -40,6 +40,7 @@ import io.usethesource.vallang.ITuple;
 import io.usethesource.vallang.IValue;
 import io.usethesource.vallang.type.Type;
 import io.usethesource.vallang.type.TypeFactory;
+import io.usethesource.vallang.type.TypeFacts;
 import io.usethesource.vallang.util.AbstractTypeBag;
 
 /**
@@ -574,14 +575,9 @@ public final class PersistentHashIndexedBinaryRelation implements ISet, IRelatio
     }
 
     private boolean isConcreteValueType(Type keyType) {
-        return keyType.isSourceLocation()
-            || keyType.isInteger()
-            || keyType.isRational()
-            || keyType.isReal()
-            || keyType.isDateTime()
-            || (keyType.isAbstractData() && !keyType.isParameterized())
-            || keyType.isString()
-            || keyType.isBool()
+        TypeFacts facts = keyType.getFacts();
+        return facts.isAny(TypeFacts.ATOMIC)
+            || (facts.isAny(TypeFacts.ABSTRACT_DATA) && !facts.isAny(TypeFacts.PARAMETERIZED))
             ;
     }
 
@@ -0,0 +1,491 @@
+/**
+ * Copyright (c) 2026, Centrum Wiskunde & Informatica (CWI)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package io.usethesource.vallang.impl.persistent;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import io.usethesource.vallang.IInteger;
+import io.usethesource.vallang.IList;
+import io.usethesource.vallang.IListWriter;
+import io.usethesource.vallang.INumber;
+import io.usethesource.vallang.IValue;
+import io.usethesource.vallang.type.Type;
+
+/**
+ * Lists of integers or reals which store their elements in an array of primitive values, as created by
+ * {@link ValueFactory#integerList(int[])}, {@link ValueFactory#integerList(long[])} and
+ * {@link ValueFactory#realList(double[])}.
+ * <p>
+ * The bulk numeric operations of {@link IList} (sum, min, max, sort, addEach and multiplyEach) run as plain loops
+ * over the array, without a number object per element. An element is only boxed when it is accessed on its own,
+ * and all other list operations are the defaults of {@link IList}, which produce regular lists.
+ * <p>
+ * For lists of reals only min, max and sort work on the doubles; the sum and the element-wise arithmetic of reals
+ * depend on the precision and the representation of reals, so these use the boxed numbers like any other list.
+ * <p>
+ * These lists are equal to the regular lists with the same elements, and have the same hash code.
+ */
+/*package*/ abstract class PrimitiveList implements IList {
+    private static final Type INT_LIST_TYPE = TF.listType(TF.integerType());
+    private static final Type REAL_LIST_TYPE = TF.listType(TF.realType());
+
+    private int hashCode = 0;
+
+    /**
+     * @param values non-empty array which is retained by the list
+     */
+    /*package*/ static IList of(int[] values) {
+        return new IntArray(values);
+    }
+
+    /**
+     * @param values non-empty array which is retained by the list, unless all values fit in an int
+     */
+    /*package*/ static IList of(long[] values) {
+        for (long v : values) {
+            if (v != (int) v) {
+                return new LongArray(values);
+            }
+        }
+
+        int[] ints = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            ints[i] = (int) values[i];
+        }
+        return new IntArray(ints);
+    }
+
+    /**
+     * @param values non-empty array which is retained by the list
+     * @throws NumberFormatException if a value is NaN or infinite
+     */
+    /*package*/ static IList of(double[] values) {
+        for (double v : values) {
+            if (Double.isNaN(v)) {
+                throw new NumberFormatException("no support for NaN");
+            }
+            if (Double.isInfinite(v)) {
+                throw new NumberFormatException("no support for infinity");
+            }
+        }
+        return new DoubleArray(values);
+    }
+
+    /**
+     * @return the value of an integer which fits in a long, or null for all other numbers
+     */
+    private static @Nullable Long asLong(INumber n) {
+        if (n instanceof IInteger) {
+            try {
+                return ((IInteger) n).longValue();
+            }
+            catch (ArithmeticException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public IListWriter writer() {
+        return new ListWriter();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return length() == 0;
+    }
+
+    @Override
+    public Iterator<IValue> iterator() {
+        return new Iterator<IValue>() {
+            private int cursor = 0;
+
+            @Override
+            public boolean hasNext() {
+                return cursor < length();
+            }
+
+            @Override
+            public IValue next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(cursor++);
+            }
+        };
+    }
+
+    /**
+     * @return true if the other list of the same class has the same values in its array
+     */
+    protected abstract boolean sameValues(PrimitiveList other);
+
+    @Override
+    public int hashCode() {
+        if (hashCode == 0) {
+            hashCode = defaultHashCode();
+        }
+        return hashCode;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+        if (o == this) {
+            return true;
+        }
+
+        if (o == null) {
+            return false;
+        }
+
+        if (o.getClass() == getClass()) {
+            return sameValues((PrimitiveList) o);
+        }
+
+        return o instanceof IList && defaultEquals(o);
+    }
+
+    @Override
+    public String toString() {
+        return defaultToString();
+    }
+
+    private static final class IntArray extends PrimitiveList {
+        private final int[] values;
+
+        private IntArray(int[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public Type getType() {
+            return INT_LIST_TYPE;
+        }
+
+        @Override
+        public int length() {
+            return values.length;
+        }
+
+        @Override
+        public IValue get(int i) {
+            return ValueFactory.getInstance().integer(values[i]);
+        }
+
+        @Override
+        protected boolean sameValues(PrimitiveList other) {
+            return Arrays.equals(values, ((IntArray) other).values);
+        }
+
+        @Override
+        public INumber sum() {
+            if (values.length == 0) {
+                throw new NoSuchElementException("sum of an empty list");
+            }
+
+            // less than 2^31 ints can not overflow a long
+            long sum = 0;
+            for (int v : values) {
+                sum += v;
+            }
+            return ValueFactory.getInstance().integer(sum);
+        }
+
+        @Override
+        public INumber min() {
+            if (values.length == 0) {
+                throw new NoSuchElementException("min of an empty list");
+            }
+
+            int min = values[0];
+            for (int v : values) {
+                min = Math.min(min, v);
+            }
+            return ValueFactory.getInstance().integer(min);
+        }
+
+        @Override
+        public INumber max() {
+            if (values.length == 0) {
+                throw new NoSuchElementException("max of an empty list");
+            }
+
+            int max = values[0];
+            for (int v : values) {
+                max = Math.max(max, v);
+            }
+            return ValueFactory.getInstance().integer(max);
+        }
+
+        @Override
+        public IList sort() {
+            int[] sorted = values.clone();
+            Arrays.sort(sorted);
+            return new IntArray(sorted);
+        }
+
+        @Override
+        public IList addEach(INumber term) {
+            Long t = asLong(term);
+            if (t == null) {
+                return super.addEach(term);
+            }
+
+            long[] result = new long[values.length];
+            if (t == t.intValue()) {
+                // the sum of two ints always fits in a long
+                long s = t;
+                for (int i = 0; i < values.length; i++) {
+                    result[i] = values[i] + s;
+                }
+            }
+            else {
+                try {
+                    for (int i = 0; i < values.length; i++) {
+                        result[i] = Math.addExact(values[i], t);
+                    }
+                }
+                catch (ArithmeticException e) {
+                    return super.addEach(term);
+                }
+            }
+            return of(result);
+        }
+
+        @Override
+        public IList multiplyEach(INumber factor) {
+            Long f = asLong(factor);
+            if (f == null) {
+                return super.multiplyEach(factor);
+            }
+
+            long[] result = new long[values.length];
+            if (f == f.intValue()) {
+                // the product of two ints always fits in a long
+                long m = f;
+                for (int i = 0; i < values.length; i++) {
+                    result[i] = values[i] * m;
+                }
+            }
+            else {
+                try {
+                    for (int i = 0; i < values.length; i++) {
+                        result[i] = Math.multiplyExact(values[i], f);
+                    }
+                }
+                catch (ArithmeticException e) {
+                    return super.multiplyEach(factor);
+                }
+            }
+            return of(result);
+        }
+    }
+
+    private static final class LongArray extends PrimitiveList {
+        private final long[] values;
+
+        private LongArray(long[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public Type getType() {
+            return INT_LIST_TYPE;
+        }
+
+        @Override
+        public int length() {
+            return values.length;
+        }
+
+        @Override
+        public IValue get(int i) {
+            return ValueFactory.getInstance().integer(values[i]);
+        }
+
+        @Override
+        protected boolean sameValues(PrimitiveList other) {
+            return Arrays.equals(values, ((LongArray) other).values);
+        }
+
+        @Override
+        public INumber sum() {
+            if (values.length == 0) {
+                throw new NoSuchElementException("sum of an empty list");
+            }
+
+            long sum = 0;
+            try {
+                for (long v : values) {
+                    sum = Math.addExact(sum, v);
+                }
+            }
+            catch (ArithmeticException e) {
+                return super.sum();
+            }
+            return ValueFactory.getInstance().integer(sum);
+        }
+
+        @Override
+        public INumber min() {
+            if (values.length == 0) {
+                throw new NoSuchElementException("min of an empty list");
+            }
+
+            long min = values[0];
+            for (long v : values) {
+                min = Math.min(min, v);
+            }
+            return ValueFactory.getInstance().integer(min);
+        }
+
+        @Override
+        public INumber max() {
+            if (values.length == 0) {
+                throw new NoSuchElementException("max of an empty list");
+            }
+
+            long max = values[0];
+            for (long v : values) {
+                max = Math.max(max, v);
+            }
+            return ValueFactory.getInstance().integer(max);
+        }
+
+        @Override
+        public IList sort() {
+            long[] sorted = values.clone();
+            Arrays.sort(sorted);
+            return new LongArray(sorted);
+        }
+
+        @Override
+        public IList addEach(INumber term) {
+            Long t = asLong(term);
+            if (t == null) {
+                return super.addEach(term);
+            }
+
+            long[] result = new long[values.length];
+            try {
+                for (int i = 0; i < values.length; i++) {
+                    result[i] = Math.addExact(values[i], t);
+                }
+            }
+            catch (ArithmeticException e) {
+                return super.addEach(term);
+            }
+            return of(result);
+        }
+
+        @Override
+        public IList multiplyEach(INumber factor) {
+            Long f = asLong(factor);
+            if (f == null) {
+                return super.multiplyEach(factor);
+            }
+
+            long[] result = new long[values.length];
+            try {
+                for (int i = 0; i < values.length; i++) {
+                    result[i] = Math.multiplyExact(values[i], f);
+                }
+            }
+            catch (ArithmeticException e) {
+                return super.multiplyEach(factor);
+            }
+            return of(result);
+        }
+    }
+
+    private static final class DoubleArray extends PrimitiveList {
+        private final double[] values;
+
+        private DoubleArray(double[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public Type getType() {
+            return REAL_LIST_TYPE;
+        }
+
+        @Override
+        public int length() {
+            return values.length;
+        }
+
+        @Override
+        public IValue get(int i) {
+            return ValueFactory.getInstance().real(values[i]);
+        }
+
+        @Override
+        protected boolean sameValues(PrimitiveList other) {
+            double[] others = ((DoubleArray) other).values;
+            if (values.length != others.length) {
+                return false;
+            }
+
+            // not Arrays.equals, because the reals of -0.0 and 0.0 are equal
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != others[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public INumber min() {
+            if (values.length == 0) {
+                throw new NoSuchElementException("min of an empty list");
+            }
+
+            double min = values[0];
+            for (double v : values) {
+                if (v < min) {
+                    min = v;
+                }
+            }
+            return ValueFactory.getInstance().real(min);
+        }
+
+        @Override
+        public INumber max() {
+            if (values.length == 0) {
+                throw new NoSuchElementException("max of an empty list");
+            }
+
+            double max = values[0];
+            for (double v : values) {
+                if (v > max) {
+                    max = v;
+                }
+            }
+            return ValueFactory.getInstance().real(max);
+        }
+
+        @Override
+        public IList sort() {
+            double[] sorted = values.clone();
+            Arrays.sort(sorted);
+            return new DoubleArray(sorted);
+        }
+    }
+}
@@ -59,6 +59,21 @@ public class ValueFactory extends AbstractPrimitiveValueFactory {
         return listWriter.done();
     }
 
+    @Override
+    public IList integerList(int[] values) {
+        return values.length == 0 ? EMPTY_LIST : PrimitiveList.of(values.clone());
+    }
+
+    @Override
+    public IList integerList(long[] values) {
+        return values.length == 0 ? EMPTY_LIST : PrimitiveList.of(values.clone());
+    }
+
+    @Override
+    public IList realList(double[] values) {
+        return values.length == 0 ? EMPTY_LIST : PrimitiveList.of(values.clone());
+    }
+
     @Override
     public ISet set(IValue... elements){
         if (elements.length == 0) {
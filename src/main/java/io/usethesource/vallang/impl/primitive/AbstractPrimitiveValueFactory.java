@@ -16,6 +16,7 @@ package io.usethesource.vallang.impl.primitive;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import io.usethesource.vallang.IBool;
@@ -35,6 +36,7 @@ public abstract class AbstractPrimitiveValueFactory implements IValueFactory {
 
     private static final int DEFAULT_PRECISION = 10;
     private final AtomicInteger currentPrecision = new AtomicInteger(DEFAULT_PRECISION);
+    private final AtomicBoolean doubleReals = new AtomicBoolean(Boolean.getBoolean("vallang.real.double"));
 
     @Override
     public IInteger integer(String integerValue) {
@@ -58,12 +60,12 @@ public abstract class AbstractPrimitiveValueFactory implements IValueFactory {
 
     @Override
     public IRational rational(int a, int b) {
-        return rational(integer(a), integer(b));
+        return LongRationalValue.newRational(a, b);
     }
 
     @Override
     public IRational rational(long a, long b) {
-        return rational(integer(a), integer(b));
+        return LongRationalValue.newRational(a, b);
     }
 
     @Override
@@ -99,6 +101,9 @@ public abstract class AbstractPrimitiveValueFactory implements IValueFactory {
 
     @Override
     public IReal real(double value) {
+        if (doubleReals.get() && getPrecision() <= DoubleRealValue.DIGITS) {
+            return DoubleRealValue.newReal(value);
+        }
         return BigDecimalValue.newReal(value);
     }
 
@@ -117,6 +122,22 @@ public abstract class AbstractPrimitiveValueFactory implements IValueFactory {
         return currentPrecision.getAndSet(p);
     }
 
+    /**
+     * Opt in to reals backed by a double for {@link #real(double)}, while the precision is at most 15 digits.
+     * Arithmetic on these reals is done with doubles, and they are promoted to exact decimals when a result
+     * needs it. They are equal to the decimal reals of the same double. The default is taken from the
+     * <code>vallang.real.double</code> system property.
+     *
+     * @return the previous setting
+     */
+    public boolean setDoubleReals(boolean enabled) {
+        return doubleReals.getAndSet(enabled);
+    }
+
+    public boolean getDoubleReals() {
+        return doubleReals.get();
+    }
+
     @Override
     public IReal pi(int precision) {
         return BigDecimalValue.pi(precision);
@@ -226,6 +247,11 @@ public abstract class AbstractPrimitiveValueFactory implements IValueFactory {
         }
     }
 
+    @Override
+    public ISourceLocation sourceLocationFromURI(String uri) throws URISyntaxException {
+        return SourceLocationValues.newSourceLocation(uri);
+    }
+
     @Override
     public ISourceLocation sourceLocation(String path) {
         if (!path.startsWith("/")) {
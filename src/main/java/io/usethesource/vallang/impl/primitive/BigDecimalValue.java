@@ -37,6 +37,17 @@ import io.usethesource.vallang.type.TypeFactory;
 /*package*/ class BigDecimalValue extends AbstractNumberValue implements IReal {
     private static final Type DOUBLE_TYPE = TypeFactory.getInstance().realType();
 
+    /** the reals of the whole doubles in this range, as created by {@link #newReal(double)} */
+    private static final int minSmallValue = -128;
+    private static final int maxSmallValue = 127;
+    private static final IReal[] smallValues;
+    static {
+        smallValues = new IReal[(maxSmallValue - minSmallValue) + 1];
+        for (int i = minSmallValue; i <= maxSmallValue; i++) {
+            smallValues[i - minSmallValue] = new BigDecimalValue(BigDecimal.valueOf((double) i));
+        }
+    }
+
     protected final BigDecimal value;
 
     /*package*/ static IReal newReal(BigDecimal value) {
@@ -53,9 +64,23 @@ import io.usethesource.vallang.type.TypeFactory;
 
     /*package*/ static IReal newReal(double value) {
         checkNanAndInfinity(value);
+        if (minSmallValue <= value && value <= maxSmallValue && value == (int) value) {
+            // -0.0 ends up here as well, and BigDecimal.valueOf(-0.0) equals BigDecimal.valueOf(0.0)
+            return smallValues[(int) value - minSmallValue];
+        }
         return new BigDecimalValue(BigDecimal.valueOf(value));
     }
 
+    /**
+     * @return the decimal of a real of either representation, {@link BigDecimalValue} or {@link DoubleRealValue}
+     */
+    /*package*/ static BigDecimal bigDecimalOf(IReal real) {
+        if (real instanceof DoubleRealValue) {
+            return ((DoubleRealValue) real).toBigDecimal();
+        }
+        return ((BigDecimalValue) real).value;
+    }
+
     public static void checkNanAndInfinity(double value) {
         if (Double.isNaN(value)) {
             throw new NumberFormatException("no support for NaN");
@@ -129,7 +154,7 @@ import io.usethesource.vallang.type.TypeFactory;
 
     @Override
     public IReal add(IReal other){
-        return BigDecimalValue.newReal(value.add(((BigDecimalValue) other).value));
+        return BigDecimalValue.newReal(value.add(bigDecimalOf(other)));
     }
 
     @Override
@@ -144,7 +169,7 @@ import io.usethesource.vallang.type.TypeFactory;
 
     @Override
     public IReal subtract(IReal other){
-        return BigDecimalValue.newReal(value.subtract(((BigDecimalValue) other).value));
+        return BigDecimalValue.newReal(value.subtract(bigDecimalOf(other)));
     }
 
     @Override
@@ -159,7 +184,7 @@ import io.usethesource.vallang.type.TypeFactory;
 
     @Override
     public IReal multiply(IReal other){
-        return BigDecimalValue.newReal(value.multiply(((BigDecimalValue) other).value));
+        return BigDecimalValue.newReal(value.multiply(bigDecimalOf(other)));
     }
 
     @Override
@@ -177,7 +202,7 @@ import io.usethesource.vallang.type.TypeFactory;
         // make sure the precision is *at least* the same as that of the arguments
         precision = Math.max(Math.max(value.precision(), other.precision()), precision);
         MathContext mc = new MathContext(precision, RoundingMode.HALF_UP);
-        return BigDecimalValue.newReal(value.divide(((BigDecimalValue) other).value, mc));
+        return BigDecimalValue.newReal(value.divide(bigDecimalOf(other), mc));
     }
 
     @Override
@@ -288,7 +313,7 @@ import io.usethesource.vallang.type.TypeFactory;
 
     @Override
     public int compare(IReal other){
-        return value.compareTo(((BigDecimalValue) other).value);
+        return value.compareTo(bigDecimalOf(other));
     }
 
     @Override
@@ -324,11 +349,19 @@ import io.usethesource.vallang.type.TypeFactory;
             return (value.equals(otherDouble.value));
         }
 
+        if (o.getClass() == DoubleRealValue.class) {
+            return o.equals(this);
+        }
+
         return false;
     }
 
     @Override
     public String getStringRepresentation(){
+        return stringRepresentation(value);
+    }
+
+    /*package*/ static String stringRepresentation(BigDecimal value) {
         StringBuilder sb = new StringBuilder();
         String decimalString = value.toString();
         sb.append(decimalString);
@@ -388,8 +421,8 @@ import io.usethesource.vallang.type.TypeFactory;
     @Override
     public IReal pow(IReal power, int precision) {
         BigDecimal actualPower = null;
-        if (power instanceof BigDecimalValue) {
-            actualPower = ((BigDecimalValue)power).value;
+        if (power instanceof BigDecimalValue || power instanceof DoubleRealValue) {
+            actualPower = bigDecimalOf(power);
         }
         else {
             actualPower = new BigDecimal(power.getStringRepresentation());
@@ -413,16 +446,16 @@ import io.usethesource.vallang.type.TypeFactory;
     }
 
     public static IReal pi(int precision) {
-        if (precision < 0 || precision > 1000) {
-            throw new IllegalArgumentException("PI max precision is 1000");
+        if (precision < 0) {
+            throw new IllegalArgumentException("PI precision should not be negative");
         }
-        return newReal(BigDecimalCalculations.PI.setScale(precision, RoundingMode.HALF_EVEN));
+        return newReal(BigDecimalCalculations.pi(precision));
     }
 
     public static IReal e(int precision) {
-        if (precision < 0 || precision > 1000) {
-            throw new IllegalArgumentException("E max precision is 1000");
+        if (precision < 0) {
+            throw new IllegalArgumentException("E precision should not be negative");
         }
-        return newReal(BigDecimalCalculations.E.setScale(precision, RoundingMode.HALF_EVEN));
+        return newReal(BigDecimalCalculations.e(precision));
     }
 }
@@ -26,7 +26,7 @@ import io.usethesource.vallang.type.Type;
 import io.usethesource.vallang.type.TypeFactory;
 
 /**
- * Specialized implementation for integer values that fall outside the 32-bit range.
+ * Specialized implementation for integer values that fall outside the 64-bit range.
  *
  * @author Arnold Lankamp
  */
@@ -155,7 +155,6 @@ import io.usethesource.vallang.type.TypeFactory;
         else if(result == o) {
             return other;
         }
-        // The result of this operation can never fit in a 32-bit integer, so no need to check.
         return IntegerValue.newInteger(result);
     }
 
@@ -229,7 +228,8 @@ import io.usethesource.vallang.type.TypeFactory;
 
     @Override
     public IInteger negate(){
-        return new BigIntegerValue(value.negate());
+        // -Long.MIN_VALUE is outside the 64-bit range, but Long.MIN_VALUE itself is not
+        return IntegerValue.newInteger(value.negate());
     }
 
     @Override
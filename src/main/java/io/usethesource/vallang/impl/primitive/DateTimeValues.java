@@ -21,8 +21,13 @@ import java.time.OffsetTime;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
 import java.util.concurrent.TimeUnit;
 import org.checkerframework.checker.nullness.qual.Nullable;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
 import io.usethesource.vallang.IDateTime;
 import io.usethesource.vallang.IString;
 import io.usethesource.vallang.exceptions.InvalidDateTimeException;
@@ -36,10 +41,31 @@ import io.usethesource.vallang.type.TypeFactory;
  *  NOTE: We currently do not support partial dates and times; i.e.,
  *  it is not possible to represent "July 2009" or "15" (hours).
  *
+ *  The values only store numbers: a date is its epoch day, a time its
+ *  millisecond of the day and a datetime its epoch millisecond, both with
+ *  the total seconds of their timezone offset. The fields are computed from
+ *  these on demand.
  */
 /*package*/ class DateTimeValues {
 
     private static final Type DATE_TIME_TYPE = TypeFactory.getInstance().dateTimeType();
+    private static final int MILLIS_PER_SECOND = 1000;
+    private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+
+    /**
+     * Compiling a pattern is much more expensive than formatting a value with it, while programs only use a few.
+     */
+    private static final Cache<String, DateTimeFormatter> formatters = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .build();
+
+    private static IString format(TemporalAccessor value, String pattern) {
+        DateTimeFormatter formatter = formatters.get(pattern, DateTimeFormatter::ofPattern);
+        if (formatter == null) {
+            throw new RuntimeException("Cache is not working as expected");
+        }
+        return StringValue.newString(formatter.format(value));
+    }
 
     /*package*/ static IDateTime newDate(int year, int month, int day) {
         return new DateTimeValues.DateValue(year, month, day);
@@ -47,7 +73,7 @@ import io.usethesource.vallang.type.TypeFactory;
 
 
     private static class DateValue implements IDateTime {
-        private final LocalDate actual;
+        private final long epochDay;
 
         /**
          * Construct a DateTime object representing a date.
@@ -58,13 +84,17 @@ import io.usethesource.vallang.type.TypeFactory;
          */
         private DateValue(int year, int month, int day) {
             try {
-                actual = LocalDate.of(year, month, day);
+                epochDay = LocalDate.of(year, month, day).toEpochDay();
             }
             catch (DateTimeException dt) {
                 throw new InvalidDateTimeException("Cannot create date with provided values.", dt);
             }
         }
 
+        private LocalDate toLocalDate() {
+            return LocalDate.ofEpochDay(epochDay);
+        }
+
         @Override
         public Type getType() {
             return DATE_TIME_TYPE;
@@ -73,7 +103,7 @@ import io.usethesource.vallang.type.TypeFactory;
         @Override
         public int compareTo(IDateTime arg0) {
             if (arg0 instanceof DateValue) {
-                return actual.compareTo(((DateValue)arg0).actual);
+                return Long.compare(epochDay, ((DateValue)arg0).epochDay);
             }
             if (arg0.isDate()) {
                 return Long.compare(getInstant(), arg0.getInstant());
@@ -86,7 +116,7 @@ import io.usethesource.vallang.type.TypeFactory;
          */
         @Override
         public long getInstant() {
-            return actual
+            return toLocalDate()
                 .atTime(LocalTime.MIN)
                 .atZone(ZoneId.systemDefault())
                 .toEpochSecond() * 1000;
@@ -105,7 +135,7 @@ import io.usethesource.vallang.type.TypeFactory;
          */
         @Override
         public int getYear() {
-            return actual.getYear();
+            return toLocalDate().getYear();
         }
 
         /* (non-Javadoc)
@@ -113,7 +143,7 @@ import io.usethesource.vallang.type.TypeFactory;
          */
         @Override
         public int getMonthOfYear() {
-            return actual.getMonthValue();
+            return toLocalDate().getMonthValue();
         }
 
         /* (non-Javadoc)
@@ -121,7 +151,7 @@ import io.usethesource.vallang.type.TypeFactory;
          */
         @Override
         public int getDayOfMonth() {
-            return actual.getDayOfMonth();
+            return toLocalDate().getDayOfMonth();
         }
 
         /* (non-Javadoc)
@@ -198,13 +228,13 @@ import io.usethesource.vallang.type.TypeFactory;
 
         @Override
         public int hashCode() {
-            return actual.hashCode();
+            return Long.hashCode(epochDay);
         }
 
         @Override
         public boolean equals(@Nullable Object obj) {
             if (obj instanceof DateValue) {
-                return ((DateValue)obj).actual.equals(actual);
+                return ((DateValue)obj).epochDay == epochDay;
             }
             return false;
         }
@@ -216,7 +246,7 @@ import io.usethesource.vallang.type.TypeFactory;
 
         @Override
         public IString format(String format) {
-            return StringValue.newString(actual.format(DateTimeFormatter.ofPattern(format)));
+            return DateTimeValues.format(toLocalDate(), format);
         }
     }
 
@@ -231,7 +261,7 @@ import io.usethesource.vallang.type.TypeFactory;
 
     private static long currentTotalOffset() {
         // subjectief?
-        return OffsetDateTime.now().getOffset().getTotalSeconds();
+        return ZoneId.systemDefault().getRules().getOffset(Instant.now()).getTotalSeconds();
     }
 
     private static int currentHourOffset() {
@@ -245,8 +275,17 @@ import io.usethesource.vallang.type.TypeFactory;
     private static ZoneOffset toOffset(int hourOffset, int minuteOffset) {
         return ZoneOffset.ofHoursMinutes(hourOffset, minuteOffset);
     }
+
+    private static int offsetHours(int offsetSeconds) {
+        return (int) TimeUnit.HOURS.convert(offsetSeconds, TimeUnit.SECONDS);
+    }
+
+    private static int offsetMinutes(int offsetSeconds) {
+        return (int) (TimeUnit.MINUTES.convert(offsetSeconds, TimeUnit.SECONDS) % 60);
+    }
     private static class TimeValue  implements IDateTime {
-        private final OffsetTime actual;
+        private final int millisOfDay;
+        private final int offsetSeconds;
 
         /**
          * Construct a DateTime object representing a time.
@@ -272,13 +311,19 @@ import io.usethesource.vallang.type.TypeFactory;
          */
         private TimeValue(int hour, int minute, int second, int millisecond, int hourOffset, int minuteOffset) {
             try {
-                actual = OffsetTime.of(hour, minute, second, (int)TimeUnit.MILLISECONDS.toNanos(millisecond), toOffset(hourOffset, minuteOffset));
+                LocalTime time = LocalTime.of(hour, minute, second, (int)TimeUnit.MILLISECONDS.toNanos(millisecond));
+                millisOfDay = (int) (time.toNanoOfDay() / 1_000_000);
+                offsetSeconds = toOffset(hourOffset, minuteOffset).getTotalSeconds();
             }
             catch (DateTimeException dt) {
                 throw new InvalidDateTimeException("Cannot create date with provided values.", dt);
             }
         }
 
+        private OffsetTime toOffsetTime() {
+            return OffsetTime.of(LocalTime.ofNanoOfDay(millisOfDay * 1_000_000L), ZoneOffset.ofTotalSeconds(offsetSeconds));
+        }
+
         @Override
         public Type getType() {
             return DATE_TIME_TYPE;
@@ -287,7 +332,10 @@ import io.usethesource.vallang.type.TypeFactory;
         @Override
         public int compareTo(IDateTime arg0) {
             if (arg0 instanceof TimeValue) {
-                return actual.compareTo(((TimeValue)arg0).actual);
+                // like OffsetTime: first on the instant, then on the local time
+                TimeValue other = (TimeValue) arg0;
+                int result = Long.compare(getInstant(), other.getInstant());
+                return result != 0 ? result : Integer.compare(millisOfDay, other.millisOfDay);
             }
             if (arg0.isTime()) {
                 return Long.compare(getInstant(), arg0.getInstant());
@@ -300,11 +348,7 @@ import io.usethesource.vallang.type.TypeFactory;
          */
         @Override
         public long getInstant() {
-            return actual
-                .atDate(LocalDate.of(1970, 1, 1))
-                .toInstant()
-                .toEpochMilli()
-                ;
+            return millisOfDay - offsetSeconds * (long) MILLIS_PER_SECOND;
         }
 
         /* (non-Javadoc)
@@ -344,7 +388,7 @@ import io.usethesource.vallang.type.TypeFactory;
          */
         @Override
         public int getHourOfDay() {
-            return actual.getHour();
+            return millisOfDay / (60 * 60 * MILLIS_PER_SECOND);
         }
 
         /* (non-Javadoc)
@@ -352,7 +396,7 @@ import io.usethesource.vallang.type.TypeFactory;
          */
         @Override
         public int getMinuteOfHour() {
-            return actual.getMinute();
+            return millisOfDay / (60 * MILLIS_PER_SECOND) % 60;
         }
 
         /* (non-Javadoc)
@@ -360,7 +404,7 @@ import io.usethesource.vallang.type.TypeFactory;
          */
         @Override
         public int getSecondOfMinute() {
-            return actual.getSecond();
+            return millisOfDay / MILLIS_PER_SECOND % 60;
         }
 
         /* (non-Javadoc)
@@ -368,7 +412,7 @@ import io.usethesource.vallang.type.TypeFactory;
          */
         @Override
         public int getMillisecondsOfSecond() {
-            return (int) TimeUnit.MILLISECONDS.convert(actual.getNano(), TimeUnit.NANOSECONDS);
+            return millisOfDay % MILLIS_PER_SECOND;
         }
 
         /* (non-Javadoc)
@@ -376,7 +420,7 @@ import io.usethesource.vallang.type.TypeFactory;
          */
         @Override
         public int getTimezoneOffsetHours() {
-            return (int)TimeUnit.HOURS.convert(actual.getOffset().getTotalSeconds(), TimeUnit.SECONDS);
+            return offsetHours(offsetSeconds);
         }
 
         /* (non-Javadoc)
@@ -384,7 +428,7 @@ import io.usethesource.vallang.type.TypeFactory;
          */
         @Override
         public int getTimezoneOffsetMinutes() {
-            return (int)(TimeUnit.MINUTES.convert(actual.getOffset().getTotalSeconds(), TimeUnit.SECONDS) % 60);
+            return offsetMinutes(offsetSeconds);
         }
 
         /* (non-Javadoc)
@@ -413,13 +457,14 @@ import io.usethesource.vallang.type.TypeFactory;
 
         @Override
         public int hashCode() {
-            return actual.hashCode();
+            return millisOfDay * 31 + offsetSeconds;
         }
 
         @Override
         public boolean equals(@Nullable Object obj) {
             if (obj instanceof TimeValue) {
-                return actual.equals(((TimeValue)obj).actual);
+                TimeValue other = (TimeValue) obj;
+                return millisOfDay == other.millisOfDay && offsetSeconds == other.offsetSeconds;
             }
             return false;
         }
@@ -431,7 +476,7 @@ import io.usethesource.vallang.type.TypeFactory;
 
         @Override
         public IString format(String format) {
-            return StringValue.newString(actual.format(DateTimeFormatter.ofPattern(format)));
+            return DateTimeValues.format(toOffsetTime(), format);
         }
     }
 
@@ -455,7 +500,8 @@ import io.usethesource.vallang.type.TypeFactory;
     }
 
     private static class DateTimeValue  implements IDateTime {
-        private final OffsetDateTime actual;
+        private final long instant;
+        private final int offsetSeconds;
 
         /**
          * Construct a DateTime object representing a date and time.
@@ -487,7 +533,13 @@ import io.usethesource.vallang.type.TypeFactory;
          */
         private DateTimeValue(int year, int month, int day, int hour, int minute, int second, int millisecond, int hourOffset, int minuteOffset) {
             try {
-                actual = OffsetDateTime.of(year, month, day, hour, minute, second, (int)TimeUnit.MILLISECONDS.toNanos(millisecond), toOffset(hourOffset, minuteOffset));
+                OffsetDateTime value = OffsetDateTime.of(year, month, day, hour, minute, second, (int)TimeUnit.MILLISECONDS.toNanos(millisecond), toOffset(hourOffset, minuteOffset));
+                instant = value.toInstant().toEpochMilli();
+                offsetSeconds = value.getOffset().getTotalSeconds();
+            }
+            catch (ArithmeticException e) {
+                // beyond the range of epoch milliseconds
+                throw new InvalidDateTimeException("Cannot create date with provided values.", new DateTimeException(e.getMessage(), e));
             }
             catch (DateTimeException dt) {
                 throw new InvalidDateTimeException("Cannot create date with provided values.", dt);
@@ -504,13 +556,30 @@ import io.usethesource.vallang.type.TypeFactory;
          */
         private DateTimeValue(long instant, int timezoneHours, int timezoneMinutes) {
             try {
-                actual = Instant.ofEpochMilli(instant).atOffset(toOffset(timezoneHours, timezoneMinutes));
+                this.instant = instant;
+                this.offsetSeconds = toOffset(timezoneHours, timezoneMinutes).getTotalSeconds();
             }
             catch (DateTimeException dt) {
                 throw new InvalidDateTimeException("Cannot create date with provided values.", dt);
             }
         }
 
+        private OffsetDateTime toOffsetDateTime() {
+            return Instant.ofEpochMilli(instant).atOffset(ZoneOffset.ofTotalSeconds(offsetSeconds));
+        }
+
+        private long localEpochSecond() {
+            return Math.floorDiv(instant, MILLIS_PER_SECOND) + offsetSeconds;
+        }
+
+        private LocalDate toLocalDate() {
+            return LocalDate.ofEpochDay(Math.floorDiv(localEpochSecond(), SECONDS_PER_DAY));
+        }
+
+        private int secondOfDay() {
+            return (int) Math.floorMod(localEpochSecond(), SECONDS_PER_DAY);
+        }
+
         @Override
         public String toString() {
             return defaultToString();
@@ -524,7 +593,10 @@ import io.usethesource.vallang.type.TypeFactory;
         @Override
         public int compareTo(IDateTime arg0) {
             if (arg0 instanceof DateTimeValue) {
-                return actual.compareTo(((DateTimeValue)arg0).actual);
+                // like OffsetDateTime: first on the instant, then on the local time, which is later for larger offsets
+                DateTimeValue other = (DateTimeValue) arg0;
+                int result = Long.compare(instant, other.instant);
+                return result != 0 ? result : Integer.compare(offsetSeconds, other.offsetSeconds);
             }
             if (arg0.isDateTime()) {
                 return Long.compare(getInstant(), arg0.getInstant());
@@ -537,7 +609,7 @@ import io.usethesource.vallang.type.TypeFactory;
          */
         @Override
         public long getInstant() {
-            return actual.toInstant().toEpochMilli();
+            return instant;
         }
 
         /* (non-Javadoc)
@@ -553,7 +625,7 @@ import io.usethesource.vallang.type.TypeFactory;
          */
         @Override
         public int getYear() {
-            return actual.getYear();
+            return toLocalDate().getYear();
         }
 
         /* (non-Javadoc)
@@ -561,7 +633,7 @@ import io.usethesource.vallang.type.TypeFactory;
          */
         @Override
         public int getMonthOfYear() {
-            return actual.getMonthValue();
+            return toLocalDate().getMonthValue();
         }
 
         /* (non-Javadoc)
@@ -569,7 +641,7 @@ import io.usethesource.vallang.type.TypeFactory;
          */
         @Override
         public int getDayOfMonth() {
-            return actual.getDayOfMonth();
+            return toLocalDate().getDayOfMonth();
         }
 
         /* (non-Javadoc)
@@ -577,7 +649,7 @@ import io.usethesource.vallang.type.TypeFactory;
          */
         @Override
         public int getHourOfDay() {
-            return actual.getHour();
+            return secondOfDay() / (60 * 60);
         }
 
         /* (non-Javadoc)
@@ -585,7 +657,7 @@ import io.usethesource.vallang.type.TypeFactory;
          */
         @Override
         public int getMinuteOfHour() {
-            return actual.getMinute();
+            return secondOfDay() / 60 % 60;
         }
 
         /* (non-Javadoc)
@@ -593,7 +665,7 @@ import io.usethesource.vallang.type.TypeFactory;
          */
         @Override
         public int getSecondOfMinute() {
-            return actual.getSecond();
+            return secondOfDay() % 60;
         }
 
         /* (non-Javadoc)
@@ -601,7 +673,7 @@ import io.usethesource.vallang.type.TypeFactory;
          */
         @Override
         public int getMillisecondsOfSecond() {
-            return (int) TimeUnit.MILLISECONDS.convert(actual.getNano(), TimeUnit.NANOSECONDS);
+            return (int) Math.floorMod(instant, MILLIS_PER_SECOND);
         }
 
         /* (non-Javadoc)
@@ -609,7 +681,7 @@ import io.usethesource.vallang.type.TypeFactory;
          */
         @Override
         public int getTimezoneOffsetHours() {
-            return (int) TimeUnit.HOURS.convert(actual.getOffset().getTotalSeconds(), TimeUnit.SECONDS);
+            return offsetHours(offsetSeconds);
         }
 
         /* (non-Javadoc)
@@ -617,7 +689,7 @@ import io.usethesource.vallang.type.TypeFactory;
          */
         @Override
         public int getTimezoneOffsetMinutes() {
-            return (int) (TimeUnit.MINUTES.convert(actual.getOffset().getTotalSeconds(), TimeUnit.SECONDS) % 60);
+            return offsetMinutes(offsetSeconds);
         }
 
         /* (non-Javadoc)
@@ -646,20 +718,21 @@ import io.usethesource.vallang.type.TypeFactory;
 
         @Override
         public int hashCode() {
-            return actual.hashCode();
+            return Long.hashCode(instant) * 31 + offsetSeconds;
         }
 
         @Override
         public boolean equals(@Nullable Object obj) {
             if (obj instanceof DateTimeValue) {
-                return actual.equals(((DateTimeValue)obj).actual);
+                DateTimeValue other = (DateTimeValue) obj;
+                return instant == other.instant && offsetSeconds == other.offsetSeconds;
             }
             return false;
         }
 
         @Override
         public IString format(String format) {
-            return StringValue.newString(actual.format(DateTimeFormatter.ofPattern(format)));
+            return DateTimeValues.format(toOffsetDateTime(), format);
         }
     }
 }
\ No newline at end of file
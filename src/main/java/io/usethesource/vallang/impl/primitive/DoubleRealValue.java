@@ -0,0 +1,450 @@
+/**
+ * Copyright (c) 2026, Centrum Wiskunde & Informatica (CWI)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package io.usethesource.vallang.impl.primitive;
+
+import java.math.BigDecimal;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import io.usethesource.vallang.IBool;
+import io.usethesource.vallang.IInteger;
+import io.usethesource.vallang.INumber;
+import io.usethesource.vallang.IRational;
+import io.usethesource.vallang.IReal;
+import io.usethesource.vallang.type.Type;
+import io.usethesource.vallang.type.TypeFactory;
+
+/**
+ * Specialized implementation for reals backed by a double, created by {@link AbstractPrimitiveValueFactory#real(double)}
+ * when the factory is configured to do so (see {@link AbstractPrimitiveValueFactory#setDoubleReals(boolean)}).
+ * <br /><br />
+ * A double-backed real stands for the same decimal as <code>BigDecimal.valueOf(value)</code>, which is what a
+ * {@link BigDecimalValue} created from the same double holds. Therefore both representations of the same number are
+ * equal, have the same hash code, string representation, scale and unscaled value.
+ * <br /><br />
+ * Arithmetic between double-backed reals is done with doubles, which is correct up to the {@link #DIGITS} significant
+ * digits a double can hold. The result is promoted to a {@link BigDecimalValue} when it does not fit a double (overflow
+ * or underflow), when a division or function is asked for more than {@link #DIGITS} digits of precision, and when
+ * the other operand is not a double-backed real or a small integer.
+ */
+/*package*/ class DoubleRealValue extends AbstractNumberValue implements IReal {
+    private static final Type DOUBLE_TYPE = TypeFactory.getInstance().realType();
+
+    /** the number of significant decimal digits that survive a round-trip through a double */
+    /*package*/ static final int DIGITS = 15;
+
+    protected final double value;
+
+    /*package*/ static IReal newReal(double value) {
+        BigDecimalValue.checkNanAndInfinity(value);
+        return new DoubleRealValue(value);
+    }
+
+    private DoubleRealValue(double value) {
+        super();
+
+        this.value = value;
+    }
+
+    /**
+     * @return the result as a double-backed real, or null if the double lost the result by overflow or underflow
+     */
+    private static @Nullable IReal fits(double result) {
+        if (Double.isFinite(result) && (result == 0 || Math.abs(result) >= Double.MIN_NORMAL)) {
+            return new DoubleRealValue(result);
+        }
+        return null;
+    }
+
+    /*package*/ BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(value);
+    }
+
+    private IReal promote() {
+        return BigDecimalValue.newReal(toBigDecimal());
+    }
+
+    private IReal toReal(IInteger other) {
+        return other instanceof IntegerValue ? new DoubleRealValue(other.intValue()) : other.toReal(precision());
+    }
+
+    @Override
+    public IReal abs() {
+        return new DoubleRealValue(Math.abs(value));
+    }
+
+    @Override
+    public IReal toReal(int precision) {
+        return this;
+    }
+
+    @Override
+    public Type getType() {
+        return DOUBLE_TYPE;
+    }
+
+    @Override
+    public float floatValue() {
+        return (float) value;
+    }
+
+    @Override
+    public double doubleValue() {
+        return value;
+    }
+
+    @Override
+    public IInteger toInteger() {
+        if (Math.abs(value) < 0x1p53) {
+            // the cast truncates towards zero, like BigDecimal.toBigInteger. Below 2^53 every integer is a double,
+            // so the shortest decimal of the double can not lie on the other side of an integer.
+            return IntegerValue.newInteger((long) value);
+        }
+        return promote().toInteger();
+    }
+
+    @Override
+    public IRational toRational() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public IReal floor() {
+        // the scale of the result is 0, which a double can not represent
+        return promote().floor();
+    }
+
+    @Override
+    public IReal round() {
+        return promote().round();
+    }
+
+    @Override
+    public IReal add(IReal other) {
+        if (other instanceof DoubleRealValue) {
+            IReal result = fits(value + ((DoubleRealValue) other).value);
+            if (result != null) {
+                return result;
+            }
+        }
+        return promote().add(other);
+    }
+
+    @Override
+    public INumber add(IInteger other) {
+        return add(toReal(other));
+    }
+
+    @Override
+    public INumber add(IRational other) {
+        return add(other.toReal(precision()));
+    }
+
+    @Override
+    public IReal subtract(IReal other) {
+        if (other instanceof DoubleRealValue) {
+            IReal result = fits(value - ((DoubleRealValue) other).value);
+            if (result != null) {
+                return result;
+            }
+        }
+        return promote().subtract(other);
+    }
+
+    @Override
+    public INumber subtract(IInteger other) {
+        return subtract(toReal(other));
+    }
+
+    @Override
+    public INumber subtract(IRational other) {
+        return subtract(other.toReal(precision()));
+    }
+
+    @Override
+    public IReal multiply(IReal other) {
+        if (other instanceof DoubleRealValue) {
+            double otherValue = ((DoubleRealValue) other).value;
+            double product = value * otherValue;
+            // a zero product of non-zero factors has underflowed
+            IReal result = product != 0 || value == 0 || otherValue == 0 ? fits(product) : null;
+            if (result != null) {
+                return result;
+            }
+        }
+        return promote().multiply(other);
+    }
+
+    @Override
+    public INumber multiply(IInteger other) {
+        return multiply(toReal(other));
+    }
+
+    @Override
+    public INumber multiply(IRational other) {
+        return multiply(other.toReal(precision()));
+    }
+
+    @Override
+    public IReal divide(IReal other, int precision) {
+        if (other instanceof DoubleRealValue && precision <= DIGITS) {
+            double otherValue = ((DoubleRealValue) other).value;
+            if (otherValue != 0) {
+                double quotient = value / otherValue;
+                IReal result = quotient != 0 || value == 0 ? fits(quotient) : null;
+                if (result != null) {
+                    return result;
+                }
+            }
+        }
+        // also for division by zero, to throw the same exception
+        return promote().divide(other, precision);
+    }
+
+    @Override
+    public IReal divide(IInteger other, int precision) {
+        return divide(other instanceof IntegerValue ? toReal(other) : other.toReal(precision), precision);
+    }
+
+    @Override
+    public IReal divide(IRational other, int precision) {
+        return divide(other.toReal(precision), precision);
+    }
+
+    @Override
+    public IReal negate() {
+        return new DoubleRealValue(-value);
+    }
+
+    @Override
+    public int precision() {
+        return toBigDecimal().precision();
+    }
+
+    @Override
+    public int scale() {
+        return toBigDecimal().scale();
+    }
+
+    @Override
+    public IInteger unscaled() {
+        return IntegerValue.newInteger(toBigDecimal().unscaledValue());
+    }
+
+    @Override
+    public IBool equal(IReal other) {
+        return BoolValue.getBoolValue(compare(other) == 0);
+    }
+
+    @Override
+    public IBool equal(IInteger other) {
+        return equal(toReal(other));
+    }
+
+    @Override
+    public IBool equal(IRational other) {
+        return equal(other.toReal(precision()));
+    }
+
+    @Override
+    public IBool greater(IReal other) {
+        return BoolValue.getBoolValue(compare(other) > 0);
+    }
+
+    @Override
+    public IBool greater(IInteger other) {
+        return greater(toReal(other));
+    }
+
+    @Override
+    public IBool greater(IRational other) {
+        return greater(other.toReal(precision()));
+    }
+
+    @Override
+    public IBool greaterEqual(IReal other) {
+        return BoolValue.getBoolValue(compare(other) >= 0);
+    }
+
+    @Override
+    public IBool greaterEqual(IInteger other) {
+        return greaterEqual(toReal(other));
+    }
+
+    @Override
+    public IBool greaterEqual(IRational other) {
+        return greaterEqual(other.toReal(precision()));
+    }
+
+    @Override
+    public IBool less(IReal other) {
+        return BoolValue.getBoolValue(compare(other) < 0);
+    }
+
+    @Override
+    public IBool less(IInteger other) {
+        return less(toReal(other));
+    }
+
+    @Override
+    public IBool less(IRational other) {
+        return less(other.toReal(precision()));
+    }
+
+    @Override
+    public IBool lessEqual(IReal other) {
+        return BoolValue.getBoolValue(compare(other) <= 0);
+    }
+
+    @Override
+    public IBool lessEqual(IInteger other) {
+        return lessEqual(toReal(other));
+    }
+
+    @Override
+    public IBool lessEqual(IRational other) {
+        return lessEqual(other.toReal(precision()));
+    }
+
+    @Override
+    public int compare(IReal other) {
+        if (other instanceof DoubleRealValue) {
+            // not Double.compare, which orders -0.0 before 0.0
+            double otherValue = ((DoubleRealValue) other).value;
+            return value < otherValue ? -1 : (value > otherValue ? 1 : 0);
+        }
+        return toBigDecimal().compareTo(BigDecimalValue.bigDecimalOf(other));
+    }
+
+    @Override
+    public int compare(INumber other) {
+        if (other instanceof IInteger) {
+            return compare(toReal((IInteger) other));
+        }
+        return compare(other.toReal(precision()));
+    }
+
+    @Override
+    public int hashCode() {
+        // the same as BigDecimalValue.hashCode, for which BigDecimal.valueOf(-0.0) is 0.0
+        long bits = Double.doubleToLongBits(value + 0.0);
+        return (int) (bits ^ (bits >>> 32));
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+        if (o == null) {
+            return false;
+        }
+
+        if (o.getClass() == getClass()) {
+            // BigDecimal.valueOf maps different doubles to different decimals, except -0.0 and 0.0
+            return value == ((DoubleRealValue) o).value;
+        }
+
+        if (o.getClass() == BigDecimalValue.class) {
+            return toBigDecimal().equals(((BigDecimalValue) o).value);
+        }
+
+        return false;
+    }
+
+    @Override
+    public String getStringRepresentation() {
+        return BigDecimalValue.stringRepresentation(toBigDecimal());
+    }
+
+    @Override
+    public int signum() {
+        return (int) Math.signum(value);
+    }
+
+    @Override
+    public IReal log(IInteger base, int precision) {
+        return log(toReal(base), precision);
+    }
+
+    @Override
+    public IReal log(IReal base, int precision) {
+        IReal lnBase = base.ln(precision + 1);
+        IReal lnThis = this.ln(precision + 1);
+        return lnThis.divide(lnBase, precision);
+    }
+
+    @Override
+    public IReal ln(int precision) {
+        // the logarithm of a normal double is never subnormal, and NaN or infinite outside of its domain
+        IReal result = precision <= DIGITS ? fits(Math.log(value)) : null;
+        return result != null ? result : promote().ln(precision);
+    }
+
+    @Override
+    public IReal sqrt(int precision) {
+        IReal result = precision <= DIGITS ? fits(Math.sqrt(value)) : null;
+        return result != null ? result : promote().sqrt(precision);
+    }
+
+    @Override
+    public IReal nroot(IInteger n, int precision) {
+        return promote().nroot(n, precision);
+    }
+
+    @Override
+    public IReal exp(int precision) {
+        double exp = Math.exp(value);
+        IReal result = precision <= DIGITS && exp != 0 ? fits(exp) : null;
+        return result != null ? result : promote().exp(precision);
+    }
+
+    @Override
+    public IReal pow(IInteger power) {
+        if (power instanceof IntegerValue) {
+            double pow = Math.pow(value, power.intValue());
+            IReal result = pow != 0 || value == 0 ? fits(pow) : null;
+            if (result != null) {
+                return result;
+            }
+        }
+        return promote().pow(power);
+    }
+
+    @Override
+    public IReal pow(IReal power, int precision) {
+        if (power instanceof DoubleRealValue && precision <= DIGITS) {
+            double pow = Math.pow(value, ((DoubleRealValue) power).value);
+            IReal result = pow != 0 || value == 0 ? fits(pow) : null;
+            if (result != null) {
+                return result;
+            }
+        }
+        return promote().pow(power, precision);
+    }
+
+    @Override
+    public IReal tan(int precision) {
+        IReal result = precision <= DIGITS ? fits(Math.tan(value)) : null;
+        return result != null ? result : promote().tan(precision);
+    }
+
+    @Override
+    public IReal sin(int precision) {
+        IReal result = precision <= DIGITS ? fits(Math.sin(value)) : null;
+        return result != null ? result : promote().sin(precision);
+    }
+
+    @Override
+    public IReal cos(int precision) {
+        IReal result = precision <= DIGITS ? fits(Math.cos(value)) : null;
+        return result != null ? result : promote().cos(precision);
+    }
+}
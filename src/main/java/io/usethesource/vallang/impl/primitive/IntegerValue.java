@@ -28,35 +28,50 @@ import io.usethesource.vallang.type.TypeFactory;
 /**
  * Implementation for IInteger.
  * <br /><br />
- * Integer values that fall outside the 32-bit range will be store in BigIntegerValue instead.
+ * Integer values that fall outside the 32-bit range will be stored in LongIntegerValue instead, and those that fall
+ * outside the 64-bit range in BigIntegerValue.
  *
  * @author Arnold Lankamp
  */
 /*package*/ class IntegerValue extends AbstractNumberValue implements IInteger, ICanBecomeABigInteger{
     private static final Type INTEGER_TYPE = TypeFactory.getInstance().integerType();
 
-    private static final String INTEGER_MAX_STRING = "2147483647";
-    private static final String NEGATIVE_INTEGER_MAX_STRING = "-2147483648";
+    /** numbers with at most this many digits always fit in a long */
+    private static final int LONG_SAFE_DIGITS = 18;
 
     private static final int SEVEN_BITS_MASK = 0x0000007f;
     private static final int FIFTEEN_BITS_MASK = 0x00007fff;
     private static final int TWENTYTHREE_BITS_MASK = 0x007fffff;
 
-    private static final IInteger[] smallValues;
+    /*
+     * The cache of small integers covers typical offsets, lines, columns and counters. Its range can be configured
+     * with the vallang.integer.cache.low and vallang.integer.cache.high system properties, and always contains 0 and 1.
+     * The configured bounds are clamped to [-2^19, 2^19 - 1], so the array never has more than 2^20 entries.
+     * The cache is filled lazily, so only the values that are actually used take memory besides the array.
+     */
+    private static final int CACHE_LIMIT = 1 << 19;
+    private static final int minSmallValue = Math.max(Math.min(Integer.getInteger("vallang.integer.cache.low", -128), 0), -CACHE_LIMIT);
+    private static final int maxSmallValue = Math.min(Math.max(Integer.getInteger("vallang.integer.cache.high", 65535), 1), CACHE_LIMIT - 1);
+    private static final @Nullable IInteger[] smallValues = new IInteger[cacheSize(minSmallValue, maxSmallValue)];
+
+    private static final int minSmallBigIntegerValue = -100;
+    private static final int maxSmallBigIntegerValue = 100;
     private static final BigInteger[] smallBigIntegerValues;
-    private static final int minSmallValue = -100;
-    private static final int maxSmallValue = 100;
+
     public static final IInteger INTEGER_ONE;
     public static final IInteger INTEGER_ZERO;
     static {
-        smallValues = new IInteger[(maxSmallValue - minSmallValue) + 1];
-        smallBigIntegerValues = new BigInteger[(maxSmallValue - minSmallValue) + 1];
-        for (int i = minSmallValue; i <= maxSmallValue; i++) {
-            smallValues[i - minSmallValue] = new IntegerValue(i);
-            smallBigIntegerValues[i - minSmallValue] = new BigInteger("" + i);
+        smallBigIntegerValues = new BigInteger[(maxSmallBigIntegerValue - minSmallBigIntegerValue) + 1];
+        for (int i = minSmallBigIntegerValue; i <= maxSmallBigIntegerValue; i++) {
+            smallBigIntegerValues[i - minSmallBigIntegerValue] = BigInteger.valueOf(i);
         }
-        INTEGER_ONE = smallValues[1 - minSmallValue];
-        INTEGER_ZERO = smallValues[0 - minSmallValue];
+        INTEGER_ONE = newInteger(1);
+        INTEGER_ZERO = newInteger(0);
+    }
+
+    private static int cacheSize(int low, int high) {
+        // computed as a long, so no range of ints can overflow to a negative size
+        return (int) Math.min((long) high - low + 1, 2L * CACHE_LIMIT);
     }
 
     protected final int value;
@@ -65,61 +80,58 @@ import io.usethesource.vallang.type.TypeFactory;
      * TODO: Unify IntegerValue and BigIntegerValue in same java class file.
      */
     /*package*/ static IInteger newInteger(BigInteger value) {
-        if (value.bitLength() > 31) {
+        int bitLength = value.bitLength();
+        if (bitLength > 63) {
             return new BigIntegerValue(value);
         }
+        if (bitLength > 31) {
+            return new LongIntegerValue(value.longValue());
+        }
         return newInteger(value.intValue());
     }
 
 
     /*package*/ static IInteger newInteger(int value) {
         if (minSmallValue <= value && value <= maxSmallValue) {
-            return smallValues[value - minSmallValue];
+            IInteger cached = smallValues[value - minSmallValue];
+            if (cached == null) {
+                // racing threads may both create the value, which is harmless for immutable values
+                cached = new IntegerValue(value);
+                smallValues[value - minSmallValue] = cached;
+            }
+            return cached;
         }
         return new IntegerValue(value);
     }
 
     /*package*/ static IInteger newInteger(String integerValue) {
-        if (integerValue.startsWith("-")) {
-            if (integerValue.length() < 11 || (integerValue.length() == 11 && integerValue.compareTo(NEGATIVE_INTEGER_MAX_STRING) <= 0)) {
-                return newInteger(Integer.parseInt(integerValue));
-            }
-            return new BigIntegerValue(new BigInteger(integerValue));
+        boolean signed = integerValue.startsWith("-") || integerValue.startsWith("+");
+        if (integerValue.length() - (signed ? 1 : 0) <= LONG_SAFE_DIGITS) {
+            return newInteger(Long.parseLong(integerValue));
         }
-
-        if (integerValue.length() < 10 || (integerValue.length() == 10 && integerValue.compareTo(INTEGER_MAX_STRING) <= 0)) {
-            return newInteger(Integer.parseInt(integerValue));
-        }
-        return new BigIntegerValue(new BigInteger(integerValue));
+        return newInteger(new BigInteger(integerValue));
     }
 
     /*package*/ static IInteger newInteger(long value) {
-        if (((value & 0x000000007fffffffL) == value) || ((value & 0xffffffff80000000L) == 0xffffffff80000000L)) {
+        if (value == (int) value) {
             return newInteger((int) value);
-        } else {
-            byte[] valueData = new byte[8];
-            valueData[0] = (byte) ((value >>> 56) & 0xff);
-            valueData[1] = (byte) ((value >>> 48) & 0xff);
-            valueData[2] = (byte) ((value >>> 40) & 0xff);
-            valueData[3] = (byte) ((value >>> 32) & 0xff);
-            valueData[4] = (byte) ((value >>> 24) & 0xff);
-            valueData[5] = (byte) ((value >>> 16) & 0xff);
-            valueData[6] = (byte) ((value >>> 8) & 0xff);
-            valueData[7] = (byte) (value & 0xff);
-            return newInteger(valueData);
         }
+        return new LongIntegerValue(value);
     }
 
     /*package*/ static IInteger newInteger(byte[] integerData) {
-        if (integerData.length <= 4) {
-            int value = 0;
-            for (int i = integerData.length - 1, j = 0; i >= 0; i--, j++) {
-                value |= ((integerData[i] & 0xff) << (j * 8));
+        if (integerData.length == 0) {
+            return INTEGER_ZERO;
+        }
+        if (integerData.length <= 8) {
+            long value = integerData[0]; // sign extends the most significant byte
+            for (int i = 1; i < integerData.length; i++) {
+                value = (value << 8) | (integerData[i] & 0xff);
             }
 
             return newInteger(value);
         }
-        return new BigIntegerValue(new BigInteger(integerData));
+        return newInteger(new BigInteger(integerData));
     }
 
     private IntegerValue(int value){
@@ -186,10 +198,10 @@ import io.usethesource.vallang.type.TypeFactory;
 
     @Override
     public BigInteger toBigInteger(){
-        if (minSmallValue <= value && value <= maxSmallValue) {
-            return smallBigIntegerValues[value - minSmallValue];
+        if (minSmallBigIntegerValue <= value && value <= maxSmallBigIntegerValue) {
+            return smallBigIntegerValues[value - minSmallBigIntegerValue];
         }
-        return new BigInteger(getTwosComplementRepresentation());
+        return BigInteger.valueOf(value);
     }
 
     @Override
@@ -198,38 +210,18 @@ import io.usethesource.vallang.type.TypeFactory;
             return other;
         }
 
-        if(other instanceof BigIntegerValue){
+        if(!(other instanceof IntegerValue)){
             return other.add(this);
         }
 
-        int otherIntValue = other.intValue();
+        int otherIntValue = ((IntegerValue) other).value;
 
         if(otherIntValue == 0) {
             return this;
         }
 
-        int result = value + otherIntValue;
-        if((value < 0) && (otherIntValue < 0) && (result >= 0)){// Overflow -> positive.
-            byte[] intValueData = new byte[5];
-            intValueData[0] = (byte) 0xff;
-            intValueData[1] = (byte)((result >>> 24) & 0xff);
-            intValueData[2] = (byte)((result >>> 16) & 0xff);
-            intValueData[3] = (byte)((result >>> 8) & 0xff);
-            intValueData[4] = (byte)(result & 0xff);
-
-            return IntegerValue.newInteger(new BigInteger(intValueData));
-        } else if((value > 0) && (otherIntValue > 0) && (result < 0)){// Overflow -> negative.
-            byte[] intValueData = new byte[5];
-            intValueData[0] = 0;
-            intValueData[1] = (byte)((result >>> 24) & 0xff);
-            intValueData[2] = (byte)((result >>> 16) & 0xff);
-            intValueData[3] = (byte)((result >>> 8) & 0xff);
-            intValueData[4] = (byte)(result & 0xff);
-
-            return IntegerValue.newInteger(new BigInteger(intValueData));
-        }
-
-        return IntegerValue.newInteger(result);
+        // the sum of two ints always fits in a long
+        return IntegerValue.newInteger((long) value + otherIntValue);
     }
 
     @Override
@@ -257,34 +249,13 @@ import io.usethesource.vallang.type.TypeFactory;
             return other.negate().subtract(this.negate());
         }
 
-        int otherIntValue = other.intValue();
+        long otherLongValue = other.longValue();
 
-        if(otherIntValue == 0) {
+        if(otherLongValue == 0) {
             return this;
         }
 
-        int result = value - otherIntValue;
-        if((value < 0) && (otherIntValue > 0) && (result > 0)){// Overflow -> positive.
-            byte[] intValueData = new byte[5];
-            intValueData[0] = (byte) 0xff;
-            intValueData[1] = (byte)((result >>> 24) & 0xff);
-            intValueData[2] = (byte)((result >>> 16) & 0xff);
-            intValueData[3] = (byte)((result >>> 8) & 0xff);
-            intValueData[4] = (byte)(result & 0xff);
-
-            return IntegerValue.newInteger(new BigInteger(intValueData));
-        } else if((value > 0) && (otherIntValue < 0) && (result < 0)){// Overflow -> negative.
-            byte[] intValueData = new byte[5];
-            intValueData[0] = 0;
-            intValueData[1] = (byte)((result >>> 24) & 0xff);
-            intValueData[2] = (byte)((result >>> 16) & 0xff);
-            intValueData[3] = (byte)((result >>> 8) & 0xff);
-            intValueData[4] = (byte)(result & 0xff);
-
-            return IntegerValue.newInteger(new BigInteger(intValueData));
-        }
-
-        return IntegerValue.newInteger(result);
+        return LongIntegerValue.subtract(value, otherLongValue);
     }
 
     @Override
@@ -301,40 +272,16 @@ import io.usethesource.vallang.type.TypeFactory;
             return other;
         }
 
-        if(other instanceof BigIntegerValue){
+        if(!(other instanceof IntegerValue)){
             return other.multiply(this);
         }
 
-        int otherIntValue = other.intValue();
+        int otherIntValue = ((IntegerValue) other).value;
         if(otherIntValue == 0) { return other; }
         if(otherIntValue == 1) { return this; }
 
-        boolean resultIsPositive = ((((value ^ otherIntValue) ^ 0x80000000) & 0x80000000) == 0x80000000);
-        if(resultIsPositive){
-            int div = Integer.MAX_VALUE / otherIntValue;
-            if((value > 0)){
-                if(value <= div){
-                    return IntegerValue.newInteger(value * other.intValue());
-                }
-            }else{
-                if(value >= div){
-                    return IntegerValue.newInteger(value * other.intValue());
-                }
-            }
-        } else{
-            int div = Integer.MIN_VALUE / otherIntValue;
-            if((value > 0)){
-                if(value <= div){
-                    return IntegerValue.newInteger(value * other.intValue());
-                }
-            } else{
-                if(value >= div){
-                    return IntegerValue.newInteger(value * other.intValue());
-                }
-            }
-        }
-
-        return IntegerValue.newInteger(toBigInteger().multiply(((ICanBecomeABigInteger) other).toBigInteger()));
+        // the product of two ints always fits in a long
+        return IntegerValue.newInteger((long) value * otherIntValue);
     }
 
     @Override
@@ -361,12 +308,13 @@ import io.usethesource.vallang.type.TypeFactory;
             return IntegerValue.newInteger(toBigInteger().divide(((ICanBecomeABigInteger) other).toBigInteger()));
         }
 
-        int otherIntValue = other.intValue();
-        if (otherIntValue == 1) {
+        long otherLongValue = other.longValue();
+        if (otherLongValue == 1) {
             return this;
         }
 
-        return IntegerValue.newInteger(value / otherIntValue);
+        // in long arithmetic, so Integer.MIN_VALUE / -1 does not overflow
+        return IntegerValue.newInteger(value / otherLongValue);
     }
 
 
@@ -401,10 +349,9 @@ import io.usethesource.vallang.type.TypeFactory;
             }
             return this;
         }
-        int otherVal = other.intValue();
-        int newValue = value % other.intValue();
-        newValue = newValue >= 0 ? newValue : newValue + otherVal;
-        return IntegerValue.newInteger(newValue);
+        long otherVal = other.longValue();
+        long newValue = value % otherVal;
+        return newValue >= 0 ? IntegerValue.newInteger(newValue) : LongIntegerValue.add(newValue, otherVal);
     }
 
     @Override
@@ -413,7 +360,7 @@ import io.usethesource.vallang.type.TypeFactory;
             return this;
         }
 
-        return IntegerValue.newInteger(value % other.intValue());
+        return IntegerValue.newInteger(value % other.longValue());
     }
 
     @Override
@@ -506,10 +453,7 @@ import io.usethesource.vallang.type.TypeFactory;
             return ((~other.compare(this)) + 1);
         }
 
-        if(value > other.intValue()) { return 1; }
-        if(value < other.intValue()) { return -1; }
-
-        return 0;
+        return Long.compare(value, other.longValue());
     }
 
     @Override
@@ -528,7 +472,14 @@ import io.usethesource.vallang.type.TypeFactory;
 
     @Override
     public int hashCode(){
-        int h = value ^ 0x85ebca6b;
+        return hashCode(value);
+    }
+
+    /**
+     * @return the hash code of the integer with this value, in whichever representation it is stored
+     */
+    /*package*/ static int hashCode(long value) {
+        int h = (value == (int) value ? (int) value : Long.hashCode(value)) ^ 0x85ebca6b;
         // based on the final Avalanching phase of MurmurHash2
         // providing a nice mix of bits even for small numbers.
         h ^= h >>> 13;
@@ -566,7 +517,7 @@ import io.usethesource.vallang.type.TypeFactory;
 
     @Override
     public IInteger abs() {
-        return newInteger(Math.abs(value));
+        return newInteger(Math.abs((long) value));
     }
 
     @Override
@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2026, Centrum Wiskunde & Informatica (CWI)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package io.usethesource.vallang.impl.primitive;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import io.usethesource.vallang.util.HashConsingMap;
+import io.usethesource.vallang.util.StripedWeakHashConsingMap;
+
+/**
+ * The path of a source location, as a node in a trie of path segments which is shared by all locations.
+ * <br /><br />
+ * A node holds its last segment and refers to the node of its parent directory, so the directories that many
+ * locations have in common are stored only once. The nodes are hash-consed in a weak map, per parent and segment,
+ * so equal paths are always the same node, and comparing paths is a pointer comparison. Since a node refers to
+ * its parent, a path keeps its directories alive, and the nodes that are no longer used by any location are
+ * collected.
+ * <br /><br />
+ * The hash code of a node is the hash code of the full path string, so locations hash like they did when they
+ * stored the string, and {@link #toString()} builds the string from the segments again.
+ */
+/*package*/ final class LocationPath {
+    private static final HashConsingMap<LocationPath> NODES = new StripedWeakHashConsingMap<>();
+
+    /** the nodes of recently created paths by the hash code of their string, to skip the lookups */
+    private static final int RECENT_SIZE = 1 << 10;
+    private static final @Nullable Recent[] recent = new Recent[RECENT_SIZE];
+
+    private static final class Recent {
+        private final String path;
+        private final LocationPath node;
+
+        Recent(String path, LocationPath node) {
+            this.path = path;
+            this.node = node;
+        }
+    }
+
+    /** null for the segments directly under the root */
+    private final @Nullable LocationPath parent;
+    private final String segment;
+    private final int hash;
+    private final int length;
+
+    private LocationPath(@Nullable LocationPath parent, String segment) {
+        this.parent = parent;
+        this.segment = segment;
+
+        // the hash of parent + "/" + segment, as String.hashCode would compute it
+        int power = 1;
+        for (int i = 0; i < segment.length(); i++) {
+            power *= 31;
+        }
+        int parentHash = parent == null ? 0 : parent.hash;
+        this.hash = (parentHash * 31 + '/') * power + segment.hashCode();
+        this.length = (parent == null ? 0 : parent.length) + 1 + segment.length();
+    }
+
+    /**
+     * @param path a normalized path, which starts with a slash and has no double slashes
+     * @return the shared node of the path
+     */
+    /*package*/ static LocationPath of(String path) {
+        assert path.startsWith("/");
+
+        int slot = path.hashCode() & (RECENT_SIZE - 1);
+        Recent cached = recent[slot];
+        if (cached != null && cached.path.equals(path)) {
+            // comparing the strings is cheaper than walking the nodes, which are spread over the heap
+            return cached.node;
+        }
+
+        // the directory is usually recent as well, when many files in it are used
+        int last = path.lastIndexOf('/');
+        LocationPath parent = last == 0 ? null : of(path.substring(0, last));
+        LocationPath result = NODES.get(new LocationPath(parent, path.substring(last + 1)));
+
+        recent[slot] = new Recent(path, result);
+        return result;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+        if (obj == this) {
+            return true;
+        }
+
+        if (obj instanceof LocationPath) {
+            // only used for hash-consing, where the parents are already shared
+            LocationPath other = (LocationPath) obj;
+            return hash == other.hash && parent == other.parent && segment.equals(other.segment);
+        }
+
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        char[] result = new char[length];
+        int end = length;
+        for (LocationPath node = this; node != null; node = node.parent) {
+            int start = end - node.segment.length();
+            node.segment.getChars(0, node.segment.length(), result, start);
+            result[start - 1] = '/';
+            end = start - 1;
+        }
+        return new String(result);
+    }
+}
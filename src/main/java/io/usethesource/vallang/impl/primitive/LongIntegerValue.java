@@ -0,0 +1,377 @@
+/**
+ * Copyright (c) 2026, Centrum Wiskunde & Informatica (CWI)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package io.usethesource.vallang.impl.primitive;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import io.usethesource.vallang.IBool;
+import io.usethesource.vallang.IInteger;
+import io.usethesource.vallang.INumber;
+import io.usethesource.vallang.IRational;
+import io.usethesource.vallang.IReal;
+import io.usethesource.vallang.type.Type;
+import io.usethesource.vallang.type.TypeFactory;
+
+/**
+ * Specialized implementation for integer values that fall outside the 32-bit range, but inside the 64-bit range.
+ * <br /><br />
+ * Values are always stored in the smallest of the three representations (see {@link IntegerValue#newInteger(long)}),
+ * so values inside the 32-bit range are IntegerValues and values outside the 64-bit range are BigIntegerValues.
+ * Arithmetic detects overflow of the long result and only then falls back to BigInteger.
+ */
+/*package*/ class LongIntegerValue extends AbstractNumberValue implements IInteger, ICanBecomeABigInteger {
+    private static final Type INTEGER_TYPE = TypeFactory.getInstance().integerType();
+
+    protected final long value;
+
+    /*package*/ LongIntegerValue(long value) {
+        super();
+        assert value != (int) value : "use IntegerValue for values in the 32-bit range";
+        this.value = value;
+    }
+
+    /*package*/ static IInteger add(long a, long b) {
+        long result = a + b;
+        if (((a ^ result) & (b ^ result)) < 0) { // both operands have a different sign than the result
+            return IntegerValue.newInteger(BigInteger.valueOf(a).add(BigInteger.valueOf(b)));
+        }
+        return IntegerValue.newInteger(result);
+    }
+
+    /*package*/ static IInteger subtract(long a, long b) {
+        long result = a - b;
+        if (((a ^ b) & (a ^ result)) < 0) { // the operands differ in sign, and the result has the sign of b
+            return IntegerValue.newInteger(BigInteger.valueOf(a).subtract(BigInteger.valueOf(b)));
+        }
+        return IntegerValue.newInteger(result);
+    }
+
+    /*package*/ static IInteger multiply(long a, long b) {
+        long low = a * b;
+        if (Math.multiplyHigh(a, b) != (low >> 63)) { // the high word is not just the sign extension of the low word
+            return IntegerValue.newInteger(BigInteger.valueOf(a).multiply(BigInteger.valueOf(b)));
+        }
+        return IntegerValue.newInteger(low);
+    }
+
+    @Override
+    public IInteger toInteger() {
+        return this;
+    }
+
+    @Override
+    public Type getType() {
+        return INTEGER_TYPE;
+    }
+
+    @Override
+    public int intValue() throws ArithmeticException {
+        return Math.toIntExact(value);
+    }
+
+    @Override
+    public long longValue() {
+        return value;
+    }
+
+    @Override
+    public double doubleValue() {
+        return value;
+    }
+
+    @Override
+    public IReal toReal(int precision) {
+        // precision is ignored intentionally
+        return BigDecimalValue.newReal(BigDecimal.valueOf(value));
+    }
+
+    @Override
+    public IRational toRational() {
+        return RationalValue.newRational(this, IntegerValue.INTEGER_ONE);
+    }
+
+    @Override
+    public byte[] getTwosComplementRepresentation() {
+        int bitLength = 64 - Long.numberOfLeadingZeros(value ^ (value >> 63));
+        byte[] data = new byte[bitLength / 8 + 1];
+        for (int i = data.length - 1, shift = 0; i >= 0; i--, shift += 8) {
+            data[i] = (byte) (value >>> shift);
+        }
+        return data;
+    }
+
+    @Override
+    public BigInteger toBigInteger() {
+        return BigInteger.valueOf(value);
+    }
+
+    @Override
+    public IInteger add(IInteger other) {
+        if (other instanceof BigIntegerValue) {
+            return other.add(this);
+        }
+        return add(value, other.longValue());
+    }
+
+    @Override
+    public IReal add(IReal other) {
+        return (IReal) other.add(this);
+    }
+
+    @Override
+    public IRational add(IRational other) {
+        return (IRational) other.add(this);
+    }
+
+    @Override
+    public IInteger subtract(IInteger other) {
+        if (other instanceof BigIntegerValue) {
+            return IntegerValue.newInteger(toBigInteger().subtract(((BigIntegerValue) other).toBigInteger()));
+        }
+        return subtract(value, other.longValue());
+    }
+
+    @Override
+    public INumber subtract(IReal other) {
+        return toReal(other.precision()).subtract(other);
+    }
+
+    @Override
+    public INumber subtract(IRational other) {
+        return toRational().subtract(other);
+    }
+
+    @Override
+    public IInteger multiply(IInteger other) {
+        if (other instanceof BigIntegerValue) {
+            return other.multiply(this);
+        }
+        return multiply(value, other.longValue());
+    }
+
+    @Override
+    public IReal multiply(IReal other) {
+        return (IReal) other.multiply(this);
+    }
+
+    @Override
+    public IRational multiply(IRational other) {
+        return (IRational) other.multiply(this);
+    }
+
+    @Override
+    public IInteger divide(IInteger other) {
+        if (other instanceof BigIntegerValue) {
+            return IntegerValue.newInteger(toBigInteger().divide(((BigIntegerValue) other).toBigInteger()));
+        }
+
+        long otherValue = other.longValue();
+        if (otherValue == 0) {
+            throw new ArithmeticException("/ by zero");
+        }
+        if (otherValue == -1) {
+            // the only division which overflows: Long.MIN_VALUE / -1
+            return negate();
+        }
+        return IntegerValue.newInteger(value / otherValue);
+    }
+
+    @Override
+    public IRational divide(IRational other) {
+        return toRational().divide(other);
+    }
+
+    @Override
+    public INumber divide(IInteger other, int precision) {
+        return toReal(precision).divide(other, precision);
+    }
+
+    @Override
+    public INumber divide(IRational other, int precision) {
+        return toReal(precision).divide(other, precision);
+    }
+
+    @Override
+    public IReal divide(IReal other, int precision) {
+        return toReal(precision).divide(other, precision);
+    }
+
+    @Override
+    public IInteger mod(IInteger other) {
+        if (other instanceof BigIntegerValue) {
+            return IntegerValue.newInteger(toBigInteger().mod(((BigIntegerValue) other).toBigInteger()));
+        }
+
+        long otherValue = other.longValue();
+        long result = value % otherValue;
+        return result >= 0 ? IntegerValue.newInteger(result) : add(result, otherValue);
+    }
+
+    @Override
+    public IInteger remainder(IInteger other) {
+        if (other instanceof BigIntegerValue) {
+            return IntegerValue.newInteger(toBigInteger().remainder(((BigIntegerValue) other).toBigInteger()));
+        }
+
+        long otherValue = other.longValue();
+        if (otherValue == -1) {
+            // avoids the overflow of Long.MIN_VALUE % -1
+            return IntegerValue.INTEGER_ZERO;
+        }
+        return IntegerValue.newInteger(value % otherValue);
+    }
+
+    @Override
+    public IInteger negate() {
+        if (value == Long.MIN_VALUE) {
+            return IntegerValue.newInteger(toBigInteger().negate());
+        }
+        return IntegerValue.newInteger(-value);
+    }
+
+    @Override
+    public IBool equal(IInteger other) {
+        return BoolValue.getBoolValue(compare(other) == 0);
+    }
+
+    @Override
+    public IBool equal(IReal other) {
+        return other.equal(this);
+    }
+
+    @Override
+    public IBool equal(IRational other) {
+        return other.equal(this);
+    }
+
+    @Override
+    public IBool greater(IInteger other) {
+        return BoolValue.getBoolValue(compare(other) > 0);
+    }
+
+    @Override
+    public IBool greater(IReal other) {
+        return other.less(this);
+    }
+
+    @Override
+    public IBool greater(IRational other) {
+        return other.less(this);
+    }
+
+    @Override
+    public IBool greaterEqual(IInteger other) {
+        return BoolValue.getBoolValue(compare(other) >= 0);
+    }
+
+    @Override
+    public IBool greaterEqual(IReal other) {
+        return other.lessEqual(this);
+    }
+
+    @Override
+    public IBool greaterEqual(IRational other) {
+        return other.lessEqual(this);
+    }
+
+    @Override
+    public IBool less(IInteger other) {
+        return BoolValue.getBoolValue(compare(other) < 0);
+    }
+
+    @Override
+    public IBool less(IReal other) {
+        return other.greater(this);
+    }
+
+    @Override
+    public IBool less(IRational other) {
+        return other.greater(this);
+    }
+
+    @Override
+    public IBool lessEqual(IInteger other) {
+        return BoolValue.getBoolValue(compare(other) <= 0);
+    }
+
+    @Override
+    public IBool lessEqual(IReal other) {
+        return other.greaterEqual(this);
+    }
+
+    @Override
+    public IBool lessEqual(IRational other) {
+        return other.greaterEqual(this);
+    }
+
+    @Override
+    public int compare(IInteger other) {
+        if (other instanceof BigIntegerValue) {
+            return -other.compare(this);
+        }
+        return Long.compare(value, other.longValue());
+    }
+
+    @Override
+    public int compare(INumber other) {
+        if (isIntegerType(other)) {
+            return compare(other.toInteger());
+        }
+        else if (isRationalType(other)) {
+            return toRational().compare(other);
+        }
+        else {
+            assert other instanceof IReal;
+            return toReal(((IReal) other).precision()).compare(other);
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return IntegerValue.hashCode(value);
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+        if (o == null) {
+            return false;
+        }
+        else if (o == this) {
+            return true;
+        }
+
+        if (o.getClass() == getClass()) {
+            return value == ((LongIntegerValue) o).value;
+        }
+
+        return false;
+    }
+
+    @Override
+    public String getStringRepresentation() {
+        return Long.toString(value);
+    }
+
+    @Override
+    public int signum() {
+        return Long.signum(value);
+    }
+
+    @Override
+    public IInteger abs() {
+        return value < 0 ? negate() : this;
+    }
+}
@@ -0,0 +1,530 @@
+/**
+ * Copyright (c) 2026, Centrum Wiskunde & Informatica (CWI)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package io.usethesource.vallang.impl.primitive;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import io.usethesource.vallang.IBool;
+import io.usethesource.vallang.IInteger;
+import io.usethesource.vallang.INumber;
+import io.usethesource.vallang.IRational;
+import io.usethesource.vallang.IReal;
+import io.usethesource.vallang.type.Type;
+
+/**
+ * Specialized implementation for rationals of which the numerator and the denominator fall inside the 64-bit range.
+ * <br /><br />
+ * Like {@link RationalValue}, fractions are normalized to their lowest terms with a non-negative denominator, where
+ * the infinities are <code>1r0</code> and <code>-1r0</code>. Normalization uses the binary gcd, and the arithmetic on
+ * finite fractions divides out common factors before multiplying (Knuth, TAOCP 4.5.1) to keep the intermediate
+ * results small. Only when a long overflows, or for the infinities, the computation falls back to the arithmetic
+ * of {@link RationalValue} on integers. Each rational has exactly one representation, see
+ * {@link RationalValue#newRational(IInteger, IInteger)}.
+ */
+/*package*/ class LongRationalValue extends AbstractNumberValue implements IRational {
+    private static final Type RATIONAL_TYPE = RationalValue.RATIONAL_TYPE;
+
+    /** whole rationals n/1 in this range, for counting and the zero and one of rational arithmetic */
+    private static final int minSmallValue = -128;
+    private static final int maxSmallValue = 127;
+    private static final IRational[] smallValues;
+    static {
+        smallValues = new IRational[(maxSmallValue - minSmallValue) + 1];
+        for (int i = minSmallValue; i <= maxSmallValue; i++) {
+            smallValues[i - minSmallValue] = new LongRationalValue(i, 1);
+        }
+    }
+
+    protected final long num;
+    protected final long denom;
+
+    /*package*/ static IRational newRational(long n, long d) {
+        if (d < 0) {
+            if (n == Long.MIN_VALUE || d == Long.MIN_VALUE) {
+                return RationalValue.newBigRational(IntegerValue.newInteger(n), IntegerValue.newInteger(d));
+            }
+            n = -n;
+            d = -d;
+        }
+
+        // normalize infinites
+        if (d == 0) {
+            if (n == 0) {
+                throw new ArithmeticException("Illegal fraction 0/0");
+            }
+            return new LongRationalValue(n > 0 ? 1 : -1, 0);
+        }
+
+        if (n == Long.MIN_VALUE) {
+            return RationalValue.newBigRational(IntegerValue.newInteger(n), IntegerValue.newInteger(d));
+        }
+
+        long gcd = gcd(Math.abs(n), d);
+        return valueOf(n / gcd, d / gcd);
+    }
+
+    /**
+     * @return the rational of a fraction which is already in its lowest terms
+     */
+    /*package*/ static IRational valueOf(long n, long d) {
+        if (n == 0 && d != 0) {
+            return smallValues[-minSmallValue];
+        }
+        if (d == 1 && minSmallValue <= n && n <= maxSmallValue) {
+            return smallValues[(int) n - minSmallValue];
+        }
+        return new LongRationalValue(n, d);
+    }
+
+    private LongRationalValue(long num, long denom) {
+        super();
+
+        this.num = num;
+        this.denom = denom;
+    }
+
+    /**
+     * Binary gcd of two non-negative longs.
+     */
+    private static long gcd(long a, long b) {
+        if (a == 0) {
+            return b;
+        }
+        if (b == 0) {
+            return a;
+        }
+
+        int shift = Long.numberOfTrailingZeros(a | b);
+        a >>= Long.numberOfTrailingZeros(a);
+        do {
+            b >>= Long.numberOfTrailingZeros(b);
+            if (a > b) {
+                long tmp = b;
+                b = a;
+                a = tmp;
+            }
+            b -= a;
+        } while (b != 0);
+
+        return a << shift;
+    }
+
+    private static long absExact(long a) {
+        if (a == Long.MIN_VALUE) {
+            throw new ArithmeticException("long overflow");
+        }
+        return Math.abs(a);
+    }
+
+    /** a/b + c/d, for finite fractions in their lowest terms */
+    private static IRational add(long a, long b, long c, long d) {
+        long g = gcd(b, d);
+        if (g == 1) {
+            return valueOf(Math.addExact(Math.multiplyExact(a, d), Math.multiplyExact(c, b)), Math.multiplyExact(b, d));
+        }
+
+        long t = Math.addExact(Math.multiplyExact(a, d / g), Math.multiplyExact(c, b / g));
+        long g2 = gcd(absExact(t), g);
+        return valueOf(t / g2, Math.multiplyExact(b / g, d / g2));
+    }
+
+    /** a/b * c/d, for finite fractions in their lowest terms */
+    private static IRational multiply(long a, long b, long c, long d) {
+        long g1 = gcd(absExact(a), d);
+        long g2 = gcd(absExact(c), b);
+        return valueOf(Math.multiplyExact(a / g1, c / g2), Math.multiplyExact(b / g2, d / g1));
+    }
+
+    /** a/b <=> c/d, for finite fractions, by comparing the 128-bit products a*d and c*b */
+    private static int compare(long a, long b, long c, long d) {
+        long high1 = Math.multiplyHigh(a, d);
+        long high2 = Math.multiplyHigh(c, b);
+        if (high1 != high2) {
+            return high1 < high2 ? -1 : 1;
+        }
+        return Long.compareUnsigned(a * d, c * b);
+    }
+
+    private boolean isFinite() {
+        return denom != 0;
+    }
+
+    /**
+     * @return the operand of the given rational for the fast path, or null if there is none
+     */
+    private static @Nullable LongRationalValue fast(IRational other) {
+        if (other instanceof LongRationalValue && ((LongRationalValue) other).isFinite()) {
+            return (LongRationalValue) other;
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the value of the integer is a long, for the fast path
+     */
+    private static boolean isLong(IInteger other) {
+        return other instanceof IntegerValue || other instanceof LongIntegerValue;
+    }
+
+    private IRational toBig() {
+        return RationalValue.operand(numerator(), denominator());
+    }
+
+    @Override
+    public IRational add(IRational other) {
+        LongRationalValue o = fast(other);
+        if (o != null && isFinite()) {
+            try {
+                return add(num, denom, o.num, o.denom);
+            }
+            catch (ArithmeticException e) {
+                // overflow, continue with integers
+            }
+        }
+        return toBig().add(other);
+    }
+
+    @Override
+    public IReal add(IReal other) {
+        return toReal(other.precision()).add(other);
+    }
+
+    @Override
+    public INumber add(IInteger other) {
+        if (isLong(other) && isFinite()) {
+            try {
+                // (num + other * denom) / denom is still in its lowest terms
+                return valueOf(Math.addExact(num, Math.multiplyExact(other.longValue(), denom)), denom);
+            }
+            catch (ArithmeticException e) {
+                // overflow, continue with integers
+            }
+        }
+        return toBig().add(other);
+    }
+
+    @Override
+    public IRational subtract(IRational other) {
+        LongRationalValue o = fast(other);
+        if (o != null && isFinite() && o.num != Long.MIN_VALUE) {
+            try {
+                return add(num, denom, -o.num, o.denom);
+            }
+            catch (ArithmeticException e) {
+                // overflow, continue with integers
+            }
+        }
+        return toBig().subtract(other);
+    }
+
+    @Override
+    public INumber subtract(IReal other) {
+        return toReal(other.precision()).subtract(other);
+    }
+
+    @Override
+    public INumber subtract(IInteger other) {
+        if (isLong(other) && isFinite()) {
+            try {
+                return valueOf(Math.subtractExact(num, Math.multiplyExact(other.longValue(), denom)), denom);
+            }
+            catch (ArithmeticException e) {
+                // overflow, continue with integers
+            }
+        }
+        return toBig().subtract(other);
+    }
+
+    @Override
+    public IRational multiply(IRational other) {
+        LongRationalValue o = fast(other);
+        if (o != null && isFinite()) {
+            try {
+                return multiply(num, denom, o.num, o.denom);
+            }
+            catch (ArithmeticException e) {
+                // overflow, continue with integers
+            }
+        }
+        return toBig().multiply(other);
+    }
+
+    @Override
+    public IReal multiply(IReal other) {
+        return toReal(other.precision()).multiply(other);
+    }
+
+    @Override
+    public INumber multiply(IInteger other) {
+        if (isLong(other) && isFinite()) {
+            try {
+                return multiply(num, denom, other.longValue(), 1);
+            }
+            catch (ArithmeticException e) {
+                // overflow, continue with integers
+            }
+        }
+        return toBig().multiply(other);
+    }
+
+    @Override
+    public IRational divide(IRational other) {
+        LongRationalValue o = fast(other);
+        // division by zero results in an infinity, which is left to the integers
+        if (o != null && isFinite() && o.num != 0) {
+            try {
+                return multiply(num, denom, o.num < 0 ? -o.denom : o.denom, absExact(o.num));
+            }
+            catch (ArithmeticException e) {
+                // overflow, continue with integers
+            }
+        }
+        return toBig().divide(other);
+    }
+
+    @Override
+    public IReal divide(IReal other, int precision) {
+        return toReal(precision).divide(other, precision);
+    }
+
+    @Override
+    public IRational divide(IInteger other, int precision) {
+        return divide(other); // forget precision
+    }
+
+    @Override
+    public IRational divide(IInteger other) {
+        if (isLong(other) && isFinite()) {
+            long d = other.longValue();
+            if (d != 0) {
+                try {
+                    return multiply(num, denom, d < 0 ? -1 : 1, absExact(d));
+                }
+                catch (ArithmeticException e) {
+                    // overflow, continue with integers
+                }
+            }
+        }
+        return toBig().divide(other);
+    }
+
+    @Override
+    public INumber divide(IRational other, int precision) {
+        return divide(other);
+    }
+
+    @Override
+    public IBool less(IRational other) {
+        return BoolValue.getBoolValue(compare(other) < 0);
+    }
+
+    @Override
+    public IBool less(IReal other) {
+        return other.greater(this);
+    }
+
+    @Override
+    public IBool less(IInteger other) {
+        return less(other.toRational());
+    }
+
+    @Override
+    public IBool greater(IRational other) {
+        return BoolValue.getBoolValue(compare(other) > 0);
+    }
+
+    @Override
+    public IBool greater(IReal other) {
+        return other.less(this);
+    }
+
+    @Override
+    public IBool greater(IInteger other) {
+        return greater(other.toRational());
+    }
+
+    @Override
+    public IBool equal(IRational other) {
+        return BoolValue.getBoolValue(compare(other) == 0);
+    }
+
+    @Override
+    public IBool equal(IReal other) {
+        return other.equal(this);
+    }
+
+    @Override
+    public IBool equal(IInteger other) {
+        return equal(other.toRational());
+    }
+
+    @Override
+    public IBool lessEqual(IRational other) {
+        return BoolValue.getBoolValue(compare(other) <= 0);
+    }
+
+    @Override
+    public IBool lessEqual(IReal other) {
+        return other.greaterEqual(this);
+    }
+
+    @Override
+    public IBool lessEqual(IInteger other) {
+        return lessEqual(other.toRational());
+    }
+
+    @Override
+    public IBool greaterEqual(IRational other) {
+        return BoolValue.getBoolValue(compare(other) >= 0);
+    }
+
+    @Override
+    public IBool greaterEqual(IReal other) {
+        return other.lessEqual(this);
+    }
+
+    @Override
+    public IBool greaterEqual(IInteger other) {
+        return greaterEqual(other.toRational());
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+        if (o == null) {
+            return false;
+        }
+
+        if (o == this) {
+            return true;
+        }
+
+        if (o.getClass() == getClass()) {
+            LongRationalValue other = (LongRationalValue) o;
+            return num == other.num && denom == other.denom;
+        }
+
+        return false;
+    }
+
+    @Override
+    public int compare(INumber other) {
+        if (other instanceof IRational) {
+            return compare((IRational) other);
+        }
+        return toBig().compare(other);
+    }
+
+    @Override
+    public int compare(IRational other) {
+        LongRationalValue o = fast(other);
+        if (o != null && isFinite()) {
+            return compare(num, denom, o.num, o.denom);
+        }
+        return toBig().compare(other);
+    }
+
+    @Override
+    public Type getType() {
+        return RATIONAL_TYPE;
+    }
+
+    @Override
+    public IRational negate() {
+        if (num == Long.MIN_VALUE) {
+            return toBig().negate();
+        }
+        return valueOf(-num, denom);
+    }
+
+    @Override
+    public IReal toReal(int precision) {
+        IReal r1 = numerator().toReal(precision);
+        IReal r2 = denominator().toReal(precision);
+        return r1.divide(r2, precision);
+    }
+
+    @Override
+    public IInteger toInteger() {
+        return numerator().divide(denominator());
+    }
+
+    @Override
+    public String getStringRepresentation() {
+        return num + "r" + (denom == 1 ? "" : Long.toString(denom));
+    }
+
+    @Override
+    public int signum() {
+        return Long.signum(num);
+    }
+
+    @Override
+    public IRational abs() {
+        return num < 0 ? negate() : this;
+    }
+
+    @Override
+    public IInteger floor() {
+        return toInteger();
+    }
+
+    @Override
+    public IInteger round() {
+        return toReal(2).round().toInteger();
+    }
+
+    @Override
+    public IRational toRational() {
+        return this;
+    }
+
+    @Override
+    public IRational remainder(IRational other) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int hashCode() {
+        // the same as RationalValue.hashCode would be for these integers
+        if (denom == 1) {
+            return IntegerValue.hashCode(num);
+        }
+        else {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + IntegerValue.hashCode(num);
+            result = prime * result + IntegerValue.hashCode(denom);
+            return result;
+        }
+    }
+
+    @Override
+    public IInteger numerator() {
+        return IntegerValue.newInteger(num);
+    }
+
+    @Override
+    public IInteger denominator() {
+        return IntegerValue.newInteger(denom);
+    }
+
+    @Override
+    public IInteger remainder() {
+        return isFinite() ? IntegerValue.newInteger(num % denom) : numerator().remainder(denominator());
+    }
+
+    @Override
+    public double doubleValue() {
+        return (double) num / denom;
+    }
+}
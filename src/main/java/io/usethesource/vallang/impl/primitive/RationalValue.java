@@ -22,6 +22,12 @@ import io.usethesource.vallang.IReal;
 import io.usethesource.vallang.type.Type;
 import io.usethesource.vallang.type.TypeFactory;
 
+/**
+ * Rationals of which the numerator or the denominator fall outside the 64-bit range.
+ * <br /><br />
+ * Rationals are always normalized, and stored in the smallest representation that fits (see
+ * {@link #newRational(IInteger, IInteger)}), so all other rationals are {@link LongRationalValue}s.
+ */
 /*package*/ class RationalValue extends AbstractNumberValue implements IRational {
     public static final Type RATIONAL_TYPE = TypeFactory.getInstance().rationalType();
 
@@ -29,7 +35,35 @@ import io.usethesource.vallang.type.TypeFactory;
     protected final IInteger denom;
 
     /*package*/ static IRational newRational(IInteger a, IInteger b) {
-        return new RationalValue(a, b);
+        if (fitsLong(a) && fitsLong(b)) {
+            return LongRationalValue.newRational(a.longValue(), b.longValue());
+        }
+        return newBigRational(a, b);
+    }
+
+    /**
+     * Normalizes the fraction with integer arithmetic, for when the long arithmetic of {@link LongRationalValue}
+     * does not suffice.
+     */
+    /*package*/ static IRational newBigRational(IInteger a, IInteger b) {
+        RationalValue result = new RationalValue(a, b);
+        if (fitsLong(result.num) && fitsLong(result.denom)) {
+            return LongRationalValue.valueOf(result.num.longValue(), result.denom.longValue());
+        }
+        return result;
+    }
+
+    /**
+     * A rational to compute with when the long arithmetic of {@link LongRationalValue} overflows, which
+     * is never a result itself since all the arithmetic below goes through {@link #newRational}.
+     */
+    /*package*/ static RationalValue operand(IInteger num, IInteger denom) {
+        return new RationalValue(num, denom);
+    }
+
+    private static boolean fitsLong(IInteger i) {
+        // integers are always stored in the smallest representation
+        return i instanceof IntegerValue || i instanceof LongIntegerValue;
     }
 
     private RationalValue(IInteger num, IInteger denom) {
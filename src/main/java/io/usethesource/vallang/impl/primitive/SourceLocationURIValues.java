@@ -15,8 +15,6 @@ import io.usethesource.vallang.type.TypeFactory;
  * Not supported: in URI class, scheme is case insensitive, but this is already kinda broken, since on windows & osx, so should path's be.
  */
 /*package*/ class SourceLocationURIValues {
-    private static final Pattern doubleSlashes = Pattern.compile("//+");
-
     static ISourceLocation newURI(@Nullable String scheme, @Nullable String authority, @Nullable String path, @Nullable String query, @Nullable String fragment) throws URISyntaxException  {
         scheme = nullifyIfEmpty(scheme);
         authority = nullifyIfEmpty(authority);
@@ -29,7 +27,7 @@ import io.usethesource.vallang.type.TypeFactory;
             }
             if (path != null) {
                 // normalize double or longer slashes
-                path = doubleSlashes.matcher(path).replaceAll("/");
+                path = collapseSlashes(path);
                 if (path.equals("/")) {
                     path  = null;
                 }
@@ -91,6 +89,107 @@ import io.usethesource.vallang.type.TypeFactory;
         return new SourceLocationURIValues.FragmentQueryPathAuthorityURI(scheme, authority, path, query, fragment);
     }
 
+    /**
+     * Parses the textual form of a hierarchical URI directly into the components of a location, without constructing
+     * a {@link URI} first. Only URIs of which the components need no decoding are parsed: any escaped octet, non-ASCII
+     * character or character which is not allowed in its component makes this return null, and then the caller should
+     * fall back on {@link URI} itself, which also reports the syntax errors.
+     */
+    static @Nullable ISourceLocation parseURI(String uri) throws URISyntaxException {
+        int n = uri.length();
+        int colon = uri.indexOf(':');
+        if (colon <= 0 || colon + 1 == n || uri.charAt(colon + 1) != '/' || !validScheme(uri.substring(0, colon))) {
+            return null;
+        }
+
+        int p = colon + 1;
+        String authority = null;
+        if (p + 1 < n && uri.charAt(p + 1) == '/') {
+            int end = scan(uri, p + 2, AUTHORITY_CHAR);
+            if (end == n && end == p + 2) {
+                // "scheme://" is missing its authority
+                return null;
+            }
+            authority = uri.substring(p + 2, end);
+            p = end;
+        }
+
+        int end = scan(uri, p, PATH_CHAR);
+        String path = uri.substring(p, end);
+        p = end;
+
+        String query = null;
+        if (p < n && uri.charAt(p) == '?') {
+            end = scan(uri, p + 1, QUERY_CHAR);
+            query = uri.substring(p + 1, end);
+            p = end;
+        }
+
+        String fragment = null;
+        if (p < n && uri.charAt(p) == '#') {
+            end = scan(uri, p + 1, QUERY_CHAR);
+            fragment = uri.substring(p + 1, end);
+            p = end;
+        }
+
+        if (p != n) {
+            return null;
+        }
+
+        return newURI(uri.substring(0, colon), authority, path, query, fragment);
+    }
+
+    // RFC2396, as implemented by java.net.URI, but without escaped octets, and without the brackets of IPv6 addresses
+    private static final byte PATH_CHAR = 1;
+    private static final byte AUTHORITY_CHAR = 2;
+    private static final byte QUERY_CHAR = 4;
+    private static final byte[] URI_CHARS = new byte[128];
+
+    static {
+        String unreserved = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_.!~*'()";
+        mark(unreserved + ";:@&=+$,", AUTHORITY_CHAR);
+        mark(unreserved + ";:@&=+$,/", PATH_CHAR);
+        mark(unreserved + ";:@&=+$,/?", QUERY_CHAR);
+    }
+
+    private static void mark(String chars, byte kind) {
+        for (int i = 0; i < chars.length(); i++) {
+            URI_CHARS[chars.charAt(i)] |= kind;
+        }
+    }
+
+    /**
+     * @return the index of the first character from start on which is not of the given kind
+     */
+    private static int scan(String s, int start, byte kind) {
+        int i = start;
+        for (; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 128 || (URI_CHARS[c] & kind) == 0) {
+                break;
+            }
+        }
+        return i;
+    }
+
+    // since this is called a lot, instead of a regex we just use a simple char loop
+    private static String collapseSlashes(String path) {
+        int first = path.indexOf("//");
+        if (first == -1) {
+            return path;
+        }
+
+        StringBuilder result = new StringBuilder(path.length());
+        result.append(path, 0, first + 1);
+        for (int i = first + 1; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c != '/' || path.charAt(i - 1) != '/') {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
     // since this is called a lot, instead of a regex we just use a simple char loop
     // RFC3986:
     // scheme      = ALPHA *( ALPHA / DIGIT / "+" / "-" / "." )
@@ -383,19 +482,19 @@ import io.usethesource.vallang.type.TypeFactory;
     }
 
     private static class PathURI extends BaseURI {
-        protected final String path;
+        protected final LocationPath path;
         private int hash = 0; // we can cache the hash code since the 8-byte alignment leaves room for one
 
         public PathURI(String scheme, String path)  {
             super(scheme);
-            this.path = path;
+            this.path = LocationPath.of(path);
         }
 
         @Override
         @SuppressWarnings("nullness") // CF doesn't have a model for URI
         public URI getURI() {
             try {
-                URI result = new URI(scheme, "", path, null, null);
+                URI result = new URI(scheme, "", path.toString(), null, null);
                 return new URI(result.toASCIIString());
             } catch (URISyntaxException e) {
                 throw new RuntimeException("Internal state corrupted?", e);
@@ -409,7 +508,7 @@ import io.usethesource.vallang.type.TypeFactory;
 
         @Override
         public String getPath() {
-            return path;
+            return path.toString();
         }
 
         @Override
@@ -433,29 +532,26 @@ import io.usethesource.vallang.type.TypeFactory;
 
             if (obj.getClass() == getClass()){
                 PathURI u = (PathURI)obj;
-                if (hash != 0 && u.hash != 0 && hash != u.hash) {
-                    return false;
-                }
-
+                // paths are shared, see LocationPath
                 return scheme == u.scheme
-                    && path.equals(u.path);
+                    && path == u.path;
             }
             return false;
         }
     }
 
     private static class PathAuthorityURI extends AuthorityURI {
-        protected final String path;
+        protected final LocationPath path;
 
         public PathAuthorityURI(String scheme, String authority, String path)  {
             super(scheme, authority);
-            this.path = path;
+            this.path = LocationPath.of(path);
         }
 
         @Override
         @SuppressWarnings("nullness") // CF doesn't have a model for URI
         public URI getURI() {
-            return buildURIWithAuthority(scheme, authority, path, null, null);
+            return buildURIWithAuthority(scheme, authority, path.toString(), null, null);
         }
 
         @Override
@@ -464,7 +560,7 @@ import io.usethesource.vallang.type.TypeFactory;
         }
         @Override
         public String getPath() {
-            return path;
+            return path.toString();
         }
         @Override
         public int hashCode() {
@@ -484,7 +580,7 @@ import io.usethesource.vallang.type.TypeFactory;
                 PathAuthorityURI u = (PathAuthorityURI)obj;
                 return scheme == u.scheme
                     && authority == u.authority
-                    && path.equals(u.path);
+                    && path == u.path;
             }
 
             return false;
@@ -601,7 +697,7 @@ public URI getURI() {
         @SuppressWarnings("nullness") // CF doesn't have a model for URI
 public URI getURI() {
             try {
-                URI result = new URI(scheme, "", path, query, null);
+                URI result = new URI(scheme, "", path.toString(), query, null);
                 return new URI(result.toASCIIString());
             } catch (URISyntaxException e) {
                 throw new RuntimeException("Internal state corrupted?", e);
@@ -633,7 +729,7 @@ public URI getURI() {
             if (obj.getClass() == getClass()){
                 QueryPathURI u = (QueryPathURI)obj;
                 return scheme == u.scheme
-                    && path.equals(u.path)
+                    && path == u.path
                     && query.equals(u.query)
                     ;
             }
@@ -652,7 +748,7 @@ public URI getURI() {
         @Override
         @SuppressWarnings("nullness") // CF doesn't have a model for URI
         public URI getURI() {
-            return buildURIWithAuthority(scheme, authority, path,query,null);
+            return buildURIWithAuthority(scheme, authority, path.toString(),query,null);
         }
 
         @Override
@@ -681,7 +777,7 @@ public URI getURI() {
                 QueryPathAuthorityURI u = (QueryPathAuthorityURI)obj;
                 return scheme == u.scheme
                     && authority == u.authority
-                    && path.equals(u.path)
+                    && path == u.path
                     && query.equals(u.query)
                     ;
             }
@@ -799,7 +895,7 @@ public URI getURI() {
         @SuppressWarnings("nullness") // CF doesn't have a model for URI
 public URI getURI() {
             try {
-                URI result = new URI(scheme, "", path, null, fragment);
+                URI result = new URI(scheme, "", path.toString(), null, fragment);
                 return new URI(result.toASCIIString());
             } catch (URISyntaxException e) {
                 throw new RuntimeException("Internal state corrupted?", e);
@@ -831,7 +927,7 @@ public URI getURI() {
             if (obj.getClass() == getClass()){
                 FragmentPathURI u = (FragmentPathURI)obj;
                 return scheme == u.scheme
-                    && path.equals(u.path)
+                    && path == u.path
                     && fragment.equals(u.fragment)
                     ;
             }
@@ -850,7 +946,7 @@ public URI getURI() {
         @Override
         @SuppressWarnings("nullness") // CF doesn't have a model for URI
         public URI getURI() {
-            return buildURIWithAuthority(scheme, authority, path, null, fragment);
+            return buildURIWithAuthority(scheme, authority, path.toString(), null, fragment);
         }
 
         @Override
@@ -879,7 +975,7 @@ public URI getURI() {
                 FragmentPathAuthorityURI u = (FragmentPathAuthorityURI)obj;
                 return scheme == u.scheme
                     && authority == u.authority
-                    && path.equals(u.path)
+                    && path == u.path
                     && fragment.equals(u.fragment)
                     ;
             }
@@ -998,7 +1094,7 @@ public URI getURI() {
         @SuppressWarnings("nullness") // CF doesn't have a model for URI
 public URI getURI() {
             try {
-                URI result = new URI(scheme, "", path, query, fragment);
+                URI result = new URI(scheme, "", path.toString(), query, fragment);
                 return new URI(result.toASCIIString());
             } catch (URISyntaxException e) {
                 throw new RuntimeException("Internal state corrupted?", e);
@@ -1030,7 +1126,7 @@ public URI getURI() {
             if (obj.getClass() == getClass()){
                 FragmentQueryPathURI u = (FragmentQueryPathURI)obj;
                 return scheme == u.scheme
-                    && path.equals(u.path)
+                    && path == u.path
                     && query.equals(u.query)
                     && fragment.equals(u.fragment)
                     ;
@@ -1050,7 +1146,7 @@ public URI getURI() {
         @Override
         @SuppressWarnings("nullness") // CF doesn't have a model for URI
         public URI getURI() {
-            return buildURIWithAuthority(scheme, authority, path, query, fragment);
+            return buildURIWithAuthority(scheme, authority, path.toString(), query, fragment);
         }
 
         @Override
@@ -1079,7 +1175,7 @@ public URI getURI() {
                 FragmentQueryPathAuthorityURI u = (FragmentQueryPathAuthorityURI)obj;
                 return scheme == u.scheme
                     && authority == u.authority
-                    && path.equals(u.path)
+                    && path == u.path
                     && query.equals(u.query)
                     && fragment.equals(u.fragment)
                     ;
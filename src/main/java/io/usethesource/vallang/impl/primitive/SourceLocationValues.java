@@ -124,6 +124,11 @@ import io.usethesource.vallang.type.TypeFactory;
         return result;
     }
 
+    /*package*/ static ISourceLocation newSourceLocation(String uri) throws URISyntaxException {
+        ISourceLocation result = SourceLocationURIValues.parseURI(uri);
+        return result != null ? result : newSourceLocation(new URI(uri));
+    }
+
     /*package*/ static ISourceLocation newSourceLocation(String scheme, String authority,
             String path, @Nullable String query, @Nullable String fragment) throws URISyntaxException {
         return SourceLocationURIValues.newURI(scheme, authority, path, query, fragment);
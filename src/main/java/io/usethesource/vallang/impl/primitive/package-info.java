@@ -5,9 +5,9 @@
  *
  * <ul>
  *   <li>IBool: see BoolValue</li>
- *   <li>IInteger: see AbstractNumberValue, BigIntegerValue and IntegerValue, ICanBecomeABigInteger</li>
- *   <li>IReal: see AbstractNumberValue, BigDecimalValue</li>
- *   <li>IRational: see AbstractNumberValue, RationalValue</li>
+ *   <li>IInteger: see AbstractNumberValue, BigIntegerValue, LongIntegerValue and IntegerValue, ICanBecomeABigInteger</li>
+ *   <li>IReal: see AbstractNumberValue, BigDecimalValue, DoubleRealValue</li>
+ *   <li>IRational: see AbstractNumberValue, LongRationalValue, RationalValue</li>
  *   <li>ISourceLocation: see SourceLocationURIValues and SourceLocationValues</li>
  *   <li>IString: see StringValue</li>
  *   <li>IDateTime: see DateTimeValues</li>
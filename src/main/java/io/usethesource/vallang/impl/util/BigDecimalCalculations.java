@@ -15,9 +15,20 @@ import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.MathContext;
 import java.math.RoundingMode;
+import java.util.function.IntFunction;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 
+/**
+ * Arbitrary precision transcendental functions on BigDecimals.
+ * <p>
+ * All functions first reduce their argument to a small range, where a series converges in a few terms: sin and cos
+ * reduce modulo 2*pi and then divide by a power of 3, exp splits off a power of 2 and then halves, and ln splits off a
+ * power of 2 and then takes square roots. Above {@link #AGM_THRESHOLD} digits, ln uses the arithmetic-geometric mean
+ * instead. The constants pi, e and ln(2) are computed with binary splitting (or a Machin-like series) at the
+ * largest scale requested so far, and are cached.
+ */
 public class BigDecimalCalculations {
     /**
      *  pi in 1000 decimals places
@@ -63,13 +74,200 @@ public class BigDecimalCalculations {
             "011574770417189861068739696552126715468895703503540");
 
     /**
-     * above 500 (/below -500) the approximation slows down more than the normalisation costs.
-     * So we normalize first
+     * extra decimal digits used for intermediate results, on top of those lost by the argument reductions
      */
-    private static final BigDecimal sincosNormalizePoint = BigDecimal.valueOf(500);
+    private static final int GUARD_DIGITS = 10;
 
-    private static BigInteger maxBigDecimalPowExp = BigInteger.valueOf(999999999); // maximum exponent for BigDecimal.pow
+    /**
+     * from this many digits on, the arithmetic-geometric mean is faster for ln than the series after square roots
+     * (measured, it is dominated by BigDecimal.sqrt)
+     */
+    private static final int AGM_THRESHOLD = 3000;
+
+    private static final BigDecimal TWO = BigDecimal.valueOf(2);
+    private static final BigDecimal THREE = BigDecimal.valueOf(3);
+    private static final BigDecimal FOUR = BigDecimal.valueOf(4);
+    private static final double LOG2_10 = Math.log(10) / Math.log(2);
+    private static final double LN2 = Math.log(2);
+
+    private static final Constant piConstant = new Constant(PI, BigDecimalCalculations::computePi);
+    private static final Constant eConstant = new Constant(E, BigDecimalCalculations::computeE);
+    private static final Constant ln2Constant = new Constant(null, BigDecimalCalculations::computeLn2);
+
+    /**
+     * A constant which is computed on demand, and kept at the largest scale requested so far.
+     */
+    private static final class Constant {
+        private final IntFunction<BigDecimal> compute;
+        private volatile @Nullable BigDecimal value;
+        /** the most recent result, since rounding the full value is not free and the same scale is often requested */
+        private volatile @Nullable BigDecimal last;
+
+        Constant(@Nullable BigDecimal initial, IntFunction<BigDecimal> compute) {
+            this.value = initial;
+            this.compute = compute;
+        }
+
+        BigDecimal get(int scale) {
+            BigDecimal result = last;
+            if (result != null && result.scale() == scale) {
+                return result;
+            }
+
+            BigDecimal current = value;
+
+            // two extra digits, such that rounding the cached value gives the correctly rounded result
+            if (current == null || current.scale() < scale + 2) {
+                synchronized (this) {
+                    current = value;
+                    if (current == null || current.scale() < scale + 2) {
+                        // grow geometrically, to avoid recomputing for slowly increasing precisions
+                        current = compute.apply(Math.max(scale + GUARD_DIGITS, current == null ? 0 : 2 * current.scale()));
+                        value = current;
+                    }
+                }
+            }
+
+            result = current.setScale(scale, RoundingMode.HALF_EVEN);
+            last = result;
+            return result;
+        }
+    }
+
+    /**
+     * @return pi rounded to the given scale
+     */
+    public static BigDecimal pi(int scale) {
+        return piConstant.get(scale);
+    }
+
+    /**
+     * @return e rounded to the given scale
+     */
+    public static BigDecimal e(int scale) {
+        return eConstant.get(scale);
+    }
 
+    /**
+     * @return ln(2) rounded to the given scale
+     */
+    public static BigDecimal ln2(int scale) {
+        return ln2Constant.get(scale);
+    }
+
+    /**
+     * The Chudnovsky series, of which every term adds 14 digits, with binary splitting of the sum.
+     */
+    private static BigDecimal computePi(int scale) {
+        MathContext mc = new MathContext(scale + GUARD_DIGITS);
+        BigInteger[] pqr = chudnovsky(1, scale / 14 + 2);
+        BigInteger q = pqr[1];
+        BigInteger r = pqr[2];
+
+        // pi = 426880 * sqrt(10005) * Q(1,n) / (13591409 * Q(1,n) + R(1,n))
+        BigDecimal numerator = BigDecimal.valueOf(426880).multiply(BigDecimal.valueOf(10005).sqrt(mc)).multiply(new BigDecimal(q));
+        BigDecimal denominator = new BigDecimal(q.multiply(BigInteger.valueOf(13591409)).add(r));
+        return numerator.divide(denominator, mc).setScale(scale, RoundingMode.HALF_EVEN);
+    }
+
+    private static final BigInteger CHUDNOVSKY_C3_OVER_24 = BigInteger.valueOf(640320).pow(3).divide(BigInteger.valueOf(24));
+
+    private static BigInteger[] chudnovsky(long a, long b) {
+        if (b == a + 1) {
+            BigInteger p = BigInteger.valueOf(6 * a - 5).multiply(BigInteger.valueOf(2 * a - 1)).multiply(BigInteger.valueOf(6 * a - 1)).negate();
+            BigInteger q = BigInteger.valueOf(a).pow(3).multiply(CHUDNOVSKY_C3_OVER_24);
+            BigInteger r = p.multiply(BigInteger.valueOf(545140134L * a + 13591409));
+            return new BigInteger[] { p, q, r };
+        }
+
+        long m = (a + b) / 2;
+        BigInteger[] left = chudnovsky(a, m);
+        BigInteger[] right = chudnovsky(m, b);
+        return new BigInteger[] {
+            left[0].multiply(right[0]),
+            left[1].multiply(right[1]),
+            right[1].multiply(left[2]).add(left[0].multiply(right[2]))
+        };
+    }
+
+    /**
+     * e = sum 1/k!, with binary splitting of the sum.
+     */
+    private static BigDecimal computeE(int scale) {
+        // enough terms such that n! > 10^(scale + guard)
+        int n = 1;
+        for (double digits = 0; digits < scale + GUARD_DIGITS; n++) {
+            digits += Math.log10(n);
+        }
+
+        BigInteger[] pq = factorialSum(0, n);
+        BigDecimal sum = new BigDecimal(pq[0]).divide(new BigDecimal(pq[1]), new MathContext(scale + GUARD_DIGITS));
+        return BigDecimal.ONE.add(sum).setScale(scale, RoundingMode.HALF_EVEN);
+    }
+
+    /**
+     * @return P and Q such that P/Q = sum_{k=a+1}^{b} a!/k!
+     */
+    private static BigInteger[] factorialSum(long a, long b) {
+        if (b == a + 1) {
+            return new BigInteger[] { BigInteger.ONE, BigInteger.valueOf(b) };
+        }
+
+        long m = (a + b) / 2;
+        BigInteger[] left = factorialSum(a, m);
+        BigInteger[] right = factorialSum(m, b);
+        return new BigInteger[] { left[0].multiply(right[1]).add(right[0]), left[1].multiply(right[1]) };
+    }
+
+    /**
+     * ln(2) = 18 atanh(1/26) - 2 atanh(1/4801) + 8 atanh(1/8749), in fixed point arithmetic.
+     */
+    private static BigDecimal computeLn2(int scale) {
+        BigInteger one = BigInteger.TEN.pow(scale + GUARD_DIGITS);
+        BigInteger sum = atanhInverse(26, one).multiply(BigInteger.valueOf(18))
+            .subtract(atanhInverse(4801, one).shiftLeft(1))
+            .add(atanhInverse(8749, one).shiftLeft(3));
+        return new BigDecimal(sum, scale + GUARD_DIGITS).setScale(scale, RoundingMode.HALF_EVEN);
+    }
+
+    /**
+     * @return atanh(1/n) = sum 1/((2k+1) n^(2k+1)), in fixed point with the given one
+     */
+    private static BigInteger atanhInverse(int n, BigInteger one) {
+        BigInteger n2 = BigInteger.valueOf((long) n * n);
+        BigInteger power = one.divide(BigInteger.valueOf(n));
+        BigInteger sum = power;
+
+        for (long k = 3; power.signum() != 0; k += 2) {
+            power = power.divide(n2);
+            sum = sum.add(power.divide(BigInteger.valueOf(k)));
+        }
+
+        return sum;
+    }
+
+    /**
+     * @return the number of decimal digits before the point of x
+     */
+    private static int integerDigits(BigDecimal x) {
+        return Math.max(0, x.precision() - x.scale());
+    }
+
+    /**
+     * @return log10(x), x > 0, as a double, also when x is out of the range of doubles
+     */
+    private static double log10(BigDecimal x) {
+        // x = m * 10^exponent, with 0.1 <= m < 1
+        int exponent = x.precision() - x.scale();
+        return exponent + Math.log10(x.movePointLeft(exponent).doubleValue());
+    }
+
+    /**
+     * @return an estimate of log2(x), x > 0, which is at most one off
+     */
+    private static int binaryExponent(BigDecimal x) {
+        return (int) Math.round(x.unscaledValue().bitLength() - 0.5 - x.scale() * LOG2_10);
+    }
 
     /**
      * Compute the sine of x to a given scale
@@ -83,50 +281,51 @@ public class BigDecimalCalculations {
         if (x.signum() == 0) {
             return BigDecimal.ZERO;
         }
-        if (x.abs().compareTo(sincosNormalizePoint) >= 0 ) {
-            x = x.remainder(twoPI, new MathContext(scale + 1));
-        }
-        if (x.signum() == -1) {
-            return sinTaylor(x.negate(), scale).negate();
-        } else {
-            return sinTaylor(x, scale);
+
+        int workScale = scale + GUARD_DIGITS;
+        return sinReduced(reduceAngle(x, workScale), workScale).setScale(scale, RoundingMode.HALF_EVEN);
+    }
+
+    /**
+     * @return x - k*2*pi in [-pi, pi] for some whole k, to the given scale
+     */
+    private static BigDecimal reduceAngle(BigDecimal x, int scale) {
+        // the error in 2*pi is multiplied by k, which has as many digits as x
+        BigDecimal twoPi = pi(scale + integerDigits(x) + 1).multiply(TWO);
+        BigDecimal k = x.divide(twoPi, 0, RoundingMode.HALF_EVEN);
+        if (k.signum() != 0) {
+            x = x.subtract(twoPi.multiply(k));
         }
+        return x.setScale(scale, RoundingMode.HALF_EVEN);
     }
 
+    /**
+     * Computes sin(x) for |x| <= pi as sin(3y) = 3 sin(y) - 4 sin(y)^3 with y = x / 3^k, such that the Taylor series of
+     * sin(y) converges quickly.
+     */
+    private static BigDecimal sinReduced(BigDecimal x, int scale) {
+        int triplings = (int) Math.sqrt(scale) / 2;
+        // every tripling can triple the error: log10(3) is less than half a digit
+        int workScale = scale + triplings / 2 + 2;
+
+        BigDecimal sin = sinTaylor(x.divide(THREE.pow(triplings), workScale, RoundingMode.HALF_EVEN), workScale);
+        for (int i = 0; i < triplings; i++) {
+            sin = sin.multiply(THREE).subtract(FOUR.multiply(sin.pow(3))).setScale(workScale, RoundingMode.HALF_EVEN);
+        }
 
-    private static BigDecimal calculateConvergenceTolerance(int scale) {
-        return BigDecimal.valueOf(5).movePointLeft(scale + 1);
+        return sin;
     }
 
-    // code based on arctanTaylor by Ronald Mak
     private static BigDecimal sinTaylor(BigDecimal x, int scale) {
-        int     sp1     = scale + 1;
-        int     i       = 3;
-        boolean addFlag = false;
-
-        BigDecimal power = x;
-        BigDecimal result   = x;
-        BigDecimal fac = new BigDecimal(2*3);
-        BigDecimal term;
-
-        BigDecimal tolerance = calculateConvergenceTolerance(scale);
-
-        // Loop until the approximations converge
-        // (two successive approximations are within the tolerance).
-        do {
-            // x^i
-            power = power.multiply(x).multiply(x).setScale(sp1, RoundingMode.HALF_EVEN);
-            // (x^i)/(i!)
-            term = power.divide(fac, sp1,RoundingMode.HALF_EVEN);
-            // result = result +- (x^i)/(i!)
-            result = addFlag ? result.add(term) : result.subtract(term);
-
-            // state for next round
-            i += 2;
-            fac = fac.multiply(BigDecimal.valueOf(i - 1)).multiply(BigDecimal.valueOf(i));
-            addFlag = !addFlag;
-
-        } while (term.compareTo(tolerance) > 0);
+        BigDecimal x2 = x.multiply(x).setScale(scale, RoundingMode.HALF_EVEN);
+        BigDecimal term = x;
+        BigDecimal result = x;
+
+        // the terms x^i/i! are computed from the previous term, until they vanish at this scale
+        for (long i = 2; term.signum() != 0; i += 2) {
+            term = term.multiply(x2).divide(BigDecimal.valueOf(i * (i + 1)), scale, RoundingMode.HALF_EVEN).negate();
+            result = result.add(term);
+        }
 
         return result;
     }
@@ -141,47 +340,13 @@ public class BigDecimalCalculations {
         if (x.signum() == 0) {
             return BigDecimal.ONE;
         }
-        if (x.abs().compareTo(sincosNormalizePoint) >= 0 ) {
-            x = x.remainder(twoPI, new MathContext(scale + 1));
-        }
-        if (x.signum() == -1) {
-            return cosTaylor(x.negate(), scale);
-        } else {
-            return cosTaylor(x, scale);
-        }
-    }
-
-    // code based on arctanTaylor by Ronald Mak
-    // same as sin but without the x starting point and +1 in faculty
-    private static BigDecimal cosTaylor(BigDecimal x, int scale) {
-        int     sp1     = scale + 1;
-        int     i       = 2;
-        boolean addFlag = false;
-
-        BigDecimal power = BigDecimal.ONE;
-        BigDecimal result   = BigDecimal.ONE;
-        BigDecimal fac = new BigDecimal(2);
-        BigDecimal term;
-
-        BigDecimal tolerance = calculateConvergenceTolerance(scale);
 
-        // Loop until the approximations converge
-        // (two successive approximations are within the tolerance).
-        do {
-            // x^i
-            power = power.multiply(x).multiply(x).setScale(sp1, RoundingMode.HALF_EVEN);
-            // (x^i)/(i!)
-            term = power.divide(fac, sp1, RoundingMode.HALF_EVEN);
-            // result = result +- (x^i)/(i!)
-            result = addFlag ? result.add(term) : result.subtract(term);
-
-            // prepare state for next loop
-            i += 2;
-            fac = fac.multiply(BigDecimal.valueOf(i -1)).multiply(BigDecimal.valueOf(i));
-            addFlag = !addFlag;
-
-        } while (term.compareTo(tolerance) > 0);
-        return result;
+        // cos(x) = sin(pi/2 - |x|), and pi/2 - |x| is in [-pi/2, pi/2] after the reduction
+        int workScale = scale + GUARD_DIGITS;
+        // the same scale of pi as the reduction, which then comes from the cache
+        BigDecimal halfPi = pi(workScale + integerDigits(x) + 1).divide(TWO);
+        BigDecimal reduced = halfPi.subtract(reduceAngle(x, workScale).abs());
+        return sinReduced(reduced, workScale).setScale(scale, RoundingMode.HALF_EVEN);
     }
 
 
@@ -206,56 +371,6 @@ public class BigDecimalCalculations {
     }
 
 
-    /**
-     * Compute x^exponent to a given scale.
-     *
-     * @param x
-     *            the value x
-     * @param exponent
-     *            the exponent value
-     * @param scale
-     *            the desired scale of the result
-     * @return the result value
-     */
-    private static BigDecimal intPower(BigDecimal x, BigInteger exponent, int scale) {
-        boolean negativeExponent = exponent.signum() == -1;
-
-        if (negativeExponent) {
-            exponent = exponent.negate();
-        }
-
-        if (exponent.equals(BigInteger.ZERO)) {
-            return BigDecimal.ONE.setScale(scale);
-        }
-
-        MathContext mc = new MathContext(scale, RoundingMode.HALF_EVEN);
-
-        if (exponent.equals(BigInteger.ONE)) {
-            if (negativeExponent) {
-                return BigDecimal.ONE.divide(x, mc);
-            }
-            return x.setScale(scale, RoundingMode.HALF_EVEN);
-        }
-
-        BigDecimal result = BigDecimal.valueOf(1);
-
-        if (exponent.compareTo(maxBigDecimalPowExp) >= 0) {
-            BigDecimal maxExpPow = x.pow(maxBigDecimalPowExp.intValue(), mc);
-            while (exponent.compareTo(maxBigDecimalPowExp) >= 0) {
-                result = result.multiply(maxExpPow);
-                exponent = exponent.subtract(maxBigDecimalPowExp);
-            }
-        }
-
-        result = result.multiply(x.pow(exponent.intValue(), mc));
-
-        if (negativeExponent) {
-            return BigDecimal.ONE.divide(result, mc);
-        }
-
-        return result.setScale(scale, RoundingMode.HALF_EVEN);
-    }
-
     /**
      * The functions below this line are based on the Numerical implementations of
      * Java Number Cruncher: The Java Programmer's Guide
@@ -277,6 +392,9 @@ public class BigDecimalCalculations {
      *
      * The only changes were the removal of call to Thread.yield(), switching to
      *  and formatting improvements
+     *
+     * Since then exp and ln have been replaced by versions with argument reduction, and
+     * intRoot starts from the root in double precision.
      */
 
     /**
@@ -303,16 +421,24 @@ public class BigDecimalCalculations {
         BigDecimal im1 = i.subtract(BigDecimal.ONE);
         BigDecimal tolerance = BigDecimal.valueOf(5).movePointLeft(sp1);
         BigDecimal xPrev;
-        BigInteger indexm1 = index.subtract(BigInteger.ONE);
-
-        // The initial approximation is x/index.
-        x = x.divide(i, scale, RoundingMode.HALF_EVEN);
+        // relative precision of the powers, such that the error in the root is less than the tolerance
+        MathContext mc = new MathContext(sp1 + integerDigits(n) + 2, RoundingMode.HALF_EVEN);
+        int powerIm1 = index.subtract(BigInteger.ONE).intValueExact();
+
+        // The initial approximation is the root in double precision, if it is representable, otherwise x/index.
+        double guess = Math.pow(x.doubleValue(), 1.0 / index.doubleValue());
+        if (guess > 0 && guess < Double.MAX_VALUE) {
+            x = new BigDecimal(guess).setScale(scale, RoundingMode.HALF_EVEN);
+        }
+        else {
+            x = x.divide(i, scale, RoundingMode.HALF_EVEN);
+        }
 
         // Loop until the approximations converge
         // (two successive approximations are equal after rounding).
         do {
             // x^(index-1)
-            BigDecimal xToIm1 = intPower(x, indexm1, sp1 + 1);
+            BigDecimal xToIm1 = x.pow(powerIm1, mc);
             // x^index
             BigDecimal xToI = x.multiply(xToIm1);
             // n + (index-1)*(x^index)
@@ -334,8 +460,7 @@ public class BigDecimalCalculations {
     }
 
     /**
-     * Compute e^x to a given scale. Break x into its whole and fraction parts
-     * and compute (e^(1 + fraction/whole))^whole using Taylor's formula.
+     * Compute e^x to a given scale. For negative x the scale is the number of significant digits of the result.
      *
      * @param x
      *            the value of x
@@ -355,34 +480,43 @@ public class BigDecimalCalculations {
             x = x.negate();
         }
 
-        // Compute the whole part of x.
-        BigDecimal xWhole = x.setScale(0, RoundingMode.DOWN);
+        // the result has about x/ln(10) digits before the point, which all have to be right as well
+        double integerDigits = Math.ceil(x.doubleValue() / Math.log(10)) + 1;
+        if (integerDigits > Integer.MAX_VALUE / 8) {
+            throw new ArithmeticException("exp(" + x + ") is too large");
+        }
 
-        BigDecimal result;
+        BigDecimal result = expPositive(x, (isNegative ? scale : scale + (int) integerDigits) + GUARD_DIGITS);
 
-        // If there isn't a whole part, compute and return e^x.
-        if (xWhole.signum() == 0) {
-            result = expTaylor(x, scale);
+        if (isNegative) {
+            return BigDecimal.ONE.divide(result, new MathContext(scale, RoundingMode.HALF_EVEN));
         }
-        else {
-            // Compute the fraction part of x.
-            BigDecimal xFraction = x.subtract(xWhole);
 
-            // z = 1 + fraction/whole
-            BigDecimal z = BigDecimal.valueOf(1).add(
-                    xFraction.divide(xWhole, scale, RoundingMode.HALF_EVEN));
+        return result.setScale(scale, RoundingMode.HALF_EVEN);
+    }
 
-            // t = e^z
-            BigDecimal t = expTaylor(z, scale);
+    /**
+     * Computes e^x for x >= 0 to the given number of significant digits, as 2^k * (e^(r / 2^m))^(2^m)
+     * with x = k*ln(2) + r, such that the Taylor series converges quickly.
+     */
+    private static BigDecimal expPositive(BigDecimal x, int precision) {
+        int k = (int) Math.floor(x.doubleValue() / LN2);
+        int kDigits = Integer.toString(k).length();
 
-            result = intPower(t, xWhole.toBigInteger(), scale);
-        }
+        // the error in ln(2) is multiplied by k
+        int workScale = precision + kDigits;
+        BigDecimal r = x.subtract(ln2(workScale + kDigits).multiply(BigDecimal.valueOf(k))).setScale(workScale, RoundingMode.HALF_EVEN);
 
-        if (isNegative) {
-            return BigDecimal.ONE.divide(result, new MathContext(scale, RoundingMode.HALF_EVEN));
+        int squarings = (int) Math.sqrt(precision) / 2;
+        // every squaring doubles the relative error: log10(2) is less than a third of a digit
+        workScale += squarings / 3 + 2;
+
+        BigDecimal result = expTaylor(r.divide(TWO.pow(squarings), workScale, RoundingMode.HALF_EVEN), workScale);
+        for (int i = 0; i < squarings; i++) {
+            result = result.multiply(result).setScale(workScale, RoundingMode.HALF_EVEN);
         }
 
-        return result;
+        return result.multiply(new BigDecimal(BigInteger.ONE.shiftLeft(k)), new MathContext(precision, RoundingMode.HALF_EVEN));
     }
 
     /**
@@ -395,28 +529,14 @@ public class BigDecimalCalculations {
      * @return the result value
      */
     private static BigDecimal expTaylor(BigDecimal x, int scale) {
-        BigDecimal factorial = BigDecimal.valueOf(1);
-        BigDecimal xPower = x;
-        BigDecimal sumPrev;
-
-        // 1 + x
-        BigDecimal sum = x.add(BigDecimal.valueOf(1));
-        // Loop until the sums converge
-        // (two successive sums are equal after rounding).
-        int i = 2;
-        do {
-            // x^i
-            xPower = xPower.multiply(x).setScale(scale, RoundingMode.HALF_EVEN);
-            // i!
-            factorial = factorial.multiply(BigDecimal.valueOf(i));
-            // x^i/i!
-            BigDecimal term = xPower.divide(factorial, scale, RoundingMode.HALF_EVEN);
-            // sum = sum + x^i/i!
-            sumPrev = sum;
-            sum = sum.add(term);
+        BigDecimal term = BigDecimal.ONE;
+        BigDecimal sum = BigDecimal.ONE;
 
-            ++i;
-        } while (sum.compareTo(sumPrev) != 0);
+        // the terms x^i/i! are computed from the previous term, until they vanish at this scale
+        for (long i = 1; term.signum() != 0; i++) {
+            term = term.multiply(x).divide(BigDecimal.valueOf(i), scale, RoundingMode.HALF_EVEN);
+            sum = sum.add(term);
+        }
 
         return sum;
     }
@@ -435,50 +555,76 @@ public class BigDecimalCalculations {
         if (x.signum() <= 0) {
             throw new ArithmeticException("x <= 0");
         }
-        // The number of digits to the left of the decimal point.
-        int magnitude = x.toString().length() - x.scale() - 1;
-        if (magnitude < 3) {
-            return lnNewton(x, scale);
+
+        int workScale = scale + GUARD_DIGITS;
+        BigDecimal result = workScale >= AGM_THRESHOLD ? lnAgm(x, workScale) : lnSeries(x, workScale);
+        return result.setScale(scale, RoundingMode.HALF_EVEN);
+    }
+
+    /**
+     * Computes ln(x) = k*ln(2) + 2^(m+1) * atanh(z) with x = 2^k * y, z = (y' - 1) / (y' + 1) and y' the 2^m-th root of
+     * y, such that the series of atanh converges quickly.
+     */
+    private static BigDecimal lnSeries(BigDecimal x, int scale) {
+        int k = binaryExponent(x);
+        int roots = (int) Math.sqrt(scale) / 2;
+        // every root halves z, but the result is multiplied by 2^roots again
+        int workScale = scale + roots / 3 + 2;
+        MathContext mc = new MathContext(workScale + 1, RoundingMode.HALF_EVEN);
+
+        BigDecimal y = k >= 0 ? x.divide(new BigDecimal(BigInteger.ONE.shiftLeft(k)), mc) : x.multiply(new BigDecimal(BigInteger.ONE.shiftLeft(-k)), mc);
+        for (int i = 0; i < roots; i++) {
+            y = y.sqrt(mc);
         }
-        // Compute magnitude*ln(x^(1/magnitude)).
-        else {
-            // x^(1/magnitude)
-            BigDecimal root = intRoot(x, BigInteger.valueOf(magnitude), scale);
-            // ln(x^(1/magnitude))
-            BigDecimal lnRoot = lnNewton(root, scale);
-            // magnitude*ln(x^(1/magnitude))
-            return BigDecimal.valueOf(magnitude).multiply(lnRoot)
-                    .setScale(scale, RoundingMode.HALF_EVEN);
+
+        BigDecimal z = y.subtract(BigDecimal.ONE).divide(y.add(BigDecimal.ONE), workScale, RoundingMode.HALF_EVEN);
+        BigDecimal z2 = z.multiply(z).setScale(workScale, RoundingMode.HALF_EVEN);
+        BigDecimal power = z;
+        BigDecimal atanh = z;
+
+        for (long i = 3; power.signum() != 0; i += 2) {
+            power = power.multiply(z2).setScale(workScale, RoundingMode.HALF_EVEN);
+            atanh = atanh.add(power.divide(BigDecimal.valueOf(i), workScale, RoundingMode.HALF_EVEN));
+        }
+
+        BigDecimal lnY = atanh.multiply(new BigDecimal(BigInteger.ONE.shiftLeft(roots + 1)));
+        if (k == 0) {
+            return lnY;
         }
+        // the error in ln(2) is multiplied by k
+        int kDigits = Integer.toString(Math.abs(k)).length();
+        return lnY.add(ln2(scale + kDigits).multiply(BigDecimal.valueOf(k)));
     }
 
     /**
-     * Compute the natural logarithm of x to a given scale, x > 0. Use Newton's
-     * algorithm.
+     * Computes ln(x) = pi / (2 * AGM(1, 4/s)) - m*ln(2), with s = x * 2^m > 2^(p/2) for a binary precision p.
      */
-    private static BigDecimal lnNewton(BigDecimal x, int scale) {
-        int sp1 = scale + 1;
-        BigDecimal n = x;
-        BigDecimal term;
-
-        // Convergence tolerance = 5*(10^-(scale+1))
-        BigDecimal tolerance = BigDecimal.valueOf(5).movePointLeft(sp1);
-        // Loop until the approximations converge
-        // (two successive approximations are within the tolerance).
-        do {
-            // e^x
-            BigDecimal eToX = exp(x, sp1);
-            // (e^x - n)/e^x
-            if (eToX.compareTo(BigDecimal.ZERO) == 0) {
+    private static BigDecimal lnAgm(BigDecimal x, int scale) {
+        int bits = (int) Math.ceil(scale * LOG2_10) + 1;
+        int m = bits / 2 - binaryExponent(x) + 1;
+
+        // ln(s) has a few digits before the point, and the subtraction of m*ln(2) cancels as many
+        int workPrecision = scale + 2 * Integer.toString(bits).length() + 2;
+        MathContext mc = new MathContext(workPrecision, RoundingMode.HALF_EVEN);
+
+        BigDecimal s = m >= 0 ? x.multiply(new BigDecimal(BigInteger.ONE.shiftLeft(m))) : x.divide(new BigDecimal(BigInteger.ONE.shiftLeft(-m)), mc);
+        BigDecimal a = BigDecimal.ONE;
+        BigDecimal b = FOUR.divide(s, mc);
+
+        // the mean converges quadratically, once a and b are close it takes one more step
+        for (int i = 0; i < 64; i++) {
+            BigDecimal next = a.add(b).divide(TWO, mc);
+            b = a.multiply(b, mc).sqrt(mc);
+            a = next;
+            if (a.subtract(b).abs().compareTo(a.ulp().movePointRight(workPrecision / 2)) < 0) {
+                a = a.add(b).divide(TWO, mc);
                 break;
             }
-            term = eToX.subtract(n).divide(eToX, sp1, RoundingMode.DOWN);
-            // x - (e^x - n)/e^x
-            x = x.subtract(term);
-
-        } while (term.compareTo(tolerance) > 0);
+        }
 
-        return x.setScale(scale, RoundingMode.HALF_EVEN);
+        BigDecimal lnS = pi(workPrecision).divide(a.multiply(TWO), mc);
+        int mDigits = Integer.toString(Math.abs(m)).length();
+        return lnS.subtract(ln2(scale + mDigits).multiply(BigDecimal.valueOf(m)));
     }
 
     /**
@@ -534,8 +680,11 @@ public class BigDecimalCalculations {
             return a.pow(b.intValue(), mc);
         }
         // else we have to do the more expansive route:
-        // a^b=exp(b*ln(a))
-        return exp(b.multiply(ln(a, scale), mc), scale).setScale(scale - 1, RoundingMode.HALF_EVEN);
+        // a^b=exp(b*ln(a)), where the error in ln(a) is multiplied by b, and then by the result
+        // the number of integer digits of the result; this is NaN, and then ignored, for a = 1 and a huge b
+        double resultDigits = Math.ceil(b.doubleValue() * log10(a));
+        int lnScale = scale + integerDigits(b) + (int) Math.max(0, Math.min(Integer.MAX_VALUE / 4, resultDigits)) + 2;
+        return exp(b.multiply(ln(a, lnScale)), scale).setScale(scale - 1, RoundingMode.HALF_EVEN);
     }
 
 }
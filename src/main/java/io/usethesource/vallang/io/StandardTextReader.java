@@ -14,7 +14,6 @@ package io.usethesource.vallang.io;
 
 import java.io.IOException;
 import java.io.Reader;
-import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -251,7 +250,7 @@ public class StandardTextReader extends AbstractTextReader {
 
             ISourceLocation loc = sourceLocationCache.get(url, u -> {
                 try {
-                    return factory.sourceLocation(new URI(u));
+                    return factory.sourceLocationFromURI(u);
                 } catch (URISyntaxException e) {
                     throw new RuntimeException(e);
                 }
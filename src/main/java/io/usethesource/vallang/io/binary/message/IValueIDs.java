@@ -60,6 +60,7 @@ public class IValueIDs {
     private static final int MAP_VALUE_ID = 11;
     private static final int SET_VALUE_ID = 12;
     private static final int NAMED_VALUES_ID = 13;
+    private static final int PACKED_VALUES_ID = 14;
     // WARNING: when adding here, don't forget to update the ranges at the end of this class
 
     public static class Common {
@@ -169,6 +170,26 @@ public class IValueIDs {
         public static final int VALUES = 2;
     }
 
+    /**
+     * Columnar encoding of a list or set with only ints, strings, or source locations (pointing into the same file).
+     * The ints and offsets are delta encoded (and zig-zag encoded to keep the deltas positive).
+     * Locations share the nested URI.
+     */
+    public static class PackedValues {
+        public static final int ID = PACKED_VALUES_ID;
+        public static final int IS_SET = 1;
+        public static final int INTS = 2;
+        public static final int STRINGS = 3;
+        public static final int STRING_INDICES = 4;
+        public static final int LOCATION_URI = 5;
+        public static final int OFFSETS = 6;
+        public static final int LENGTHS = 7;
+        public static final int BEGINLINES = 8;
+        public static final int ENDLINES = 9;
+        public static final int BEGINCOLUMNS = 10;
+        public static final int ENDCOLUMNS = 11;
+    }
+
     // Type message ID's start at 100 to leave room for new values
     // Types aren't serialized that often so the overhead is acceptable
 
@@ -293,7 +314,7 @@ public class IValueIDs {
         public static final int VALUES_MIN = PREVIOUS_VALUE_ID;
         public static final int VALUES_MAX = RAT_VALUE_ID;
         public static final int COMMON_VALUES_MIN = PREVIOUS_VALUE_ID;
-        public static final int COMMON_VALUES_MAX = SET_VALUE_ID;
+        public static final int COMMON_VALUES_MAX = PACKED_VALUES_ID;
 
 
         public static final int TYPES_MIN = PREVIOUS_TYPE_ID_ID;
@@ -16,7 +16,9 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map.Entry;
 import java.util.function.Supplier;
 
@@ -35,6 +37,7 @@ import io.usethesource.vallang.ISetWriter;
 import io.usethesource.vallang.ISourceLocation;
 import io.usethesource.vallang.IValue;
 import io.usethesource.vallang.IValueFactory;
+import io.usethesource.vallang.IWriter;
 import io.usethesource.vallang.io.binary.stream.IValueInputStream;
 import io.usethesource.vallang.io.binary.util.TrackLastRead;
 import io.usethesource.vallang.io.binary.util.WindowCacheFactory;
@@ -43,6 +46,7 @@ import io.usethesource.vallang.type.Type;
 import io.usethesource.vallang.type.TypeFactory;
 import io.usethesource.vallang.type.TypeStore;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * An utility class for the {@link IValueInputStream}. Only directly use methods in this class if you have nested IValues in an existing {@link IWireInputStream}.
@@ -131,6 +135,50 @@ public class IValueReader {
         throw new IOException("Missing Type in the stream");
     }
 
+    /**
+     * Read all types of a single message from the wire reader, as written by {@link IValueWriter#writeTypes}.
+     */
+    public static List<Type> readTypes(IWireInputStream reader, IValueFactory vf, Supplier<TypeStore> typeStoreSupplier) throws IOException {
+        int typeWindowSize = 0;
+        int valueWindowSize = 0;
+        int uriWindowSize = 0;
+        if (reader.next() != IWireInputStream.MESSAGE_START || reader.message() != IValueIDs.Header.ID) {
+            throw new IOException("Missing header at start of stream");
+        }
+        List<Type> result = new ArrayList<>();
+        @Nullable IValueReader valueReader = null;
+        try {
+            while (reader.next() != IWireInputStream.MESSAGE_END) {
+                switch (reader.field()) {
+                    case IValueIDs.Header.VALUE_WINDOW:
+                        valueWindowSize = reader.getInteger();
+                        break;
+                    case IValueIDs.Header.TYPE_WINDOW:
+                        typeWindowSize = reader.getInteger();
+                        break;
+                    case IValueIDs.Header.SOURCE_LOCATION_WINDOW:
+                        uriWindowSize = reader.getInteger();
+                        break;
+                    case IValueIDs.Header.TYPE:
+                        if (valueReader == null) {
+                            // the windows are shared by all types of the message
+                            valueReader = new IValueReader(vf, typeStoreSupplier, typeWindowSize, valueWindowSize, uriWindowSize);
+                        }
+                        result.add(valueReader.readType(reader));
+                        break;
+                    default:
+                        reader.skipNestedField();
+                        break;
+                }
+            }
+            return result;
+        } finally {
+            if (valueReader != null) {
+                valueReader.done();
+            }
+        }
+    }
+
     private IValueReader(IValueFactory vf, Supplier<TypeStore> typeStoreSupplier, int typeWindowSize, int valueWindowSize, int uriWindowSize) {
         WindowCacheFactory windowFactory = WindowCacheFactory.getInstance();
         typeWindow = windowFactory.getTrackLastRead(typeWindowSize);
@@ -476,6 +524,7 @@ public class IValueReader {
             case IValueIDs.StringValue.ID: return readString(reader);
             case IValueIDs.TupleValue.ID: return readTuple(reader);
             case IValueIDs.PreviousValue.ID: return readPreviousValue(reader);
+            case IValueIDs.PackedValues.ID: return readPackedValues(reader);
             default:
                 throw new IllegalArgumentException("readValue: " + reader.message());
         }
@@ -603,6 +652,88 @@ public class IValueReader {
         return returnAndStore(backReference, valueWindow, result);
     }
 
+    private IValue readPackedValues(final IWireInputStream reader) throws IOException {
+        boolean backReference = false;
+        boolean isSet = false;
+        int[] ints = null;
+        String[] strings = null;
+        int[] stringIndices = null;
+        ISourceLocation uri = null;
+        int[] offsets = null;
+        int[] lengths = null;
+        int[] beginLines = null;
+        int[] endLines = null;
+        int[] beginColumns = null;
+        int[] endColumns = null;
+        while (reader.next() != IWireInputStream.MESSAGE_END) {
+            switch(reader.field()) {
+                case IValueIDs.Common.CAN_BE_BACK_REFERENCED: backReference = true; break;
+                case IValueIDs.PackedValues.IS_SET: isSet = reader.getInteger() != 0; break;
+                case IValueIDs.PackedValues.INTS: ints = reader.getIntegers(); break;
+                case IValueIDs.PackedValues.STRINGS: strings = reader.getStrings(); break;
+                case IValueIDs.PackedValues.STRING_INDICES: stringIndices = reader.getIntegers(); break;
+                case IValueIDs.PackedValues.LOCATION_URI: uri = (ISourceLocation) readValue(reader); break;
+                case IValueIDs.PackedValues.OFFSETS: offsets = reader.getIntegers(); break;
+                case IValueIDs.PackedValues.LENGTHS: lengths = reader.getIntegers(); break;
+                case IValueIDs.PackedValues.BEGINLINES: beginLines = reader.getIntegers(); break;
+                case IValueIDs.PackedValues.ENDLINES: endLines = reader.getIntegers(); break;
+                case IValueIDs.PackedValues.BEGINCOLUMNS: beginColumns = reader.getIntegers(); break;
+                case IValueIDs.PackedValues.ENDCOLUMNS: endColumns = reader.getIntegers(); break;
+                default: reader.skipNestedField(); break;
+            }
+        }
+
+        IWriter<?> result = isSet ? vf.setWriter() : vf.listWriter();
+        if (ints != null) {
+            int previous = 0;
+            for (int i = 0; i < ints.length; i++) {
+                previous += zagZig(ints[i]);
+                result.append(vf.integer(previous));
+            }
+        }
+        else if (strings != null) {
+            if (stringIndices == null) {
+                for (String s : strings) {
+                    result.append(vf.string(s));
+                }
+            }
+            else {
+                IValue[] dictionary = new IValue[strings.length];
+                for (int i = 0; i < strings.length; i++) {
+                    dictionary[i] = vf.string(strings[i]);
+                }
+                for (int index : stringIndices) {
+                    result.append(dictionary[index]);
+                }
+            }
+        }
+        else if (uri != null && offsets != null && lengths != null) {
+            int offset = 0;
+            if (beginLines != null && endLines != null && beginColumns != null && endColumns != null) {
+                int beginLine = 0;
+                for (int i = 0; i < offsets.length; i++) {
+                    offset += zagZig(offsets[i]);
+                    beginLine += zagZig(beginLines[i]);
+                    result.append(vf.sourceLocation(uri, offset, lengths[i], beginLine, beginLine + zagZig(endLines[i]), beginColumns[i], endColumns[i]));
+                }
+            }
+            else {
+                for (int i = 0; i < offsets.length; i++) {
+                    offset += zagZig(offsets[i]);
+                    result.append(vf.sourceLocation(uri, offset, lengths[i]));
+                }
+            }
+        }
+        else {
+            throw new IOException("Packed values without any columns");
+        }
+        return returnAndStore(backReference, valueWindow, result.done());
+    }
+
+    private static int zagZig(int n) {
+        return (n >>> 1) ^ -(n & 1);
+    }
+
     private IValue readMap(final IWireInputStream reader) throws IOException {
         IMapWriter result = vf.mapWriter();
         boolean backReference = false;
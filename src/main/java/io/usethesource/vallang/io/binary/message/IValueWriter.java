@@ -13,7 +13,12 @@
 package io.usethesource.vallang.io.binary.message;
 
 import java.io.IOException;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import io.usethesource.vallang.IBool;
 import io.usethesource.vallang.IConstructor;
@@ -36,9 +41,11 @@ import io.usethesource.vallang.io.binary.util.StructuredIValueVisitor;
 import io.usethesource.vallang.io.binary.util.TrackLastWritten;
 import io.usethesource.vallang.io.binary.util.WindowCacheFactory;
 import io.usethesource.vallang.io.binary.util.WindowSizes;
+import io.usethesource.vallang.io.binary.util.WindowStatistics;
 import io.usethesource.vallang.io.binary.wire.IWireOutputStream;
 import io.usethesource.vallang.type.ITypeVisitor;
 import io.usethesource.vallang.type.Type;
+import io.usethesource.vallang.type.TypeFactory;
 import io.usethesource.vallang.type.TypeStore;
 
 /**
@@ -46,6 +53,43 @@ import io.usethesource.vallang.type.TypeStore;
  *
  */
 public class IValueWriter {
+    /**
+     * Lists and sets smaller than this are always written element by element
+     */
+    private static final int PACK_AFTER = 8;
+
+    /**
+     * How the writer detects that a value (or source location) was already written, and can be replaced by a back reference.
+     */
+    public enum Sharing {
+        /**
+         * Only share the exact same java objects (reference equality), cheap but misses values that are equal but constructed separately.
+         */
+        REFERENCE,
+        /**
+         * Share structurally equal values (object equality), using the (cached) hashCode of the values.
+         * This results in smaller files and faster reads for data with a lot of redundancy (for example parse trees or fact bases),
+         * at the cost of extra <code>equals</code> calls during writing. The amount of memory used is still bounded by the window sizes.
+         */
+        STRUCTURAL
+    }
+
+    /**
+     * How the writer encodes lists and sets of integers, strings and source locations.
+     */
+    public enum Packing {
+        /**
+         * Write every element as its own message, which all readers understand.
+         */
+        ELEMENTS,
+        /**
+         * Write larger lists and sets of integers, strings or source locations of a single file as one packed message
+         * of arrays. This is a lot smaller and faster to read, but readers of earlier versions of the format can not
+         * read it.
+         */
+        PACKED
+    }
+
     /**
      * Write an IValue to an exisiting wire stream. <br />
      * <br />
@@ -57,19 +101,96 @@ public class IValueWriter {
      * @param value the value to write   @throws IOException
      */
     public static void write(IWireOutputStream writer, IValueFactory vf, WindowSizes size, IValue value) throws IOException {
+        write(writer, vf, size, Sharing.REFERENCE, value);
+    }
+
+    /**
+     * Write an IValue to an exisiting wire stream. <br />
+     * <br />
+     * In most cases you want to use the {@linkplain IValueOutputStream}.
+     *
+     * @param writer the wire writer to use
+     * @param vf the value factory used to rewrite external value types
+     * @param size the window sizes to use
+     * @param sharing how to detect values that can be back referenced
+     * @param value the value to write   @throws IOException
+     */
+    public static void write(IWireOutputStream writer, IValueFactory vf, WindowSizes size, Sharing sharing, IValue value) throws IOException {
+        write(writer, vf, size, sharing, Packing.ELEMENTS, value, null);
+    }
+
+    /**
+     * Write an IValue to an exisiting wire stream. <br />
+     * <br />
+     * In most cases you want to use the {@linkplain IValueOutputStream}.
+     *
+     * @param writer the wire writer to use
+     * @param vf the value factory used to rewrite external value types
+     * @param size the window sizes to use
+     * @param sharing how to detect values that can be back referenced
+     * @param packing how to encode collections of integers, strings and source locations
+     * @param value the value to write   @throws IOException
+     */
+    public static void write(IWireOutputStream writer, IValueFactory vf, WindowSizes size, Sharing sharing, Packing packing, IValue value) throws IOException {
+        write(writer, vf, size, sharing, packing, value, null);
+    }
+
+    /**
+     * Write an IValue to an exisiting wire stream, and measure how the back reference windows were used. <br />
+     * <br />
+     * In most cases you want to use the {@linkplain IValueOutputStream}.
+     *
+     * @param writer the wire writer to use
+     * @param vf the value factory used to rewrite external value types
+     * @param size the window sizes to use
+     * @param sharing how to detect values that can be back referenced
+     * @param value the value to write
+     * @return the statistics of the windows, use {@link WindowStatistics#suggest(WindowSizes)} to get better window sizes for similar values
+     * @throws IOException
+     */
+    public static WindowStatistics writeAndMeasure(IWireOutputStream writer, IValueFactory vf, WindowSizes size, Sharing sharing, IValue value) throws IOException {
+        return writeAndMeasure(writer, vf, size, sharing, Packing.ELEMENTS, value);
+    }
+
+    /**
+     * Write an IValue to an exisiting wire stream, and measure how the back reference windows were used. <br />
+     * <br />
+     * In most cases you want to use the {@linkplain IValueOutputStream}.
+     *
+     * @param writer the wire writer to use
+     * @param vf the value factory used to rewrite external value types
+     * @param size the window sizes to use
+     * @param sharing how to detect values that can be back referenced
+     * @param packing how to encode collections of integers, strings and source locations
+     * @param value the value to write
+     * @return the statistics of the windows, use {@link WindowStatistics#suggest(WindowSizes)} to get better window sizes for similar values
+     * @throws IOException
+     */
+    public static WindowStatistics writeAndMeasure(IWireOutputStream writer, IValueFactory vf, WindowSizes size, Sharing sharing, Packing packing, IValue value) throws IOException {
+        WindowStatistics statistics = new WindowStatistics(size);
+        write(writer, vf, size, sharing, packing, value, statistics);
+        return statistics;
+    }
+
+    private static void write(IWireOutputStream writer, IValueFactory vf, WindowSizes size, Sharing sharing, Packing packing, IValue value, @Nullable WindowStatistics statistics) throws IOException {
         final WindowCacheFactory windowFactory = WindowCacheFactory.getInstance();
         TrackLastWritten<Type> typeCache = windowFactory.getTrackLastWrittenReferenceEquality(size.typeWindow);
-        TrackLastWritten<IValue> valueCache = windowFactory.getTrackLastWrittenReferenceEquality(size.valueWindow);
-        TrackLastWritten<ISourceLocation> uriCache = windowFactory.getTrackLastWrittenReferenceEquality(size.uriWindow);
+        TrackLastWritten<IValue> valueCache = getValueWindow(windowFactory, sharing, size.valueWindow);
+        TrackLastWritten<ISourceLocation> uriCache = getValueWindow(windowFactory, sharing, size.uriWindow);
         try {
             writeHeader(writer, size.valueWindow, size.typeWindow, size.uriWindow);
             writer.writeNestedField(IValueIDs.Header.VALUE);
-            write(writer, vf, value, typeCache, valueCache, uriCache);
+            if (statistics == null) {
+                write(writer, vf, value, packing, typeCache, valueCache, uriCache);
+            }
+            else {
+                write(writer, vf, value, packing, statistics.types.measure(typeCache), statistics.values.measure(valueCache), statistics.uris.measure(uriCache));
+            }
             writer.endMessage();
         } finally {
             windowFactory.returnTrackLastWrittenReferenceEquality(typeCache);
-            windowFactory.returnTrackLastWrittenReferenceEquality(valueCache);
-            windowFactory.returnTrackLastWrittenReferenceEquality(uriCache);
+            returnValueWindow(windowFactory, sharing, valueCache);
+            returnValueWindow(windowFactory, sharing, uriCache);
         }
     }
 
@@ -99,6 +220,51 @@ public class IValueWriter {
         }
     }
 
+    /**
+     * Write a number of types to an existing wire stream, in a single message. Types that share
+     * sub-types are written once, and referenced back afterwards.
+     *
+     * @param writer the wire writer to use
+     * @param vf the value factory used to rewrite external value types
+     * @param size the window sizes to use
+     * @param types the types to write, in order
+     * @throws IOException
+     */
+    public static void writeTypes(IWireOutputStream writer, IValueFactory vf, WindowSizes size, Type[] types) throws IOException {
+        final WindowCacheFactory windowFactory = WindowCacheFactory.getInstance();
+        TrackLastWritten<Type> typeCache = windowFactory.getTrackLastWrittenReferenceEquality(size.typeWindow);
+        TrackLastWritten<IValue> valueCache = windowFactory.getTrackLastWrittenReferenceEquality(size.valueWindow);
+        TrackLastWritten<ISourceLocation> uriCache = windowFactory.getTrackLastWrittenReferenceEquality(size.uriWindow);
+        try {
+            writeHeader(writer, size.valueWindow, size.typeWindow, size.uriWindow);
+            for (Type type : types) {
+                writer.writeNestedField(IValueIDs.Header.TYPE);
+                write(writer, vf, type, typeCache, valueCache, uriCache);
+            }
+            writer.endMessage();
+        } finally {
+            windowFactory.returnTrackLastWrittenReferenceEquality(typeCache);
+            windowFactory.returnTrackLastWrittenReferenceEquality(valueCache);
+            windowFactory.returnTrackLastWrittenReferenceEquality(uriCache);
+        }
+    }
+
+    private static <T extends IValue> TrackLastWritten<T> getValueWindow(WindowCacheFactory windowFactory, Sharing sharing, int size) {
+        if (sharing == Sharing.STRUCTURAL) {
+            return windowFactory.getTrackLastWrittenObjectEquality(size);
+        }
+        return windowFactory.getTrackLastWrittenReferenceEquality(size);
+    }
+
+    private static <T extends IValue> void returnValueWindow(WindowCacheFactory windowFactory, Sharing sharing, TrackLastWritten<T> window) {
+        if (sharing == Sharing.STRUCTURAL) {
+            windowFactory.returnTrackLastWrittenObjectEquality(window);
+        }
+        else {
+            windowFactory.returnTrackLastWrittenReferenceEquality(window);
+        }
+    }
+
 
     private static void writeHeader(IWireOutputStream writer, int valueWindowSize, int typeWindowSize, int uriWindowSize) throws IOException {
         writer.startMessage(IValueIDs.Header.ID);
@@ -185,8 +351,8 @@ public class IValueWriter {
                 writeCanBeBackReferenced(writer);
 
                 writer.writeNestedField(IValueIDs.ExternalType.SYMBOL);
-                IConstructor symbol = type.asSymbol(vf, new TypeStore(), vf.setWriter(), new HashSet<>());
-                write(writer, vf, symbol, typeCache, valueCache, uriCache);
+                IConstructor symbol = TypeFactory.getInstance().asSymbol(type, vf, new TypeStore(), vf.setWriter());
+                write(writer, vf, symbol, Packing.ELEMENTS, typeCache, valueCache, uriCache);
 
                 writer.endMessage();
                 typeCache.write(type);
@@ -370,11 +536,27 @@ public class IValueWriter {
         writer.writeField(fieldId, fieldValue);
         writer.endMessage();
     }
+    /**
+     * Replace every value by the zig-zag encoded difference with its predecessor, so that the varints stay small.
+     */
+    private static void deltaEncode(int[] values) {
+        int previous = 0;
+        for (int i = 0; i < values.length; i++) {
+            int current = values[i];
+            values[i] = zigZag(current - previous);
+            previous = current;
+        }
+    }
+
+    private static int zigZag(int n) {
+        return (n << 1) ^ (n >> 31);
+    }
+
     private static void writeCanBeBackReferenced(final IWireOutputStream writer) throws IOException {
         writer.writeField(IValueIDs.Common.CAN_BE_BACK_REFERENCED, 1);
     }
 
-    private static void write(final IWireOutputStream writer, IValueFactory vf, final IValue value, final TrackLastWritten<Type> typeCache, final TrackLastWritten<IValue> valueCache, final TrackLastWritten<ISourceLocation> uriCache) throws IOException {
+    private static void write(final IWireOutputStream writer, IValueFactory vf, final IValue value, final Packing packing, final TrackLastWritten<Type> typeCache, final TrackLastWritten<IValue> valueCache, final TrackLastWritten<ISourceLocation> uriCache) throws IOException {
         final IInteger MININT = vf.integer(Integer.MIN_VALUE);
         final IInteger MAXINT = vf.integer(Integer.MAX_VALUE);
 
@@ -389,6 +571,152 @@ public class IValueWriter {
                 return false;
             }
 
+            /**
+             * Try to write the collection in a columnar way, only possible if all elements are ints, strings or locations into the same file.
+             * @return false if the collection is not suitable, nothing has been written in that case
+             */
+            private boolean writePacked(Iterable<IValue> elements, Type elementType, int size, boolean isSet) throws IOException {
+                if (size < PACK_AFTER) {
+                    return false;
+                }
+                if (elementType.isInteger()) {
+                    return writePackedIntegers(elements, size, isSet);
+                }
+                if (elementType.isString()) {
+                    return writePackedStrings(elements, size, isSet);
+                }
+                if (elementType.isSourceLocation()) {
+                    return writePackedLocations(elements, size, isSet);
+                }
+                return false;
+            }
+
+            private void startPacked(boolean isSet) throws IOException {
+                writer.startMessage(IValueIDs.PackedValues.ID);
+                writeCanBeBackReferenced(writer);
+                if (isSet) {
+                    writer.writeField(IValueIDs.PackedValues.IS_SET, 1);
+                }
+            }
+
+            private boolean writePackedIntegers(Iterable<IValue> elements, int size, boolean isSet) throws IOException {
+                int[] values = new int[size];
+                int i = 0;
+                for (IValue v : elements) {
+                    IInteger ii = (IInteger) v;
+                    if (ii.compare(MININT) < 0 || ii.compare(MAXINT) > 0) {
+                        return false;
+                    }
+                    values[i++] = ii.intValue();
+                }
+                if (isSet) {
+                    // order does not matter for sets, and sorted values have small deltas
+                    Arrays.sort(values);
+                }
+                deltaEncode(values);
+                startPacked(isSet);
+                writer.writeField(IValueIDs.PackedValues.INTS, values);
+                writer.endMessage();
+                return true;
+            }
+
+            private boolean writePackedStrings(Iterable<IValue> elements, int size, boolean isSet) throws IOException {
+                String[] values = new String[size];
+                int i = 0;
+                for (IValue v : elements) {
+                    values[i++] = ((IString) v).getValue();
+                }
+                startPacked(isSet);
+                if (isSet) {
+                    // all unique already
+                    writer.writeField(IValueIDs.PackedValues.STRINGS, values);
+                }
+                else {
+                    Map<String, Integer> dictionary = new HashMap<>();
+                    int[] indices = new int[size];
+                    for (i = 0; i < size; i++) {
+                        Integer index = dictionary.putIfAbsent(values[i], dictionary.size());
+                        indices[i] = index == null ? dictionary.size() - 1 : index;
+                    }
+                    if (dictionary.size() == size) {
+                        writer.writeField(IValueIDs.PackedValues.STRINGS, values);
+                    }
+                    else {
+                        String[] unique = new String[dictionary.size()];
+                        for (Map.Entry<String, Integer> e : dictionary.entrySet()) {
+                            unique[e.getValue()] = e.getKey();
+                        }
+                        writer.writeField(IValueIDs.PackedValues.STRINGS, unique);
+                        writer.writeField(IValueIDs.PackedValues.STRING_INDICES, indices);
+                    }
+                }
+                writer.endMessage();
+                return true;
+            }
+
+            private boolean writePackedLocations(Iterable<IValue> elements, int size, boolean isSet) throws IOException {
+                ISourceLocation[] locs = new ISourceLocation[size];
+                int i = 0;
+                ISourceLocation uri = null;
+                boolean lineColumns = false;
+                for (IValue v : elements) {
+                    ISourceLocation loc = (ISourceLocation) v;
+                    if (!loc.hasOffsetLength()) {
+                        return false;
+                    }
+                    if (uri == null) {
+                        uri = loc.top();
+                        lineColumns = loc.hasLineColumn();
+                    }
+                    else if (lineColumns != loc.hasLineColumn() || !uri.equals(loc.top())) {
+                        return false;
+                    }
+                    locs[i++] = loc;
+                }
+                if (uri == null) {
+                    return false;
+                }
+                if (isSet) {
+                    Arrays.sort(locs, Comparator.comparingInt(ISourceLocation::getOffset));
+                }
+
+                startPacked(isSet);
+                writer.writeNestedField(IValueIDs.PackedValues.LOCATION_URI);
+                visitSourceLocation(uri);
+
+                int[] column = new int[size];
+                for (i = 0; i < size; i++) {
+                    column[i] = locs[i].getOffset();
+                }
+                deltaEncode(column);
+                writer.writeField(IValueIDs.PackedValues.OFFSETS, column);
+                for (i = 0; i < size; i++) {
+                    column[i] = locs[i].getLength();
+                }
+                writer.writeField(IValueIDs.PackedValues.LENGTHS, column);
+                if (lineColumns) {
+                    for (i = 0; i < size; i++) {
+                        column[i] = locs[i].getBeginLine();
+                    }
+                    deltaEncode(column);
+                    writer.writeField(IValueIDs.PackedValues.BEGINLINES, column);
+                    for (i = 0; i < size; i++) {
+                        column[i] = zigZag(locs[i].getEndLine() - locs[i].getBeginLine());
+                    }
+                    writer.writeField(IValueIDs.PackedValues.ENDLINES, column);
+                    for (i = 0; i < size; i++) {
+                        column[i] = locs[i].getBeginColumn();
+                    }
+                    writer.writeField(IValueIDs.PackedValues.BEGINCOLUMNS, column);
+                    for (i = 0; i < size; i++) {
+                        column[i] = locs[i].getEndColumn();
+                    }
+                    writer.writeField(IValueIDs.PackedValues.ENDCOLUMNS, column);
+                }
+                writer.endMessage();
+                return true;
+            }
+
             @Override
             public boolean enterConstructor(IConstructor cons, int children) throws IOException {
                 if (writeFromCache(cons)) {
@@ -460,6 +788,10 @@ public class IValueWriter {
                 if (writeFromCache(lst)) {
                     return false;
                 }
+                if (packing == Packing.PACKED && writePacked(lst, lst.getElementType(), children, false)) {
+                    valueCache.write(lst);
+                    return false;
+                }
                 writer.startMessage(IValueIDs.ListValue.ID);
                 writeCanBeBackReferenced(writer);
                 writer.writeRepeatedNestedField(IValueIDs.ListValue.ELEMENTS, children);
@@ -477,6 +809,10 @@ public class IValueWriter {
                 if (writeFromCache(lst)) {
                     return false;
                 }
+                if (packing == Packing.PACKED && writePacked(lst, lst.getElementType(), elements, true)) {
+                    valueCache.write(lst);
+                    return false;
+                }
                 writer.startMessage(IValueIDs.SetValue.ID);
                 writeCanBeBackReferenced(writer);
                 writer.writeRepeatedNestedField(IValueIDs.SetValue.ELEMENTS, elements);
@@ -557,10 +893,11 @@ public class IValueWriter {
             @Override
             public void visitInteger(IInteger ii) throws IOException {
                 writer.startMessage(IValueIDs.IntegerValue.ID);
-                if(ii. greaterEqual(MININT).getValue() && ii.lessEqual(MAXINT).getValue()){
+                if(ii.compare(MININT) >= 0 && ii.compare(MAXINT) <= 0){
                     writer.writeField(IValueIDs.IntegerValue.INTVALUE, ii.intValue());
                 }
                 else {
+                    // 64-bit values produce their (at most 8) bytes directly, and are read back without a BigInteger
                     writer.writeField(IValueIDs.IntegerValue.BIGVALUE, ii.getTwosComplementRepresentation());
                 }
                 writer.endMessage();
@@ -15,8 +15,15 @@ package io.usethesource.vallang.io.binary.stream;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Supplier;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -26,6 +33,7 @@ import io.usethesource.vallang.IValueFactory;
 import io.usethesource.vallang.io.binary.message.IValueReader;
 import io.usethesource.vallang.io.binary.util.FileChannelDirectInputStream;
 import io.usethesource.vallang.io.binary.wire.binary.BinaryWireInputStream;
+import io.usethesource.vallang.type.Type;
 import io.usethesource.vallang.type.TypeStore;
 
 /**
@@ -73,6 +81,28 @@ public class IValueInputStream implements Closeable {
         this(new FileChannelDirectInputStream(channel), vf, typeStoreSupplier);
     }
 
+    /**
+     * Read a value from a file without blocking the calling thread, the file is memory mapped and decoded on the common fork join pool.
+     */
+    public static CompletableFuture<IValue> readAsync(Path source, IValueFactory vf, Supplier<TypeStore> typeStoreSupplier) {
+        return readAsync(source, vf, typeStoreSupplier, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Read a value from a file without blocking the calling thread
+     * @param executor the executor that will map and decode the file
+     */
+    public static CompletableFuture<IValue> readAsync(Path source, IValueFactory vf, Supplier<TypeStore> typeStoreSupplier, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (IValueInputStream in = new IValueInputStream(FileChannel.open(source, StandardOpenOption.READ), vf, typeStoreSupplier)) {
+                return in.read();
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
     public IValue read() throws IOException {
         if (reader == null) {
             throw new IllegalStateException("Incorrect initialization");
@@ -80,6 +110,16 @@ public class IValueInputStream implements Closeable {
         return IValueReader.readValue(reader, vf, typeStoreSupplier);
     }
 
+    /**
+     * Read the types written by {@link IValueOutputStream#writeTypes(Type...)}
+     */
+    public List<Type> readTypes() throws IOException {
+        if (reader == null) {
+            throw new IllegalStateException("Incorrect initialization");
+        }
+        return IValueReader.readTypes(reader, vf, typeStoreSupplier);
+    }
+
     @Override
     public void close() throws IOException {
         if (reader != null) {
@@ -17,20 +17,33 @@ import io.usethesource.vallang.io.binary.wire.xml.XMLWireOutputStream;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.AsynchronousFileChannel;
 import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 import org.checkerframework.checker.nullness.qual.MonotonicNonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import io.usethesource.vallang.IValue;
 import io.usethesource.vallang.IValueFactory;
 import io.usethesource.vallang.io.binary.message.IValueWriter;
+import io.usethesource.vallang.io.binary.message.IValueWriter.Packing;
+import io.usethesource.vallang.io.binary.message.IValueWriter.Sharing;
+import io.usethesource.vallang.io.binary.util.AsynchronousFileChannelOutputStream;
 import io.usethesource.vallang.io.binary.util.ByteBufferOutputStream;
 import io.usethesource.vallang.io.binary.util.DelayedCompressionOutputStream;
 import io.usethesource.vallang.io.binary.util.DelayedZstdOutputStream;
 import io.usethesource.vallang.io.binary.util.FileChannelDirectOutputStream;
 import io.usethesource.vallang.io.binary.util.WindowSizes;
+import io.usethesource.vallang.io.binary.util.WindowStatistics;
 import io.usethesource.vallang.io.binary.wire.IWireOutputStream;
 import io.usethesource.vallang.io.binary.wire.binary.BinaryWireOutputStream;
+import io.usethesource.vallang.type.Type;
 
 /**
  * A binary serializer for IValues. <br/>
@@ -72,9 +85,14 @@ public class IValueOutputStream implements Closeable {
 
 
     private CompressionRate compression;
+    private final Sharing sharing;
+    private Packing packing = Packing.ELEMENTS;
     private OutputStream rawStream;
     private @MonotonicNonNull IWireOutputStream writer;
     private final IValueFactory vf;
+    private boolean adaptiveWindows = false;
+    private @Nullable WindowSizes adaptedSizes = null;
+    private @Nullable WindowStatistics lastStatistics = null;
 
     public IValueOutputStream(OutputStream out, IValueFactory vf) throws IOException {
         this(out, vf, CompressionRate.Normal);
@@ -84,29 +102,119 @@ public class IValueOutputStream implements Closeable {
         this(byteBufferedOutput(channel), vf, compression);
     }
 
+    public IValueOutputStream(FileChannel channel, IValueFactory vf, CompressionRate compression, Sharing sharing) throws IOException {
+        this(byteBufferedOutput(channel), vf, compression, sharing);
+    }
+
+
+    /**
+     * Write to an asynchronous channel, the encoding of the values and the writes to disk will overlap.
+     */
+    public IValueOutputStream(AsynchronousFileChannel channel, IValueFactory vf, CompressionRate compression) throws IOException {
+        this(new AsynchronousFileChannelOutputStream(channel, 0), vf, compression);
+    }
 
     public IValueOutputStream(OutputStream out, IValueFactory vf, CompressionRate compression) throws IOException {
+        this(out, vf, compression, Sharing.REFERENCE);
+    }
+
+    /**
+     * @param sharing use {@link Sharing#STRUCTURAL} to also back reference values that are equal, but not the same reference. This is slower to write, but can produce a lot smaller files for redundant data.
+     */
+    public IValueOutputStream(OutputStream out, IValueFactory vf, CompressionRate compression, Sharing sharing) throws IOException {
         out.write(Header.MAIN);
         this.rawStream = out;
         this.compression = compression;
+        this.sharing = sharing;
         this.vf = vf;
     }
 
+    /**
+     * Write a value to a file without blocking the calling thread.
+     * The value is encoded on the common fork join pool, while the disk writes are handled by an {@link AsynchronousFileChannel}.
+     * @return a future that completes after the file is completely written and closed
+     */
+    public static CompletableFuture<Void> writeAsync(Path target, IValueFactory vf, CompressionRate compression, IValue value) {
+        return writeAsync(target, vf, compression, value, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Write a value to a file without blocking the calling thread.
+     * @param executor the executor that will run the encoding of the value, the disk writes are handled by an {@link AsynchronousFileChannel}.
+     * @return a future that completes after the file is completely written and closed
+     */
+    public static CompletableFuture<Void> writeAsync(Path target, IValueFactory vf, CompressionRate compression, IValue value, Executor executor) {
+        return CompletableFuture.runAsync(() -> {
+            try (IValueOutputStream out = new IValueOutputStream(AsynchronousFileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), vf, compression)) {
+                out.write(value);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
     private static OutputStream byteBufferedOutput(FileChannel channel) {
         return new FileChannelDirectOutputStream(channel, 10);
     }
 
 
+    /**
+     * When writing multiple values to the same stream, let the sizes of the back reference windows adapt to the sharing observed in the previous values.
+     * The sizes used are still stored in the header of every value, so the reader does not have to know about this.
+     */
+    public void setAdaptiveWindowSizes(boolean adaptive) {
+        this.adaptiveWindows = adaptive;
+    }
+
+    /**
+     * Use {@link Packing#PACKED} to write larger lists and sets of integers, strings and source locations as packed
+     * arrays. The default is {@link Packing#ELEMENTS}, since readers of earlier versions can not read packed values.
+     */
+    public void setPacking(Packing packing) {
+        this.packing = packing;
+    }
+
+    /**
+     * @return a report on the sharing achieved per window for the last written value, only available if {@link #setAdaptiveWindowSizes(boolean)} is enabled.
+     */
+    public @Nullable WindowStatistics getLastWindowStatistics() {
+        return lastStatistics;
+    }
+
     public void write(IValue value) throws IOException {
         WindowSizes sizes = compression.compressionLevel == 0 ? WindowSizes.NO_WINDOW : WindowSizes.NORMAL_WINDOW;
         if (writer == null) {
             writer = initializeWriter(sizes);
         }
-        IValueWriter.write(writer, vf, sizes, value);
+        if (adaptiveWindows && sizes != WindowSizes.NO_WINDOW) {
+            WindowSizes current = adaptedSizes;
+            if (current == null) {
+                current = sizes;
+            }
+            WindowStatistics statistics = IValueWriter.writeAndMeasure(writer, vf, current, sharing, packing, value);
+            adaptedSizes = statistics.suggest(current);
+            lastStatistics = statistics;
+        }
+        else {
+            IValueWriter.write(writer, vf, sizes, sharing, packing, value);
+        }
     }
 
 
 
+    /**
+     * Write a number of types in a single message, so that types which share sub-types are compact.
+     * Read them back with {@link IValueInputStream#readTypes()}.
+     */
+    public void writeTypes(Type... types) throws IOException {
+        WindowSizes sizes = compression.compressionLevel == 0 ? WindowSizes.NO_WINDOW : WindowSizes.NORMAL_WINDOW;
+        if (writer == null) {
+            writer = initializeWriter(sizes);
+        }
+        IValueWriter.writeTypes(writer, vf, sizes, types);
+    }
+
     private static int fallbackIfNeeded(int compressionAlgorithm) {
         if (compressionAlgorithm == Header.Compression.ZSTD && ! Compressor.zstdAvailable()) {
             return Header.Compression.GZIP;
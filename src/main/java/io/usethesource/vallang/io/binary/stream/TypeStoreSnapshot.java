@@ -0,0 +1,204 @@
+/**
+ * Copyright (c) 2026, Centrum Wiskunde & Informatica (CWI)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package io.usethesource.vallang.io.binary.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.usethesource.vallang.IInteger;
+import io.usethesource.vallang.IList;
+import io.usethesource.vallang.IListWriter;
+import io.usethesource.vallang.IString;
+import io.usethesource.vallang.ITuple;
+import io.usethesource.vallang.IValue;
+import io.usethesource.vallang.IValueFactory;
+import io.usethesource.vallang.io.binary.stream.IValueOutputStream.CompressionRate;
+import io.usethesource.vallang.type.Type;
+import io.usethesource.vallang.type.TypeFactory;
+import io.usethesource.vallang.type.TypeStore;
+
+/**
+ * Saves type stores, the stores they import and all their declarations to a binary stream, to restore them
+ * at once when a process starts, instead of declaring the same types again.
+ * <p>
+ * All declared types are written in a single message with {@link IValueOutputStream#writeTypes(Type...)}, so
+ * types which share sub-types are written once. Reading them back creates the canonical types in the
+ * {@link TypeFactory} in one go, without declaring them one by one. Afterwards the imports between the stores are
+ * restored, and the declarations of every store are published with a single {@link TypeStore.Batch}.
+ */
+public final class TypeStoreSnapshot {
+    private static final int IMPORTS = 0;
+    private static final int ADTS = 1;
+    private static final int ALIASES = 2;
+    private static final int CONSTRUCTORS = 3;
+    private static final int KEYWORD_PARAMETERS = 4;
+
+    private TypeStoreSnapshot() { }
+
+    /**
+    * Write the stores, and all stores they import transitively, to the stream and close it.
+    */
+    public static void write(OutputStream out, IValueFactory vf, TypeStore... stores) throws IOException {
+        write(out, vf, CompressionRate.Normal, stores);
+    }
+
+    /**
+    * Write the stores, and all stores they import transitively, to the stream and close it.
+    */
+    public static void write(OutputStream out, IValueFactory vf, CompressionRate compression, TypeStore... stores) throws IOException {
+        List<TypeStore> all = withImports(stores);
+        Map<TypeStore, Integer> storeIndex = new IdentityHashMap<>();
+        for (TypeStore store : all) {
+            storeIndex.put(store, storeIndex.size());
+        }
+
+        Map<Type, Integer> typeIndex = new LinkedHashMap<>();
+        IListWriter result = vf.listWriter();
+
+        for (TypeStore store : all) {
+            IListWriter imports = vf.listWriter();
+            for (TypeStore imported : store.getImports()) {
+                imports.append(vf.integer(storeIndex.get(imported)));
+            }
+
+            IListWriter keywordParameters = vf.listWriter();
+            for (Map.Entry<Type, Map<String, Type>> onType : store.getKeywordParameters().entrySet()) {
+                for (Map.Entry<String, Type> kw : onType.getValue().entrySet()) {
+                    keywordParameters.append(vf.tuple(index(vf, typeIndex, onType.getKey()), vf.string(kw.getKey()), index(vf, typeIndex, kw.getValue())));
+                }
+            }
+
+            result.append(vf.tuple(
+                imports.done(),
+                indices(vf, typeIndex, store.getAbstractDataTypes()),
+                indices(vf, typeIndex, store.getAliases()),
+                indices(vf, typeIndex, store.getConstructors()),
+                keywordParameters.done()));
+        }
+
+        try (IValueOutputStream writer = new IValueOutputStream(out, vf, compression)) {
+            writer.writeTypes(typeIndex.keySet().toArray(new Type[0]));
+            writer.write(result.done());
+        }
+    }
+
+    /**
+    * Read stores written by {@link #write(OutputStream, IValueFactory, TypeStore...)}, and close the stream.
+    *
+    * @return fresh stores with the same declarations and imports, first those passed to write, in the same order,
+    *         followed by the other stores they import
+    */
+    public static TypeStore[] read(InputStream in, IValueFactory vf) throws IOException {
+        try (IValueInputStream reader = new IValueInputStream(in, vf, UndeclaredStore::new)) {
+            List<Type> types = reader.readTypes();
+            IList stores = (IList) reader.read();
+
+            TypeStore[] result = new TypeStore[stores.length()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = new TypeStore();
+            }
+
+            // a store may declare constructors of a data-type which only an imported store declares
+            for (int i = 0; i < result.length; i++) {
+                IList imports = (IList) ((ITuple) stores.get(i)).get(IMPORTS);
+                TypeStore[] imported = new TypeStore[imports.length()];
+                for (int j = 0; j < imported.length; j++) {
+                    imported[j] = result[((IInteger) imports.get(j)).intValue()];
+                }
+                result[i].importStore(imported);
+            }
+
+            // a store is written before the stores it imports first, so in reverse order imported stores are
+            // committed before the stores that import them, unless the imports are cyclic
+            for (int i = result.length - 1; i >= 0; i--) {
+                ITuple store = (ITuple) stores.get(i);
+                TypeStore.Batch batch = result[i].batch();
+
+                for (IValue adt : (IList) store.get(ADTS)) {
+                    batch.declareAbstractDataType(type(types, adt));
+                }
+                for (IValue alias : (IList) store.get(ALIASES)) {
+                    batch.declareAlias(type(types, alias));
+                }
+                for (IValue constructor : (IList) store.get(CONSTRUCTORS)) {
+                    batch.declareConstructor(type(types, constructor));
+                }
+                for (IValue elem : (IList) store.get(KEYWORD_PARAMETERS)) {
+                    ITuple kw = (ITuple) elem;
+                    batch.declareKeywordParameter(type(types, kw.get(0)), ((IString) kw.get(1)).getValue(), type(types, kw.get(2)));
+                }
+
+                batch.commit();
+            }
+
+            return result;
+        }
+    }
+
+    private static List<TypeStore> withImports(TypeStore[] stores) {
+        List<TypeStore> result = new ArrayList<>();
+        Map<TypeStore, Boolean> seen = new IdentityHashMap<>();
+        for (TypeStore store : stores) {
+            if (seen.put(store, true) == null) {
+                result.add(store);
+            }
+        }
+
+        for (int i = 0; i < result.size(); i++) {
+            for (TypeStore imported : result.get(i).getImports()) {
+                if (seen.put(imported, true) == null) {
+                    result.add(imported);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private static IInteger index(IValueFactory vf, Map<Type, Integer> typeIndex, Type type) {
+        return vf.integer(typeIndex.computeIfAbsent(type, t -> typeIndex.size()));
+    }
+
+    private static IList indices(IValueFactory vf, Map<Type, Integer> typeIndex, Collection<Type> types) {
+        IListWriter result = vf.listWriter();
+        for (Type type : types) {
+            result.append(index(vf, typeIndex, type));
+        }
+        return result.done();
+    }
+
+    private static Type type(List<Type> types, IValue index) {
+        return types.get(((IInteger) index).intValue());
+    }
+
+    /**
+    * Reading the types would declare them one by one, in a store that is thrown away anyway.
+    */
+    private static final class UndeclaredStore extends TypeStore {
+        @Override
+        public void declareAbstractDataType(Type adt) { }
+
+        @Override
+        public void declareConstructor(Type constructor) { }
+
+        @Override
+        public void declareAlias(Type alias) { }
+    }
+}
@@ -0,0 +1,113 @@
+package io.usethesource.vallang.io.binary.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A double buffered output stream on top of an {@link AsynchronousFileChannel}.
+ * While one buffer is being written to disk, the other one is filled by the writer, so that encoding and I/O overlap.
+ * The writer only blocks if it filled up its buffer before the previous write finished.
+ */
+public class AsynchronousFileChannelOutputStream extends ByteBufferOutputStream {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final AsynchronousFileChannel channel;
+    private long position;
+    /**
+     * The buffer that is free to become the next target
+     */
+    private @Nullable ByteBuffer spare;
+    /**
+     * The buffer that is currently being written to the channel (if any)
+     */
+    private @Nullable ByteBuffer pending = null;
+    private @Nullable Future<Integer> pendingWrite = null;
+
+    /**
+     * @param channel the channel to write to, it will be closed when this stream is closed.
+     * @param position the file position to start writing at
+     */
+    public AsynchronousFileChannelOutputStream(AsynchronousFileChannel channel, long position) {
+        super(DirectByteBufferCache.getInstance().get(BUFFER_SIZE));
+        this.channel = channel;
+        this.position = position;
+        this.spare = DirectByteBufferCache.getInstance().get(BUFFER_SIZE);
+    }
+
+    @Override
+    protected ByteBuffer flush(ByteBuffer toflush) throws IOException {
+        ByteBuffer next = waitForPendingWrite();
+        pending = toflush;
+        pendingWrite = channel.write(toflush, position);
+        return next;
+    }
+
+    /**
+     * Wait for the outstanding write (if any) and return the buffer that is free to be filled again.
+     */
+    private ByteBuffer waitForPendingWrite() throws IOException {
+        final ByteBuffer written = pending;
+        final Future<Integer> writing = pendingWrite;
+        if (written != null && writing != null) {
+            position += await(writing);
+            while (written.hasRemaining()) {
+                // the channel is allowed to do partial writes
+                position += await(channel.write(written, position));
+            }
+            written.clear();
+            pending = null;
+            pendingWrite = null;
+            spare = written;
+        }
+        final ByteBuffer result = spare;
+        if (result == null) {
+            throw new IOException("Stream closed");
+        }
+        spare = null;
+        return result;
+    }
+
+    private static int await(Future<Integer> write) throws IOException {
+        try {
+            return write.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for write to finish");
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            try (AsynchronousFileChannel chan = channel) {
+                super.close();
+                spare = waitForPendingWrite();
+            }
+            finally {
+                if (pending == null) {
+                    // only reuse the buffers if the channel isn't writing from them anymore
+                    DirectByteBufferCache.getInstance().put(target);
+                    ByteBuffer other = spare;
+                    if (other != null) {
+                        DirectByteBufferCache.getInstance().put(other);
+                    }
+                }
+                spare = null;
+            }
+        }
+    }
+}
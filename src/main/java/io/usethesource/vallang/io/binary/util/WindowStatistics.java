@@ -0,0 +1,171 @@
+/**
+ * Copyright (c) 2026, Centrum Wiskunde & Informatica (CWI)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package io.usethesource.vallang.io.binary.util;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * Measures how the back reference windows were used while writing a value, and can suggest better {@link WindowSizes} for the next value.<br/>
+ * <br/>
+ * Since the window sizes are written in the header before the value, the sizes of a single value cannot change while writing it.
+ * So adapting only works for streams of values (for example multiple calls to {@link io.usethesource.vallang.io.binary.stream.IValueOutputStream#write}).
+ */
+public class WindowStatistics {
+    /**
+     * We never grow a window beyond this size, to keep the memory usage of the reader bounded
+     */
+    private static final int MAX_WINDOW_SIZE = 8 * 1024 * 1024;
+    /**
+     * We never shrink a window below this size, small windows are cheap anyway
+     */
+    private static final int MIN_WINDOW_SIZE = 256;
+
+    public final Window values;
+    public final Window types;
+    public final Window uris;
+
+    public WindowStatistics(WindowSizes sizes) {
+        values = new Window("values", sizes.valueWindow);
+        types = new Window("types", sizes.typeWindow);
+        uris = new Window("uris", sizes.uriWindow);
+    }
+
+    /**
+     * Suggest new window sizes, based on the observed hit distances. <br/>
+     * A window grows if it was completely filled and a lot of hits were close to its edge (so we most likely missed sharing beyond the edge).
+     * A window shrinks if it was completely filled and all hits were in the first quarter of the window.
+     */
+    public WindowSizes suggest(WindowSizes current) {
+        int valueWindow = values.suggestedSize();
+        int uriWindow = uris.suggestedSize();
+        int typeWindow = types.suggestedSize();
+        if (valueWindow == current.valueWindow && uriWindow == current.uriWindow && typeWindow == current.typeWindow) {
+            return current;
+        }
+        return new WindowSizes(valueWindow, uriWindow, typeWindow, current.stringsWindow);
+    }
+
+    @Override
+    public String toString() {
+        return values + "\n" + types + "\n" + uris;
+    }
+
+    public static final class Window {
+        private final String name;
+        private final int size;
+        private long lookups = 0;
+        private long hits = 0;
+        private long writes = 0;
+        private long hitsNearEdge = 0;
+        private int maxDistance = -1;
+        private final int edge;
+
+        private Window(String name, int size) {
+            this.name = name;
+            this.size = size;
+            this.edge = size - (size / 4);
+        }
+
+        /**
+         * Wrap a window so that its lookups and writes are counted.
+         * Make sure to still return the original window to the {@link WindowCacheFactory}.
+         */
+        public <T extends @NonNull Object> TrackLastWritten<T> measure(TrackLastWritten<T> window) {
+            if (size == 0) {
+                return window;
+            }
+            return new TrackLastWritten<T>() {
+                @Override
+                public void write(T obj) {
+                    writes++;
+                    window.write(obj);
+                }
+
+                @Override
+                public int howLongAgo(T obj) {
+                    int result = window.howLongAgo(obj);
+                    lookups++;
+                    if (result != -1) {
+                        hit(result);
+                    }
+                    return result;
+                }
+            };
+        }
+
+        private void hit(int distance) {
+            hits++;
+            if (distance >= edge) {
+                hitsNearEdge++;
+            }
+            if (distance > maxDistance) {
+                maxDistance = distance;
+            }
+        }
+
+        /** the configured size of the window */
+        public int getSize() {
+            return size;
+        }
+
+        /** how often the writer checked if something was already in the window */
+        public long getLookups() {
+            return lookups;
+        }
+
+        /** how many lookups resulted in a back reference */
+        public long getHits() {
+            return hits;
+        }
+
+        /** how many objects were written into the window */
+        public long getWrites() {
+            return writes;
+        }
+
+        /** largest back reference distance, or -1 if there were no hits */
+        public int getMaxDistance() {
+            return maxDistance;
+        }
+
+        public double getHitRate() {
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        /** amount of hits that were in the last quarter of the window */
+        public long getHitsNearEdge() {
+            return hitsNearEdge;
+        }
+
+        public int suggestedSize() {
+            if (size == 0 || writes <= size) {
+                // disabled, or the window never filled up, so the size did not limit us
+                return size;
+            }
+            if (hits > 0 && hitsNearEdge * 20 >= hits) {
+                // at least 5% of the hits were close to the edge, we are probably missing out on sharing
+                return (int) Math.min((long) size * 2, Math.max(MAX_WINDOW_SIZE, size));
+            }
+            if (maxDistance < size / 4) {
+                return Math.min(size, Math.max(MIN_WINDOW_SIZE, Integer.highestOneBit(Math.max(1, maxDistance)) * 4));
+            }
+            return size;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s window (size %d): %d writes, %d lookups, %d hits (%.1f%%), %d hits near the edge, max distance %d",
+                name, size, writes, lookups, hits, getHitRate() * 100, hitsNearEdge, maxDistance);
+        }
+    }
+}
@@ -17,6 +17,7 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
@@ -32,7 +33,16 @@ import io.usethesource.vallang.io.binary.wire.IWireInputStream;
 
 public class BinaryWireInputStream implements IWireInputStream {
     private static final byte[] WIRE_VERSION = new byte[] { 1, 0, 0 };
+    /**
+     * Strings up to this size are decoded via a reused scratch buffer, larger strings get their own temporary array
+     */
+    private static final int MAX_SCRATCH_SIZE = 64 * 1024;
     private final InputStream __stream;
+    /**
+     * If the stream is backed by a byte buffer (memory mapped files or direct zstd decompression), we decode straight from the buffer.
+     */
+    private final @Nullable ByteBufferInputStream __buffered;
+    private byte[] scratch = new byte[256];
     private final TrackLastRead<String> stringsRead;
     private boolean closed = false;
     private int current;
@@ -58,6 +68,7 @@ public class BinaryWireInputStream implements IWireInputStream {
         else {
             this.__stream = new BufferedInputStream(stream, bufferSize);
         }
+        __buffered = stream instanceof ByteBufferInputStream ? (ByteBufferInputStream) stream : null;
 
         byte[] header = readBytes(stream, WIRE_VERSION.length);
         if (!Arrays.equals(WIRE_VERSION, header)) {
@@ -94,26 +105,72 @@ public class BinaryWireInputStream implements IWireInputStream {
 
     private static byte[] readBytes(InputStream stream, int len) throws IOException, EOFException {
         byte[] result = new byte[len];
+        readFully(stream, result, len);
+        return result;
+    }
 
+    private static void readFully(InputStream stream, byte[] target, int len) throws IOException, EOFException {
         int pos = 0;
         while (pos < len) {
-            int read = stream.read(result, pos, len - pos);
+            int read = stream.read(target, pos, len - pos);
             if (read == -1) {
                 throw new EOFException();
             }
             pos += read;
         }
-
-        return result;
     }
 
     /*
      * LEB128 decoding (or actually LEB32) of positive and negative integers, negative integers always use 5 bytes, positive integers are compact.
      */
     private int decodeInteger()  throws IOException {
+        final ByteBufferInputStream buffered = __buffered;
+        if (buffered != null) {
+            ByteBuffer source = buffered.getByteBuffer();
+            if (source.remaining() >= 5) {
+                return decodeInteger(source);
+            }
+        }
         return decodeInteger(__stream);
     }
 
+    /**
+     * Same as {@link #decodeInteger(InputStream)} but without the virtual calls and refill checks per byte, only valid if there are at least 5 bytes remaining.
+     */
+    private static int decodeInteger(ByteBuffer source) throws IOException {
+        byte b = source.get();
+        if ((b & 0x80) == 0) {
+            return b;
+        }
+
+        int result = b & 0x7F;
+
+        b = source.get();
+        result ^= ((b & 0x7F) << 7);
+        if ((b & 0x80) == 0) {
+            return result;
+        }
+
+        b = source.get();
+        result ^= ((b & 0x7F) << 14);
+        if ((b & 0x80) == 0) {
+            return result;
+        }
+
+        b = source.get();
+        result ^= ((b & 0x7F) << 21);
+        if ((b & 0x80) == 0) {
+            return result;
+        }
+
+        b = source.get();
+        result ^= ((b & 0x7F) << 28);
+        if ((b & 0x80) == 0) {
+            return result;
+        }
+        throw new IOException("Incorrect integer");
+    }
+
     private static int decodeInteger(InputStream stream) throws IOException {
         try {
             // manually unrolling the loop was the fastest for reading, yet not for writing
@@ -159,9 +216,26 @@ public class BinaryWireInputStream implements IWireInputStream {
      */
     private String decodeString() throws IOException {
         int len = decodeInteger();
-        byte[] bytes = readBytes(len);
+        final ByteBufferInputStream buffered = __buffered;
+        if (buffered != null) {
+            ByteBuffer source = buffered.getByteBuffer();
+            if (source.hasArray() && source.remaining() >= len) {
+                // decode directly from the backing array, no copy needed
+                int start = source.arrayOffset() + source.position();
+                source.position(source.position() + len);
+                return new String(source.array(), start, len, StandardCharsets.UTF_8);
+            }
+        }
+        if (len > MAX_SCRATCH_SIZE) {
+            return new String(readBytes(len), StandardCharsets.UTF_8);
+        }
+        byte[] bytes = scratch;
+        if (bytes.length < len) {
+            bytes = scratch = new byte[Math.max(len, bytes.length * 2)];
+        }
+        readFully(__stream, bytes, len);
         // this is the fastest way, other paths to a string lead to an extra allocated char array
-        return new String(bytes, StandardCharsets.UTF_8);
+        return new String(bytes, 0, len, StandardCharsets.UTF_8);
     }
 
 
@@ -200,14 +200,19 @@ import io.usethesource.vallang.type.TypeFactory.TypeValues;
         return getTypeParameters().isOpen();
     }
 
+    @Override
+    /*package*/ boolean hasMemoizedRelations() {
+        return true;
+    }
+
     @Override
     public Type lub(Type other) {
-        return other.lubWithAbstractData(this);
+        return TypeRelationCache.lub(this, other, (l, r) -> r.lubWithAbstractData(l));
     }
 
     @Override
     public Type glb(Type type) {
-        return type.glbWithAbstractData(this);
+        return TypeRelationCache.glb(this, type, (l, r) -> r.glbWithAbstractData(l));
     }
 
     @Override
@@ -163,14 +163,19 @@ import io.usethesource.vallang.type.TypeFactory.TypeValues;
         return type.isSubtypeOfAlias(this);
     }
 
+    @Override
+    /*package*/ boolean hasMemoizedRelations() {
+        return true;
+    }
+
     @Override
     public Type lub(Type other) {
-        return other.lubWithAlias(this);
+        return TypeRelationCache.lub(this, other, (l, r) -> r.lubWithAlias(l));
     }
 
     @Override
     public Type glb(Type type) {
-        return type.glbWithAlias(this);
+        return TypeRelationCache.glb(this, type, (l, r) -> r.glbWithAlias(l));
     }
 
     @Override
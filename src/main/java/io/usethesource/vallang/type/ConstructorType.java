@@ -324,14 +324,19 @@ import io.usethesource.vallang.type.TypeFactory.TypeValues;
         return type.isSubtypeOfConstructor(this);
     }
 
+    @Override
+    /*package*/ boolean hasMemoizedRelations() {
+        return true;
+    }
+
     @Override
     public Type lub(Type type) {
-        return type.lubWithConstructor(this);
+        return TypeRelationCache.lub(this, type, (l, r) -> r.lubWithConstructor(l));
     }
 
     @Override
     public Type glb(Type type) {
-        return type.glbWithConstructor(this);
+        return TypeRelationCache.glb(this, type, (l, r) -> r.glbWithConstructor(l));
     }
 
     @Override
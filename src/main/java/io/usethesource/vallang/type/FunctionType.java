@@ -226,14 +226,19 @@ public class FunctionType extends DefaultSubtypeOfValue {
         return type.isSubtypeOfFunction(this);
     }
 
+    @Override
+    /*package*/ boolean hasMemoizedRelations() {
+        return true;
+    }
+
     @Override
     public Type lub(Type type) {
-        return type.lubWithFunction(this);
+        return TypeRelationCache.lub(this, type, (l, r) -> r.lubWithFunction(l));
     }
 
     @Override
     public Type glb(Type type) {
-        return type.glbWithFunction(this);
+        return TypeRelationCache.glb(this, type, (l, r) -> r.glbWithFunction(l));
     }
 
     @Override
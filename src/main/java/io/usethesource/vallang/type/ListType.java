@@ -266,14 +266,19 @@ import io.usethesource.vallang.type.TypeFactory.TypeValues;
         return fEltType.isSubtypeOf(type.getElementType());
     }
 
+    @Override
+    /*package*/ boolean hasMemoizedRelations() {
+        return true;
+    }
+
     @Override
     public Type lub(Type other) {
-        return other.lubWithList(this);
+        return TypeRelationCache.lub(this, other, (l, r) -> r.lubWithList(l));
     }
 
     @Override
     public Type glb(Type type) {
-        return type.glbWithList(this);
+        return TypeRelationCache.glb(this, type, (l, r) -> r.glbWithList(l));
     }
 
     @Override
@@ -207,14 +207,19 @@ import io.usethesource.vallang.type.TypeFactory.TypeValues;
         return type.isSubtypeOfMap(this);
     }
 
+    @Override
+    /*package*/ boolean hasMemoizedRelations() {
+        return true;
+    }
+
     @Override
     public Type lub(Type other) {
-        return other.lubWithMap(this);
+        return TypeRelationCache.lub(this, other, (l, r) -> r.lubWithMap(l));
     }
 
     @Override
     public Type glb(Type type) {
-        return type.glbWithMap(this);
+        return TypeRelationCache.glb(this, type, (l, r) -> r.glbWithMap(l));
     }
 
     @Override
@@ -0,0 +1,275 @@
+package io.usethesource.vallang.type;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import io.usethesource.vallang.IConstructor;
+import io.usethesource.vallang.ISet;
+import io.usethesource.vallang.ISetWriter;
+import io.usethesource.vallang.IValueFactory;
+
+/**
+ * Memoizes the reification of types to their symbol values ({@link TypeFactory#asSymbol}) and back
+ * ({@link TypeFactory#fromSymbol}).
+ * <p>
+ * From type to symbol, every type remembers the symbol and grammar it was reified to most recently, for which value
+ * factory, and for which snapshots of the type store and its imports (see {@link TypeStore#snapshots()}). A new
+ * declaration in one of these stores invalidates the entry. The entry lives in the type and only refers weakly to the
+ * snapshots, so it does not keep anything alive that would otherwise be collected, except the symbol values.
+ * <p>
+ * From symbol to type, a bounded direct mapped table remembers the type of recently converted symbols, and refers to
+ * the types weakly. Converting a symbol in a given type store may declare data-types, constructors and aliases as a
+ * side-effect, so for these calls only the types without any such declarations are taken from the table.
+ */
+public final class ReifiedTypeCache {
+    private static final int SIZE = 1 << 10;
+    private static final ReifiedTypeCache INSTANCE = new ReifiedTypeCache();
+
+    /**
+     * The reification of a single type, stored in {@link Type#getReified()}.
+     */
+    /*package*/ static final class Reified {
+        private final int generation;
+        private final IValueFactory vf;
+        private final WeakReference<?>[] snapshots;
+        private final IConstructor symbol;
+        private final ISet grammar;
+
+        private Reified(int generation, IValueFactory vf, Object[] snapshots, IConstructor symbol, ISet grammar) {
+            this.generation = generation;
+            this.vf = vf;
+            this.snapshots = new WeakReference<?>[snapshots.length];
+            for (int i = 0; i < snapshots.length; i++) {
+                this.snapshots[i] = new WeakReference<>(snapshots[i]);
+            }
+            this.symbol = symbol;
+            this.grammar = grammar;
+        }
+
+        private boolean isFor(int generation, IValueFactory vf, Object[] snapshots) {
+            if (this.generation != generation || this.vf != vf || this.snapshots.length != snapshots.length) {
+                return false;
+            }
+
+            for (int i = 0; i < snapshots.length; i++) {
+                if (this.snapshots[i].get() != snapshots[i]) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    private static final class Entry {
+        private final IConstructor symbol;
+        private final WeakReference<Type> type;
+        /** true if converting the symbol does not declare anything, so the type is the same in every store */
+        private final boolean storeIndependent;
+
+        Entry(IConstructor symbol, Type type, boolean storeIndependent) {
+            this.symbol = symbol;
+            this.type = new WeakReference<>(type);
+            this.storeIndependent = storeIndependent;
+        }
+    }
+
+    private final @Nullable Entry[] types = new Entry[SIZE];
+    private final LongAdder symbolHits = new LongAdder();
+    private final LongAdder symbolMisses = new LongAdder();
+    private final LongAdder typeHits = new LongAdder();
+    private final LongAdder typeMisses = new LongAdder();
+    private volatile boolean enabled = true;
+    /** incremented by {@link #clear()}, to invalidate the entries stored in the types */
+    private volatile int generation;
+
+    private ReifiedTypeCache() { }
+
+    public static ReifiedTypeCache getInstance() {
+        return INSTANCE;
+    }
+
+    /*package*/ IConstructor asSymbol(Type type, IValueFactory vf, TypeStore store, ISetWriter grammar) {
+        if (!enabled) {
+            return type.asSymbol(vf, store, grammar, new HashSet<>());
+        }
+
+        Object[] snapshots = store.snapshots();
+        Reified reified = type.getReified();
+
+        if (reified != null && reified.isFor(generation, vf, snapshots)) {
+            symbolHits.increment();
+        }
+        else {
+            symbolMisses.increment();
+            ISetWriter productions = vf.setWriter();
+            IConstructor symbol = type.asSymbol(vf, store, productions, new HashSet<>());
+            reified = new Reified(generation, vf, snapshots, symbol, productions.done());
+            type.setReified(reified);
+        }
+
+        if (!reified.grammar.isEmpty()) {
+            grammar.insertAll(reified.grammar);
+        }
+
+        return reified.symbol;
+    }
+
+    /**
+     * Converts a symbol in a fresh type store, without a grammar; the result only depends on the symbol.
+     */
+    /*package*/ Type fromSymbol(IConstructor symbol, TypeFactory.TypeValues symbols) {
+        if (!enabled) {
+            return symbols.fromSymbol(symbol, new TypeStore(), x -> Collections.emptySet());
+        }
+
+        Type cached = lookup(symbol, false);
+        if (cached != null) {
+            return cached;
+        }
+
+        Type result = symbols.fromSymbol(symbol, new TypeStore(), x -> Collections.emptySet());
+        store(symbol, result, isStoreIndependent(result));
+        return result;
+    }
+
+    /**
+     * Converts a symbol in the given store, which may declare types in the store as a side-effect. Only the conversions
+     * without side-effects are memoized.
+     */
+    /*package*/ Type fromSymbol(IConstructor symbol, TypeStore store, Function<IConstructor, Set<IConstructor>> grammar, TypeFactory.TypeValues symbols) {
+        if (!enabled) {
+            return symbols.fromSymbol(symbol, store, grammar);
+        }
+
+        Type cached = lookup(symbol, true);
+        if (cached != null) {
+            return cached;
+        }
+
+        Type result = symbols.fromSymbol(symbol, store, grammar);
+        if (isStoreIndependent(result)) {
+            store(symbol, result, true);
+        }
+        return result;
+    }
+
+    private @Nullable Type lookup(IConstructor symbol, boolean needStoreIndependent) {
+        @Nullable Entry entry = types[slot(symbol)];
+
+        if (entry != null && (entry.storeIndependent || !needStoreIndependent)
+            && (entry.symbol == symbol || entry.symbol.equals(symbol))) {
+            Type result = entry.type.get();
+            if (result != null) {
+                typeHits.increment();
+                return result;
+            }
+        }
+
+        typeMisses.increment();
+        return null;
+    }
+
+    private void store(IConstructor symbol, Type type, boolean storeIndependent) {
+        types[slot(symbol)] = new Entry(symbol, type, storeIndependent);
+    }
+
+    private static int slot(IConstructor symbol) {
+        int hash = symbol.hashCode();
+        // based on XXH32_avalanche from xxHash (BSD2 license, Yann Collet)
+        hash ^= hash >>> 15;
+        hash *= 0x85EBCA77;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE3D;
+        hash ^= hash >>> 16;
+        return hash & (SIZE - 1);
+    }
+
+    /**
+     * Only data-types, constructors and aliases are declared when converting a symbol, and external types may
+     * use the store in their own way. All other types are built from their symbol alone.
+     */
+    private static boolean isStoreIndependent(Type type) {
+        TypeFacts facts = type.getFacts();
+
+        if (facts.isAny(TypeFacts.ABSTRACT_DATA | TypeFacts.CONSTRUCTOR | TypeFacts.ALIASED | TypeFacts.EXTERNAL)) {
+            return false;
+        }
+        else if (facts.isAny(TypeFacts.LIST | TypeFacts.SET)) {
+            return isStoreIndependent(type.getElementType());
+        }
+        else if (facts.isAny(TypeFacts.MAP)) {
+            return isStoreIndependent(type.getKeyType()) && isStoreIndependent(type.getValueType());
+        }
+        else if (facts.isAny(TypeFacts.TUPLE)) {
+            for (int i = 0; i < type.getArity(); i++) {
+                if (!isStoreIndependent(type.getFieldType(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        else if (facts.isAny(TypeFacts.FUNCTION)) {
+            return isStoreIndependent(type.getReturnType())
+                && isStoreIndependent(type.getFieldTypes())
+                && isStoreIndependent(type.getKeywordParameterTypes());
+        }
+        else if (facts.isAny(TypeFacts.PARAMETER)) {
+            return isStoreIndependent(type.getBound());
+        }
+
+        return true;
+    }
+
+    /**
+     * Turn memoization on or off, when turned off every conversion is computed again (used for benchmarking)
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    public long getSymbolHits() {
+        return symbolHits.sum();
+    }
+
+    public long getSymbolMisses() {
+        return symbolMisses.sum();
+    }
+
+    public long getTypeHits() {
+        return typeHits.sum();
+    }
+
+    public long getTypeMisses() {
+        return typeMisses.sum();
+    }
+
+    /**
+     * Forget all entries and reset the counters
+     */
+    public void clear() {
+        generation++;
+        for (int i = 0; i < types.length; i++) {
+            types[i] = null;
+        }
+        symbolHits.reset();
+        symbolMisses.reset();
+        typeHits.reset();
+        typeMisses.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "asSymbol hits: " + getSymbolHits() + ", misses: " + getSymbolMisses()
+            + "; fromSymbol hits: " + getTypeHits() + ", misses: " + getTypeMisses();
+    }
+}
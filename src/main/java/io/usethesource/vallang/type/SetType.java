@@ -244,14 +244,19 @@ import org.checkerframework.checker.nullness.qual.Nullable;
         return type.isSubtypeOfSet(this);
     }
 
+    @Override
+    /*package*/ boolean hasMemoizedRelations() {
+        return true;
+    }
+
     @Override
     public Type lub(Type other) {
-        return other.lubWithSet(this);
+        return TypeRelationCache.lub(this, other, (l, r) -> r.lubWithSet(l));
     }
 
     @Override
     public Type glb(Type type) {
-        return type.glbWithSet(this);
+        return TypeRelationCache.glb(this, type, (l, r) -> r.glbWithSet(l));
     }
 
     @Override
@@ -321,14 +321,19 @@ import io.usethesource.vallang.type.TypeFactory.TypeValues;
         return type.isSubtypeOfTuple(this);
     }
 
+    @Override
+    /*package*/ boolean hasMemoizedRelations() {
+        return true;
+    }
+
     @Override
     public Type lub(Type other) {
-        return other.lubWithTuple(this);
+        return TypeRelationCache.lub(this, other, (l, r) -> r.lubWithTuple(l));
     }
 
     @Override
     public Type glb(Type type) {
-        return type.glbWithTuple(this);
+        return TypeRelationCache.glb(this, type, (l, r) -> r.glbWithTuple(l));
     }
 
     @Override
@@ -23,8 +23,61 @@ import io.usethesource.vallang.exceptions.IllegalOperationException;
 import io.usethesource.vallang.exceptions.UndeclaredFieldException;
 
 /*package*/ final class TupleTypeWithFieldNames extends TupleType {
+    /**
+     * Up to this arity a scan over the field names is faster than a lookup in the {@link FieldIndex}
+     */
+    private static final int MAX_SCANNED_ARITY = 6;
+
     final String[] fFieldNames;
 
+    /**
+     * Built on the first lookup by name for wide tuples, so the instances which the TypeFactory
+     * only creates to probe its cache never pay for it.
+     */
+    private @Nullable FieldIndex fFieldIndex;
+
+    /**
+     * An open addressing hash table from field names to their positions. All fields are final,
+     * so threads which race to build the index of the same type can safely share the result.
+     */
+    private static final class FieldIndex {
+        private final @Nullable String[] names;
+        private final int[] positions;
+        private final int mask;
+
+        FieldIndex(String[] fieldNames) {
+            int size = Integer.highestOneBit(fieldNames.length * 2 - 1) << 1;
+            names = new String[size];
+            positions = new int[size];
+            mask = size - 1;
+
+            for (int i = 0; i < fieldNames.length; i++) {
+                int slot = fieldNames[i].hashCode() & mask;
+                while (names[slot] != null && !fieldNames[i].equals(names[slot])) {
+                    slot = (slot + 1) & mask;
+                }
+                // a later duplicate wins, like the backwards scan does
+                names[slot] = fieldNames[i];
+                positions[slot] = i;
+            }
+        }
+
+        /**
+         * @return the position of the field, or -1 if there is no such field
+         */
+        int get(String fieldName) {
+            int slot = fieldName.hashCode() & mask;
+            String name;
+            while ((name = names[slot]) != null) {
+                if (name == fieldName || name.equals(fieldName)) {
+                    return positions[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+    }
+
     /**
      * Creates a tuple type with the given field types and names.
      * Does not copy the arrays.
@@ -57,24 +110,37 @@ import io.usethesource.vallang.exceptions.UndeclaredFieldException;
 
     @Override
     public int getFieldIndex(String fieldName) throws FactTypeUseException {
-        for (int i = fFieldNames.length - 1; i >= 0; i--) {
-            if (fFieldNames[i].equals(fieldName)) {
-                return i;
-            }
+        int index = indexOf(fieldName);
+
+        if (index < 0) {
+            throw new UndeclaredFieldException(this, fieldName);
         }
 
-        throw new UndeclaredFieldException(this, fieldName);
+        return index;
     }
 
     @Override
     public boolean hasField(String fieldName) {
-        for (int i = fFieldNames.length - 1; i >= 0; i--) {
-            if (fFieldNames[i].equals(fieldName)) {
-                return true;
+        return indexOf(fieldName) >= 0;
+    }
+
+    private int indexOf(String fieldName) {
+        if (fFieldNames.length <= MAX_SCANNED_ARITY) {
+            for (int i = fFieldNames.length - 1; i >= 0; i--) {
+                if (fFieldNames[i].equals(fieldName)) {
+                    return i;
+                }
             }
+
+            return -1;
+        }
+
+        FieldIndex index = fFieldIndex;
+        if (index == null) {
+            fFieldIndex = index = new FieldIndex(fFieldNames);
         }
 
-        return false;
+        return index.get(fieldName);
     }
 
     @Override
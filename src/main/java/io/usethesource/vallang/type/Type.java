@@ -52,6 +52,17 @@ import io.usethesource.vallang.type.TypeFactory.TypeValues;
 public abstract class Type implements Iterable<Type>, Comparable<Type> {
     protected static final TypeFactory TF = TypeFactory.getInstance();
 
+    /**
+    * Computed on first use; racing threads compute equal immutable facts, so no synchronization is needed.
+    */
+    private @Nullable TypeFacts facts;
+
+    /**
+    * The symbol this type was reified to most recently, see {@link ReifiedTypeCache}. Entries are immutable, so
+    * a racing thread at worst overwrites an equally valid entry.
+    */
+    private ReifiedTypeCache.@Nullable Reified reified;
+
     protected abstract TypeFactory.TypeReifier getTypeReifier(TypeValues values);
 
     /**
@@ -426,7 +437,7 @@ public abstract class Type implements Iterable<Type>, Comparable<Type> {
     * @return true if the receiver is a subtype of the other type
     */
     public final boolean isSubtypeOf(Type other) {
-        return other == this || other.isSupertypeOf(this);
+        return other == this || TypeRelationCache.isSubtypeOf(this, other);
     }
 
     public final boolean isStrictSubtypeOf(Type other) {
@@ -435,6 +446,32 @@ public abstract class Type implements Iterable<Type>, Comparable<Type> {
 
     protected abstract boolean isSupertypeOf(Type type);
 
+    /**
+    * @return true if sub-typing, lub and glb recurse into the children of this type, and are therefore memoized by {@link TypeRelationCache}
+    */
+    /*package*/ boolean hasMemoizedRelations() {
+        return false;
+    }
+
+    /**
+    * @return the kind bits, de-aliased type and arity of this type, to test several kinds at once
+    */
+    public final TypeFacts getFacts() {
+        TypeFacts result = facts;
+        if (result == null) {
+            facts = result = TypeFacts.of(this);
+        }
+        return result;
+    }
+
+    /*package*/ ReifiedTypeCache.@Nullable Reified getReified() {
+        return reified;
+    }
+
+    /*package*/ void setReified(ReifiedTypeCache.Reified reified) {
+        this.reified = reified;
+    }
+
     /**
     * Return whether an ADT or an alias Type has any type parameters
     *
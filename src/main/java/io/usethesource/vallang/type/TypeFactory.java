@@ -22,14 +22,13 @@ import java.math.BigInteger;
 import java.net.URL;
 import java.util.Collections;
 import java.util.Enumeration;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -48,7 +47,7 @@ import io.usethesource.vallang.exceptions.IllegalFieldTypeException;
 import io.usethesource.vallang.exceptions.IllegalIdentifierException;
 import io.usethesource.vallang.exceptions.NullTypeException;
 import io.usethesource.vallang.util.HashConsingMap;
-import io.usethesource.vallang.util.WeakReferenceHashConsingMap;
+import io.usethesource.vallang.util.StripedWeakHashConsingMap;
 
 /**
  * Use this class to produce any kind of {@link Type}, after which the make
@@ -62,7 +61,7 @@ public class TypeFactory {
     /**
      * Caches all types to implement canonicalization
      */
-    private final HashConsingMap<Type> fCache = new WeakReferenceHashConsingMap<>(32*1024, (int)TimeUnit.MINUTES.toSeconds(30));
+    private final HashConsingMap<Type> fCache = new StripedWeakHashConsingMap<>();
     private volatile @MonotonicNonNull TypeValues typeValues; // lazy initialize
 
     private static class InstanceHolder {
@@ -509,6 +508,13 @@ public class TypeFactory {
         assert !isNull(aliased) : "alias aliased should not be null";
         assert !isNull(params): "alias params should not be null";
 
+        return aliasTypeFromTuple(name, aliased, params, store::declareAlias);
+    }
+
+    /**
+     * Constructs an alias type and passes it to declare, shared with {@link TypeStore.Batch}.
+     */
+    /*package*/ Type aliasTypeFromTuple(String name, Type aliased, Type params, Consumer<Type> declare) {
         if (!isIdentifier(name)) {
             throw new IllegalIdentifierException(name);
         }
@@ -518,7 +524,7 @@ public class TypeFactory {
         }
 
         Type result = getFromCache(new AliasType(name, aliased, params));
-        store.declareAlias(result);
+        declare.accept(result);
         return result;
     }
 
@@ -559,6 +565,14 @@ public class TypeFactory {
         assert !isNull(name) : "adt name should not be null";
         assert !isNull(params): "adt params should not be null";
 
+        return abstractDataTypeFromTuple(name, params, store::declareAbstractDataType);
+    }
+
+    /**
+     * Constructs an abstract data-type and passes it to declare if it should be stored, shared with
+     * {@link TypeStore.Batch}.
+     */
+    /*package*/ Type abstractDataTypeFromTuple(String name, Type params, Consumer<Type> declare) {
         if (!isIdentifier(name)) {
             throw new IllegalIdentifierException(name);
         }
@@ -567,10 +581,10 @@ public class TypeFactory {
         if (!params.equivalent(voidType()) && params.getArity() > 0) {
             if (params.getFieldType(0).isOpen()) { // parametrized and uninstantiated
                 // adts should be stored
-                store.declareAbstractDataType(result);
+                declare.accept(result);
             }
         } else { // not parametrized
-            store.declareAbstractDataType(result);
+            declare.accept(result);
         }
 
         return result;
@@ -599,6 +613,14 @@ public class TypeFactory {
         assert !isNull(name) : "constructor name should not be null";
         assert !isNull(tupleType) : "constructor type should not be null";
 
+        return constructorFromTuple(adt, name, tupleType, store::declareConstructor);
+    }
+
+    /**
+     * Constructs a constructor type and passes it to declare if it should be stored, shared with
+     * {@link TypeStore.Batch}.
+     */
+    /*package*/ Type constructorFromTuple(Type adt, String name, Type tupleType, Consumer<Type> declare) {
         if (!isIdentifier(name)) {
             throw new IllegalIdentifierException(name);
         }
@@ -610,10 +632,10 @@ public class TypeFactory {
         if (!params.equivalent(voidType())) {
             if (params.isOpen()) { // only parametrized and not instantiated types
                 // should be stored
-                store.declareConstructor(result);
+                declare.accept(result);
             }
         } else {
-            store.declareConstructor(result);
+            declare.accept(result);
         }
 
         return result;
@@ -740,7 +762,7 @@ public class TypeFactory {
      * @return a type isomorphic to the given symbolic representation
      */
     public Type fromSymbol(IConstructor symbol, TypeStore store, Function<IConstructor,Set<IConstructor>> grammar) {
-        return cachedTypeValues().fromSymbol(symbol, store, grammar);
+        return ReifiedTypeCache.getInstance().fromSymbol(symbol, store, grammar, cachedTypeValues());
     }
 
     /**
@@ -754,7 +776,7 @@ public class TypeFactory {
      * @return a value to uniquely represent this type.
      */
     public IConstructor asSymbol(Type type, IValueFactory vf, TypeStore store, ISetWriter grammar) {
-        return type.asSymbol(vf, store, grammar, new HashSet<>());
+        return ReifiedTypeCache.getInstance().asSymbol(type, vf, store, grammar);
     }
 
     /**
@@ -1167,7 +1189,7 @@ public class TypeFactory {
      * @return the type represented by the value
      */
     public Type fromSymbol(IConstructor symbol) {
-        return cachedTypeValues().fromSymbol(symbol, new TypeStore(), x -> Collections.emptySet());
+        return ReifiedTypeCache.getInstance().fromSymbol(symbol, cachedTypeValues());
     }
 
     public TypeValues cachedTypeValues() {
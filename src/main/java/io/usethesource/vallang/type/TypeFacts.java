@@ -0,0 +1,144 @@
+package io.usethesource.vallang.type;
+
+/**
+ * Precomputed answers to the kind questions of a single {@link Type}, so hot code can test for several
+ * kinds at once with a single mask instead of a chain of virtual calls.
+ * <p>
+ * The kind bits reflect the <code>is...()</code> predicates of the type itself. Note that these are not
+ * inherited through aliases: an alias to a list type has {@link #ALIASED} set, but not {@link #LIST}. The
+ * de-aliased kinds are those of the type behind all aliases.
+ * <p>
+ * Facts are computed once per type instance, on the first call of {@link Type#getFacts()}, and are immutable.
+ */
+public final class TypeFacts {
+    public static final int VALUE = 1;
+    public static final int VOID = 1 << 1;
+    public static final int BOOL = 1 << 2;
+    public static final int INTEGER = 1 << 3;
+    public static final int REAL = 1 << 4;
+    public static final int RATIONAL = 1 << 5;
+    public static final int NUMBER = 1 << 6;
+    public static final int STRING = 1 << 7;
+    public static final int SOURCE_LOCATION = 1 << 8;
+    public static final int DATE_TIME = 1 << 9;
+    public static final int LIST = 1 << 10;
+    public static final int SET = 1 << 11;
+    public static final int MAP = 1 << 12;
+    public static final int RELATION = 1 << 13;
+    public static final int LIST_RELATION = 1 << 14;
+    public static final int TUPLE = 1 << 15;
+    public static final int NODE = 1 << 16;
+    public static final int ABSTRACT_DATA = 1 << 17;
+    public static final int CONSTRUCTOR = 1 << 18;
+    public static final int FUNCTION = 1 << 19;
+    public static final int PARAMETER = 1 << 20;
+    public static final int ALIASED = 1 << 21;
+    public static final int EXTERNAL = 1 << 22;
+    public static final int OPEN = 1 << 23;
+    public static final int PARAMETERIZED = 1 << 24;
+    public static final int FIXED_WIDTH = 1 << 25;
+
+    /**
+     * The kinds of the primitive types, which have no other sub-types than void.
+     */
+    public static final int ATOMIC = BOOL | INTEGER | REAL | RATIONAL | STRING | SOURCE_LOCATION | DATE_TIME;
+
+    private final int kinds;
+    private final int dealiasedKinds;
+    private final Type dealiased;
+    private final int arity;
+
+    private TypeFacts(int kinds, int dealiasedKinds, Type dealiased, int arity) {
+        this.kinds = kinds;
+        this.dealiasedKinds = dealiasedKinds;
+        this.dealiased = dealiased;
+        this.arity = arity;
+    }
+
+    /*package*/ static TypeFacts of(Type type) {
+        Type dealiased = type;
+        while (dealiased.isAliased()) {
+            dealiased = dealiased.getAliased();
+        }
+
+        int kinds = kindsOf(type);
+        int dealiasedKinds = dealiased == type ? kinds : kindsOf(dealiased);
+        int arity = (dealiasedKinds & (TUPLE | CONSTRUCTOR)) != 0 ? dealiased.getArity() : -1;
+
+        return new TypeFacts(kinds, dealiasedKinds, dealiased, arity);
+    }
+
+    private static int kindsOf(Type type) {
+        int kinds = 0;
+        kinds |= type.isTop() ? VALUE : 0;
+        kinds |= type.isBottom() ? VOID : 0;
+        kinds |= type.isBool() ? BOOL : 0;
+        kinds |= type.isInteger() ? INTEGER : 0;
+        kinds |= type.isReal() ? REAL : 0;
+        kinds |= type.isRational() ? RATIONAL : 0;
+        kinds |= type.isNumber() ? NUMBER : 0;
+        kinds |= type.isString() ? STRING : 0;
+        kinds |= type.isSourceLocation() ? SOURCE_LOCATION : 0;
+        kinds |= type.isDateTime() ? DATE_TIME : 0;
+        kinds |= type.isList() ? LIST : 0;
+        kinds |= type.isSet() ? SET : 0;
+        kinds |= type.isMap() ? MAP : 0;
+        kinds |= type.isRelation() ? RELATION : 0;
+        kinds |= type.isListRelation() ? LIST_RELATION : 0;
+        kinds |= type.isTuple() ? TUPLE : 0;
+        kinds |= type.isNode() ? NODE : 0;
+        kinds |= type.isAbstractData() ? ABSTRACT_DATA : 0;
+        kinds |= type.isConstructor() ? CONSTRUCTOR : 0;
+        kinds |= type.isFunction() ? FUNCTION : 0;
+        kinds |= type.isParameter() ? PARAMETER : 0;
+        kinds |= type.isAliased() ? ALIASED : 0;
+        kinds |= type.isExternalType() ? EXTERNAL : 0;
+        kinds |= type.isOpen() ? OPEN : 0;
+        kinds |= type.isParameterized() ? PARAMETERIZED : 0;
+        kinds |= type.isFixedWidth() ? FIXED_WIDTH : 0;
+        return kinds;
+    }
+
+    /**
+     * @return true if the type is of any of the kinds in the mask
+     */
+    public boolean isAny(int mask) {
+        return (kinds & mask) != 0;
+    }
+
+    /**
+     * @return true if the type is of all of the kinds in the mask
+     */
+    public boolean isAll(int mask) {
+        return (kinds & mask) == mask;
+    }
+
+    /**
+     * @return true if the type behind all aliases is of any of the kinds in the mask
+     */
+    public boolean isDealiasedAny(int mask) {
+        return (dealiasedKinds & mask) != 0;
+    }
+
+    public int getKinds() {
+        return kinds;
+    }
+
+    public int getDealiasedKinds() {
+        return dealiasedKinds;
+    }
+
+    /**
+     * @return the type behind all aliases, or the type itself if it is not an alias
+     */
+    public Type getDealiased() {
+        return dealiased;
+    }
+
+    /**
+     * @return the arity of tuple and constructor types (also behind aliases), -1 for all other types
+     */
+    public int getArity() {
+        return arity;
+    }
+}
@@ -0,0 +1,334 @@
+package io.usethesource.vallang.type;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import io.usethesource.vallang.exceptions.FactTypeUseException;
+
+/**
+ * A formal type, which may contain {@link ParameterType}s, compiled for matching it against many actual types.
+ * <p>
+ * {@link #match(Type, Type[])} has the same semantics as {@link Type#match(Type, Map)}, but the bindings live in
+ * an array with a slot for every type parameter of the formal type instead of in a map. The structure of the formal
+ * type is traversed once at compile time, and sub-types without type parameters are matched with a single sub-type
+ * check. So matching with a re-used bindings array does not allocate.
+ * <p>
+ * Function types and external types are matched by their own {@link Type#match(Type, Map)}, as are actual types that
+ * contain type parameters themselves; these cases do allocate a temporary map.
+ * <p>
+ * Matchers are immutable and can be shared between threads, the bindings arrays can not.
+ */
+public final class TypeMatcher {
+    private final Type formal;
+    private final Type[] parameters;
+    private final Node root;
+
+    @FunctionalInterface
+    private interface Node {
+        boolean match(Type matched, @Nullable Type[] bindings);
+    }
+
+    private TypeMatcher(Type formal) {
+        this.formal = formal;
+        List<Type> params = new ArrayList<>();
+        this.root = compile(formal, params);
+
+        // parameters that only occur inside fallback nodes are found by matching the formal against itself
+        Map<Type, Type> probe = new HashMap<>();
+        try {
+            formal.match(formal, probe);
+        }
+        catch (FactTypeUseException e) {
+            // then we know only the parameters found by the compiler
+        }
+        for (Type param : probe.keySet()) {
+            if (!params.contains(param)) {
+                params.add(param);
+            }
+        }
+
+        this.parameters = params.toArray(new Type[0]);
+    }
+
+    /**
+     * Compile a formal type for matching.
+     *
+     * @param formal a type which may contain type parameters
+     * @return a matcher with a binding slot for every type parameter in the formal type
+     */
+    public static TypeMatcher compile(Type formal) {
+        return new TypeMatcher(formal);
+    }
+
+    public Type getFormal() {
+        return formal;
+    }
+
+    /**
+     * @return the number of type parameters, which is the size of a bindings array
+     */
+    public int getArity() {
+        return parameters.length;
+    }
+
+    /**
+     * @return the type parameter which is bound in the given slot
+     */
+    public Type getParameter(int slot) {
+        return parameters[slot];
+    }
+
+    /**
+     * @return the slot of the given type parameter, or -1 if it does not occur in the formal type
+     */
+    public int getSlot(Type parameter) {
+        for (int i = 0; i < parameters.length; i++) {
+            if (parameters[i] == parameter) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return an empty bindings array, which can be used for many subsequent matches if it is cleared in between
+     */
+    public @Nullable Type[] newBindings() {
+        return new Type[parameters.length];
+    }
+
+    /**
+     * Match an actual type against the formal type. Like {@link Type#match(Type, Map)}, slots that are already
+     * bound are taken into account and may be widened to the lub of the earlier and the new binding.
+     *
+     * @param actual   the type to match
+     * @param bindings an array of {@link #getArity()} slots, null for unbound type parameters
+     * @return true if the actual type matches the formal type
+     */
+    public boolean match(Type actual, @Nullable Type[] bindings) throws FactTypeUseException {
+        if (actual.isOpen()) {
+            // actual type parameters may get bound too, which only the map based matching supports
+            return fallback(formal, actual, bindings);
+        }
+
+        return root.match(actual, bindings);
+    }
+
+    /**
+     * @return the bound slots as a map, for example to {@link Type#instantiate(Map)} a type
+     */
+    public Map<Type, Type> toMap(@Nullable Type[] bindings) {
+        Map<Type, Type> result = new HashMap<>();
+        for (int i = 0; i < parameters.length; i++) {
+            Type bound = bindings[i];
+            if (bound != null) {
+                result.put(parameters[i], bound);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Instantiate the formal type with the given bindings.
+     */
+    public Type instantiate(@Nullable Type[] bindings) {
+        return formal.instantiate(toMap(bindings));
+    }
+
+    private boolean fallback(Type formal, Type matched, @Nullable Type[] bindings) {
+        Map<Type, Type> map = toMap(bindings);
+        boolean result = formal.match(matched, map);
+        for (int i = 0; i < parameters.length; i++) {
+            bindings[i] = map.get(parameters[i]);
+        }
+        return result;
+    }
+
+    private Node compile(Type formal, List<Type> params) {
+        if (!formal.isOpen() && !mayMatchDifferently(formal)) {
+            return (matched, bindings) -> matched.isSubtypeOf(formal);
+        }
+
+        if (formal instanceof ParameterType) {
+            return compileParameter((ParameterType) formal, params);
+        }
+
+        if (formal instanceof AliasType) {
+            Node aliased = compile(formal.getAliased(), params);
+            return (matched, bindings) -> matched.isSubtypeOf(formal) && aliased.match(matched, bindings);
+        }
+
+        if (formal instanceof ListType) {
+            Node element = compile(formal.getElementType(), params);
+            return (matched, bindings) -> {
+                if (!matched.isSubtypeOf(formal)) {
+                    return false;
+                }
+                else if (matched.isList() || (matched.isAliased() && matched.getAliased().isList()) || matched.isBottom()) {
+                    return element.match(matched.getElementType(), bindings);
+                }
+                return true;
+            };
+        }
+
+        if (formal instanceof SetType) {
+            Node element = compile(formal.getElementType(), params);
+            return (matched, bindings) -> {
+                if (!matched.isSubtypeOf(formal)) {
+                    return false;
+                }
+                else if (matched.isSet() || (matched.isAliased() && matched.getAliased().isSet()) || matched.isBottom()) {
+                    return element.match(matched.getElementType(), bindings);
+                }
+                return true;
+            };
+        }
+
+        if (formal instanceof MapType) {
+            Node key = compile(formal.getKeyType(), params);
+            Node value = compile(formal.getValueType(), params);
+            return (matched, bindings) -> {
+                if (!matched.isSubtypeOf(formal)) {
+                    return false;
+                }
+                else if (matched.isMap() || (matched.isAliased() && matched.getAliased().isMap()) || matched.isBottom()) {
+                    return key.match(matched.getKeyType(), bindings) && value.match(matched.getValueType(), bindings);
+                }
+                return true;
+            };
+        }
+
+        if (formal instanceof TupleType) {
+            Node fields = compileFields(formal, params);
+            return (matched, bindings) -> matched.isSubtypeOf(formal) && fields.match(matched, bindings);
+        }
+
+        if (formal instanceof ConstructorType) {
+            Node typeParameters = compileTypeParameters(formal, params);
+            Node adt = compile(formal.getAbstractDataType(), params);
+            Node fields = compile(formal.getFieldTypes(), params);
+            return (matched, bindings) -> typeParameters.match(matched, bindings)
+                && adt.match(matched.getAbstractDataType(), bindings)
+                && fields.match(matched.getFieldTypes(), bindings);
+        }
+
+        if (formal instanceof AbstractDataType) {
+            return compileTypeParameters(formal, params);
+        }
+
+        // the constructor finds the parameters of this part of the formal
+        return (matched, bindings) -> fallback(formal, matched, bindings);
+    }
+
+    private Node compileParameter(ParameterType formal, List<Type> params) {
+        int slot = params.indexOf(formal);
+        if (slot == -1) {
+            slot = params.size();
+            params.add(formal);
+        }
+        final int index = slot;
+        Type bound = formal.getBound();
+        Node boundNode = compile(bound, params);
+
+        return (matched, bindings) -> {
+            if (!matched.isSubtypeOf(formal)) {
+                return false;
+            }
+
+            Type earlier = bindings[index];
+
+            if (earlier != null) {
+                // matched is closed here, so only the lub case of ParameterType.match applies
+                Type lub = matched.lub(earlier);
+                if (lub.isSubtypeOf(bound)) {
+                    bindings[index] = lub;
+                    boundNode.match(matched, bindings);
+                    return true;
+                }
+
+                return false;
+            }
+
+            bindings[index] = matched;
+            boundNode.match(matched, bindings);
+            return true;
+        };
+    }
+
+    /**
+     * The part of {@link AbstractDataType#match(Type, Map)} which is also inherited by constructor types
+     */
+    private Node compileTypeParameters(Type formal, List<Type> params) {
+        Type formalParameters = formal.getTypeParameters();
+        Node typeParameters = compile(formalParameters, params);
+
+        return (matched, bindings) -> {
+            if (!matched.isSubtypeOf(formal)) {
+                return false;
+            }
+
+            if (matched.isAbstractData() || (matched.isAliased() && matched.getAliased().isAbstractData()) || matched.isBottom()) {
+                return typeParameters.match(matched.getTypeParameters(), bindings);
+            }
+
+            return true;
+        };
+    }
+
+    private Node compileFields(Type formal, List<Type> params) {
+        Node[] fields = new Node[formal.getArity()];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = compile(formal.getFieldType(i), params);
+        }
+
+        return (matched, bindings) -> {
+            if (matched.isTuple() || (matched.isAliased() && matched.getAliased().isTuple()) || matched.isBottom()) {
+                for (int i = fields.length - 1; i >= 0; i--) {
+                    if (!fields[i].match(matched.getFieldType(i), bindings)) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        };
+    }
+
+    /**
+     * Types without type parameters match exactly their sub-types, except if they contain types which
+     * implement matching differently: function types and external types.
+     */
+    private static boolean mayMatchDifferently(Type type) {
+        if (type.isAliased()) {
+            return mayMatchDifferently(type.getAliased());
+        }
+        else if (type.isFunction() || type.isExternalType()) {
+            return true;
+        }
+        else if (type.isList() || type.isSet()) {
+            return mayMatchDifferently(type.getElementType());
+        }
+        else if (type.isMap()) {
+            return mayMatchDifferently(type.getKeyType()) || mayMatchDifferently(type.getValueType());
+        }
+        else if (type.isTuple()) {
+            for (int i = 0; i < type.getArity(); i++) {
+                if (mayMatchDifferently(type.getFieldType(i))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        else if (type.isConstructor()) {
+            return mayMatchDifferently(type.getFieldTypes()) || mayMatchDifferently(type.getAbstractDataType());
+        }
+        else if (type.isAbstractData()) {
+            return type.isParameterized() && mayMatchDifferently(type.getTypeParameters());
+        }
+
+        return false;
+    }
+}
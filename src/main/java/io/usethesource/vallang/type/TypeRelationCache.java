@@ -0,0 +1,179 @@
+package io.usethesource.vallang.type;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A bounded memo table for the results of a binary relation between types (sub-typing, lub and glb).
+ * <p>
+ * Types are hash-consed by the {@link TypeFactory}, so the pair of references is a valid key. The table is direct mapped:
+ * a colliding pair simply overwrites the previous entry. Entries are immutable, so threads can race on the same slot
+ * without locking, at worst they recompute a result another thread just stored.
+ * <p>
+ * The table refers to the operands and the results weakly, so a memoized relation never keeps a type alive that the
+ * {@link TypeFactory} would otherwise forget, such as the data-types of a discarded {@link TypeStore}.
+ * <p>
+ * Only types whose relations recurse into their children (lists, sets, maps, tuples, algebraic data types, constructors,
+ * aliases and functions) are memoized, for the others the direct dispatch is cheaper than a lookup.
+ */
+public final class TypeRelationCache<R> {
+    private static final int DEFAULT_SIZE = 1 << 12;
+
+    private static final TypeRelationCache<Boolean> SUBTYPES = new TypeRelationCache<>(DEFAULT_SIZE);
+    private static final TypeRelationCache<Type> LUBS = new TypeRelationCache<>(DEFAULT_SIZE);
+    private static final TypeRelationCache<Type> GLBS = new TypeRelationCache<>(DEFAULT_SIZE);
+
+    private static final class Entry<R> {
+        private final WeakReference<Type> left;
+        private final WeakReference<Type> right;
+        /** the results of sub-typing are the canonical booleans, which are never collected */
+        private final WeakReference<R> result;
+
+        Entry(Type left, Type right, R result) {
+            this.left = new WeakReference<>(left);
+            this.right = new WeakReference<>(right);
+            this.result = new WeakReference<>(result);
+        }
+    }
+
+    private final @Nullable Entry<R>[] entries;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile boolean enabled = true;
+    private volatile boolean statistics = false;
+
+    @SuppressWarnings("unchecked")
+    private TypeRelationCache(int size) {
+        entries = new Entry[size];
+        mask = size - 1;
+    }
+
+    /**
+     * @return the memo table for {@link Type#isSubtypeOf(Type)}
+     */
+    public static TypeRelationCache<Boolean> subtypes() {
+        return SUBTYPES;
+    }
+
+    /**
+     * @return the memo table for {@link Type#lub(Type)}
+     */
+    public static TypeRelationCache<Type> lubs() {
+        return LUBS;
+    }
+
+    /**
+     * @return the memo table for {@link Type#glb(Type)}
+     */
+    public static TypeRelationCache<Type> glbs() {
+        return GLBS;
+    }
+
+    /*package*/ static boolean isSubtypeOf(Type sub, Type sup) {
+        return SUBTYPES.get(sub, sup, (l, r) -> r.isSupertypeOf(l));
+    }
+
+    /*package*/ static Type lub(Type receiver, Type other, BiFunction<Type, Type, Type> compute) {
+        return LUBS.get(receiver, other, compute);
+    }
+
+    /*package*/ static Type glb(Type receiver, Type other, BiFunction<Type, Type, Type> compute) {
+        return GLBS.get(receiver, other, compute);
+    }
+
+    private R get(Type left, Type right, BiFunction<Type, Type, R> compute) {
+        if (!enabled || !left.hasMemoizedRelations() || !right.hasMemoizedRelations()) {
+            return compute.apply(left, right);
+        }
+
+        int index = slot(left, right);
+        @Nullable Entry<R> entry = entries[index];
+        if (entry != null && entry.left.get() == left && entry.right.get() == right) {
+            R result = entry.result.get();
+            if (result != null) {
+                if (statistics) {
+                    hits.increment();
+                }
+                return result;
+            }
+        }
+
+        if (statistics) {
+            misses.increment();
+        }
+        R result = compute.apply(left, right);
+        entries[index] = new Entry<>(left, right, result);
+        return result;
+    }
+
+    private int slot(Type left, Type right) {
+        int hash = System.identityHashCode(left) * 31 + System.identityHashCode(right);
+        // based on XXH32_avalanche from xxHash (BSD2 license, Yann Collet)
+        hash ^= hash >>> 15;
+        hash *= 0x85EBCA77;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE3D;
+        hash ^= hash >>> 16;
+        return hash & mask;
+    }
+
+    /**
+     * Turn memoization on or off, when turned off every result is computed again (used for benchmarking)
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    /**
+     * Turn the counting of hits and misses on or off, it is off by default to keep the lookups cheap
+     */
+    public void setStatistics(boolean statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * @return the number of lookups answered from the table, only counted while {@link #setStatistics(boolean)} is on
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups which had to be computed, only counted while {@link #setStatistics(boolean)} is on
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return fraction of the memoized lookups that were answered from the table, 0 if there have not been any
+     */
+    public double getHitRate() {
+        long h = getHits();
+        long total = h + getMisses();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    /**
+     * Forget all entries and reset the counters
+     */
+    public void clear() {
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = null;
+        }
+        hits.reset();
+        misses.reset();
+    }
+
+    @Override
+    public String toString() {
+        return "hits: " + getHits() + ", misses: " + getMisses() + String.format(", hit rate: %.2f%%", getHitRate() * 100);
+    }
+}
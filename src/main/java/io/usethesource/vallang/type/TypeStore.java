@@ -11,14 +11,20 @@
 
 package io.usethesource.vallang.type;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -39,16 +45,31 @@ import io.usethesource.vallang.exceptions.UndeclaredAbstractDataTypeException;
 * TypeStores can import others, but the imports are not transitive.
 * Cyclic imports are allowed.
 * <p>
+* Declarations and imports are serialized and publish a new immutable snapshot of the store,
+* lookups never lock: they read the current snapshots of the store and its imports. Lookups
+* which merge declarations across imports are memoized in a view that is thrown away as soon
+* as the store or one of its imports publishes a new snapshot. The sets and maps returned by
+* lookups are therefore shared and can not be modified.
+* <p>
 * @see {@link TypeFactory}, {@link Type} and {@link IValueFactory} for more information.
 */
 public class TypeStore {
     private final TypeFactory factory = TypeFactory.getInstance();
 
-    private final Map<String, Type> fAliases= new HashMap<>();
-    private final Map<String, Type> fADTs= new HashMap<>();
-    private final Map<Type, Set<Type>> fConstructors = new HashMap<>();
-    private final Map<Type, Map<String, Type>> fkeywordParameters = new HashMap<>();
-    private final Set<TypeStore> fImports = new HashSet<>();
+    /**
+     * The declarations of this store; replaced on every declaration, never modified after publication.
+     */
+    private volatile Declarations fDeclarations;
+
+    /**
+     * Memoized lookups over the declarations of this store and its imports, or null if none have been done yet.
+     */
+    private volatile @Nullable MergedView fView;
+
+    /**
+     * Serializes declarations and imports, lookups do not take it.
+     */
+    private final Object fUpdateLock = new Object();
 
     /*
     * The ADTs for which overloading checking is turned off
@@ -57,19 +78,179 @@ public class TypeStore {
     private static final java.util.List<String> IGNORE_OVERLOADING_CHECKS = Arrays.asList(
         new String[] {"AType", "Grammar", "RuntimeException", "ModuleStatus"});
 
+    /**
+     * An immutable snapshot of the declarations of a single store. The maps and sets are persistent,
+     * so an update shares all but a logarithmic part of the previous snapshot instead of copying it.
+     */
+    private static final class Declarations {
+        private static final Declarations EMPTY = new Declarations(io.usethesource.capsule.Map.Immutable.of(), io.usethesource.capsule.Map.Immutable.of(),
+            io.usethesource.capsule.Map.Immutable.of(), io.usethesource.capsule.Map.Immutable.of(), new TypeStore[0]);
+
+        private final io.usethesource.capsule.Map.Immutable<String, Type> aliases;
+        private final io.usethesource.capsule.Map.Immutable<String, Type> adts;
+        private final io.usethesource.capsule.Map.Immutable<Type, io.usethesource.capsule.Set.Immutable<Type>> constructors;
+        private final io.usethesource.capsule.Map.Immutable<Type, io.usethesource.capsule.Map.Immutable<String, Type>> keywordParameters;
+        private final TypeStore[] imports;
+
+        private Declarations(io.usethesource.capsule.Map.Immutable<String, Type> aliases, io.usethesource.capsule.Map.Immutable<String, Type> adts,
+            io.usethesource.capsule.Map.Immutable<Type, io.usethesource.capsule.Set.Immutable<Type>> constructors,
+            io.usethesource.capsule.Map.Immutable<Type, io.usethesource.capsule.Map.Immutable<String, Type>> keywordParameters, TypeStore[] imports) {
+            this.aliases = aliases;
+            this.adts = adts;
+            this.constructors = constructors;
+            this.keywordParameters = keywordParameters;
+            this.imports = imports;
+        }
+
+        private Declarations withAliases(io.usethesource.capsule.Map.Immutable<String, Type> aliases) {
+            return new Declarations(aliases, adts, constructors, keywordParameters, imports);
+        }
+
+        private Declarations withAdts(io.usethesource.capsule.Map.Immutable<String, Type> adts,
+            io.usethesource.capsule.Map.Immutable<Type, io.usethesource.capsule.Set.Immutable<Type>> constructors) {
+            return new Declarations(aliases, adts, constructors, keywordParameters, imports);
+        }
+
+        private Declarations withKeywordParameters(
+            io.usethesource.capsule.Map.Immutable<Type, io.usethesource.capsule.Map.Immutable<String, Type>> keywordParameters) {
+            return new Declarations(aliases, adts, constructors, keywordParameters, imports);
+        }
+
+        private Declarations withImports(TypeStore[] imports) {
+            return new Declarations(aliases, adts, constructors, keywordParameters, imports);
+        }
+
+        private boolean imports(TypeStore store) {
+            for (TypeStore s : imports) {
+                if (s == store) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Lookups that merge the declarations of a store with those of its imports. A view is computed
+     * from fixed snapshots, and is only used as long as none of these snapshots has been replaced.
+     */
+    private static final class MergedView {
+        /** the snapshot of the store itself, followed by those of its imports */
+        private final Declarations[] sources;
+        private final TypeStore[] imports;
+
+        private final Map<Type, Set<Type>> alternatives = new ConcurrentHashMap<>();
+        private final Map<Type, Map<String, Set<Type>>> constructorsByAdt = new ConcurrentHashMap<>();
+        private final Map<Type, Map<String, Type>> keywordParameters = new ConcurrentHashMap<>();
+        private final Map<String, Candidates> candidates = new ConcurrentHashMap<>();
+        private volatile @Nullable Map<String, Set<Type>> constructorsByName;
+
+        private MergedView(TypeStore owner) {
+            Declarations own = owner.fDeclarations;
+            imports = importsOtherThan(owner, own);
+            sources = sources(own, imports);
+        }
+
+        private boolean isCurrent(TypeStore owner) {
+            return TypeStore.isCurrent(owner, sources, imports);
+        }
+
+        private Map<String, Set<Type>> constructorsByName() {
+            Map<String, Set<Type>> result = constructorsByName;
+
+            if (result == null) {
+                Map<String, Set<Type>> index = new HashMap<>();
+                for (Declarations d : sources) {
+                    for (Set<Type> alts : d.constructors.values()) {
+                        groupByName(index, alts);
+                    }
+                }
+                constructorsByName = result = unmodifiableValues(index);
+            }
+
+            return result;
+        }
+
+        private Candidates candidates(String name) {
+            return candidates.computeIfAbsent(name, n -> new Candidates(constructorsByName().getOrDefault(n, Collections.emptySet())));
+        }
+    }
+
+    /**
+     * The constructors with the same name, across all ADTs, indexed by arity. Each group is ordered such
+     * that a constructor comes before the constructors whose field types are super types of its own,
+     * so the first candidate that accepts some argument types is also the most specific one.
+     */
+    private static final class Candidates {
+        private static final Type[] NONE = new Type[0];
+
+        private final Type[] all;
+        private final Type[][] byArity;
+
+        private Candidates(Set<Type> constructors) {
+            all = mostSpecificFirst(constructors.toArray(NONE));
+
+            int maxArity = -1;
+            for (Type cons : all) {
+                maxArity = Math.max(maxArity, cons.getArity());
+            }
+
+            byArity = new Type[maxArity + 1][];
+            for (int arity = 0; arity <= maxArity; arity++) {
+                final int a = arity;
+                byArity[arity] = Arrays.stream(all).filter(c -> c.getArity() == a).toArray(Type[]::new);
+            }
+        }
+
+        /**
+         * @return the candidates which may accept the given argument types, in order
+         */
+        private Type[] get(Type args) {
+            if (!args.isTuple()) {
+                // void or an alias, which do not fix the arity
+                return all;
+            }
+
+            int arity = args.getArity();
+            return arity < byArity.length ? byArity[arity] : NONE;
+        }
+
+        private static Type[] mostSpecificFirst(Type[] constructors) {
+            // selection sort on the partial order, the groups are small
+            for (int i = 0; i < constructors.length; i++) {
+                for (int j = i + 1; j < constructors.length; j++) {
+                    Type current = constructors[i].getFieldTypes();
+                    Type other = constructors[j].getFieldTypes();
+                    if (other.isStrictSubtypeOf(current)) {
+                        Type tmp = constructors[i];
+                        constructors[i] = constructors[j];
+                        constructors[j] = tmp;
+                        j = i; // restart the scan for the new candidate at i
+                    }
+                }
+            }
+            return constructors;
+        }
+    }
+
     /**
     * A type store that is initially empty and imports the given TypeStores.
     * Note that imports are not transitive.
     */
     public TypeStore(TypeStore... imports) {
+        Declarations initial = Declarations.EMPTY;
         for (TypeStore s : imports) {
-            fImports.add(s);
+            if (!initial.imports(s)) {
+                initial = initial.withImports(append(initial.imports, s));
+            }
         }
+        fDeclarations = initial;
     }
 
     @Override
     public String toString() {
-        return "TypeStore(adts=" + fADTs.size() + ",imports=" + fImports.size() + ")";
+        Declarations d = fDeclarations;
+        return "TypeStore(adts=" + d.adts.size() + ",imports=" + d.imports.length + ")";
     }
 
     /**
@@ -77,7 +258,7 @@ public class TypeStore {
     * not return the ADT's of imported TypeStores.
     */
     public Collection<Type> getAbstractDataTypes() {
-        return Collections.unmodifiableCollection(fADTs.values());
+        return Collections.unmodifiableCollection(fDeclarations.adts.values());
     }
 
     /**
@@ -85,7 +266,7 @@ public class TypeStore {
     * not return the aliases of imported TypeStores.
     */
     public Collection<Type> getAliases() {
-        return Collections.unmodifiableCollection(fAliases.values());
+        return Collections.unmodifiableCollection(fDeclarations.aliases.values());
     }
 
     /**
@@ -96,11 +277,7 @@ public class TypeStore {
     * keyword parameters to the types of the values that give access to these keyword parameters.
     */
     public Map<Type, Map<String, Type>> getKeywordParameters() {
-        Map<Type, Map<String,Type>> unmodifiableMap = new HashMap<>();
-        for (Type key : fkeywordParameters.keySet()) {
-            unmodifiableMap.put(key, Collections.unmodifiableMap(fkeywordParameters.get(key)));
-        }
-        return unmodifiableMap;
+        return Collections.unmodifiableMap(fDeclarations.keywordParameters);
     }
 
     /**
@@ -109,7 +286,7 @@ public class TypeStore {
     */
     public Collection<Type> getConstructors() {
         Set<Type> result = new HashSet<>();
-        for (Set<Type> adt : fConstructors.values()) {
+        for (Set<Type> adt : fDeclarations.constructors.values()) {
             result.addAll(adt);
         }
         return Collections.unmodifiableCollection(result);
@@ -120,7 +297,7 @@ public class TypeStore {
     * not return the imports of imported TypeStores.
     */
     public Collection<TypeStore> getImports() {
-        return Collections.unmodifiableCollection(fImports);
+        return Collections.unmodifiableList(Arrays.asList(fDeclarations.imports));
     }
 
     /**
@@ -130,7 +307,7 @@ public class TypeStore {
     * @param stores
     */
     public void importStore(TypeStore... stores) {
-        synchronized(fImports) {
+        synchronized (fUpdateLock) {
             for (TypeStore s : stores) {
                 doImport(s);
             }
@@ -144,8 +321,15 @@ public class TypeStore {
     * @param stores to be removed
     */
     public final void unimportStores(TypeStore... stores) {
-        synchronized (fImports) {
-            fImports.removeAll(Arrays.asList(stores));
+        synchronized (fUpdateLock) {
+            Declarations d = fDeclarations;
+            TypeStore[] remaining = Arrays.stream(d.imports)
+                .filter(s -> Arrays.stream(stores).noneMatch(r -> r == s))
+                .toArray(TypeStore[]::new);
+
+            if (remaining.length != d.imports.length) {
+                fDeclarations = d.withImports(remaining);
+            }
         }
     }
 
@@ -153,50 +337,343 @@ public class TypeStore {
         checkOverlappingAliases(s);
         checkConstructorOverloading(s);
 
-        fImports.add(s);
+        Declarations d = fDeclarations;
+        if (!d.imports(s)) {
+            fDeclarations = d.withImports(append(d.imports, s));
+        }
     }
 
     /**
     * Blindly copy all declaration of the other store into the receiver.
     */
     public void extendStore(TypeStore other) {
-        synchronized (fAliases) {
-            fAliases.putAll(other.fAliases);
+        Declarations theirs = other.fDeclarations;
+
+        synchronized (fUpdateLock) {
+            Declarations d = fDeclarations;
+
+            io.usethesource.capsule.Map.Immutable<Type, io.usethesource.capsule.Set.Immutable<Type>> constructors = d.constructors;
+            for (Map.Entry<Type, io.usethesource.capsule.Set.Immutable<Type>> entry : theirs.constructors.entrySet()) {
+                io.usethesource.capsule.Set.Immutable<Type> mine = d.constructors.get(entry.getKey());
+                constructors = constructors.__put(entry.getKey(), mine != null ? mine.__insertAll(entry.getValue()) : entry.getValue());
+            }
+
+            TypeStore[] imports = d.imports;
+            for (TypeStore s : theirs.imports) {
+                if (!d.imports(s)) {
+                    imports = append(imports, s);
+                }
+            }
+
+            fDeclarations = new Declarations(d.aliases.__putAll(theirs.aliases), d.adts.__putAll(theirs.adts), constructors,
+                d.keywordParameters.__putAll(theirs.keywordParameters), imports);
         }
+    }
 
-        synchronized (fADTs) {
-            fADTs.putAll(other.fADTs);
+    /**
+    * Start collecting declarations to add them to this store at once, see {@link Batch}.
+    */
+    public Batch batch() {
+        return new Batch();
+    }
+
+    /**
+    * Collects declarations of abstract data-types, constructors, aliases and keyword parameters, to validate
+    * and publish them together with {@link #commit()}. This saves a new snapshot of the store per declaration,
+    * and checks the constructors of different data-types for overloading in parallel when there are many.
+    * <p>
+    * The types are constructed immediately, like {@link TypeFactory} does, but they are not declared before the
+    * commit. Either all declarations of a commit are published at once, or none of them are and the first
+    * problem is thrown; the same problems as those of the individual declarations.
+    * <p>
+    * A batch is not thread-safe, but different batches may be committed to the same store concurrently. A commit
+    * validates without holding the update lock of the store, and validates again if something else was declared
+    * in the meantime.
+    */
+    public final class Batch {
+        private static final int PARALLEL_THRESHOLD = 512;
+
+        private final List<Type> adts = new ArrayList<>();
+        private final List<Type> aliases = new ArrayList<>();
+        private final List<Type> constructors = new ArrayList<>();
+        private final List<KeywordParameter> keywordParameters = new ArrayList<>();
+
+        private Batch() { }
+
+        /**
+        * @see TypeFactory#abstractDataType(TypeStore, String, Type...)
+        */
+        public Type abstractDataType(String name, Type... parameters) throws FactTypeDeclarationException {
+            Type params = parameters.length == 0 ? factory.voidType() : factory.tupleType(parameters);
+            return factory.abstractDataTypeFromTuple(name, params, adts::add);
+        }
+
+        /**
+        * @see TypeFactory#constructor(TypeStore, Type, String, Object...)
+        */
+        public Type constructor(Type adt, String name, Object... childrenAndLabels) throws FactTypeDeclarationException {
+            return constructorFromTuple(adt, name, factory.tupleType(childrenAndLabels));
+        }
+
+        /**
+        * @see TypeFactory#constructor(TypeStore, Type, String, Type...)
+        */
+        public Type constructor(Type adt, String name, Type... children) throws FactTypeDeclarationException {
+            return constructorFromTuple(adt, name, factory.tupleType(children));
+        }
+
+        /**
+        * @see TypeFactory#constructorFromTuple(TypeStore, Type, String, Type)
+        */
+        public Type constructorFromTuple(Type adt, String name, Type tupleType) throws FactTypeDeclarationException {
+            return factory.constructorFromTuple(adt, name, tupleType, constructors::add);
+        }
+
+        /**
+        * @see TypeFactory#aliasType(TypeStore, String, Type, Type...)
+        */
+        public Type aliasType(String name, Type aliased, Type... parameters) throws FactTypeDeclarationException {
+            Type params = parameters.length == 0 ? factory.voidType() : factory.tupleType(parameters);
+            return factory.aliasTypeFromTuple(name, aliased, params, aliases::add);
+        }
+
+        /**
+        * @see TypeStore#declareAbstractDataType(Type)
+        */
+        public void declareAbstractDataType(Type adt) {
+            adts.add(adt);
         }
 
-        synchronized (fConstructors) {
-            for (Type type : other.fConstructors.keySet()) {
-                Set<Type> set = fConstructors.get(type);
+        /**
+        * @see TypeStore#declareConstructor(Type)
+        */
+        public void declareConstructor(Type constructor) {
+            constructors.add(constructor);
+        }
+
+        /**
+        * @see TypeStore#declareAlias(Type)
+        */
+        public void declareAlias(Type alias) {
+            aliases.add(alias);
+        }
 
-                if (set == null) {
-                    set = new HashSet<>();
+        /**
+        * @see TypeStore#declareKeywordParameter(Type, String, Type)
+        */
+        public void declareKeywordParameter(Type onType, String key, Type valueType) {
+            if (!onType.isConstructor() && !onType.isAbstractData()) {
+                throw new IllegalKeywordParameterDeclarationException(onType);
+            }
+
+            if (!factory.isIdentifier(key)) {
+                throw new IllegalIdentifierException(key);
+            }
+
+            keywordParameters.add(new KeywordParameter(expandAliases(onType), key, valueType));
+        }
+
+        /**
+        * Validate all collected declarations against the store, its imports and each other, and publish
+        * them in a single new snapshot. After a successful commit the batch is empty and can be used again.
+        *
+        * @throws FactTypeDeclarationException if any of the declarations is invalid, then nothing is declared
+        */
+        public void commit() throws FactTypeDeclarationException {
+            if (adts.isEmpty() && aliases.isEmpty() && constructors.isEmpty() && keywordParameters.isEmpty()) {
+                return;
+            }
+
+            while (true) {
+                Declarations d = fDeclarations;
+                TypeStore[] imports = importsOtherThan(TypeStore.this, d);
+                Declarations[] read = sources(d, imports);
+                // the staged snapshot replaces the first source after every declaration
+                Declarations[] sources = read.clone();
+
+                // validation only reads snapshots, so it does not hold the lock
+                for (Type adt : adts) {
+                    stageAbstractDataType(sources, adt);
+                }
+
+                for (Type alias : aliases) {
+                    stageAlias(sources, alias);
+                }
+
+                stageConstructors(sources);
+
+                for (KeywordParameter kw : keywordParameters) {
+                    stageKeywordParameter(sources, kw);
+                }
+
+                synchronized (fUpdateLock) {
+                    if (isCurrent(TypeStore.this, read, imports)) {
+                        fDeclarations = sources[0];
+                        break;
+                    }
+                }
+                // something was declared meanwhile, so validate against the new snapshots
+            }
+
+            adts.clear();
+            aliases.clear();
+            constructors.clear();
+            keywordParameters.clear();
+        }
+
+        private void stageAbstractDataType(Declarations[] sources, Type adt) {
+            String name = adt.getName();
+            Type oldAdt = lookup(sources, name, true);
+
+            if (oldAdt != null) {
+                if (adt.comparable(oldAdt) || oldAdt.isExternalType()) {
+                    return;
+                }
+                throw new FactTypeRedeclaredException(name, oldAdt);
+            }
+
+            Type oldAlias = lookup(sources, name, false);
+            if (oldAlias != null) {
+                throw new FactTypeRedeclaredException(name, oldAlias);
+            }
+
+            Declarations staged = sources[0];
+            sources[0] = staged.withAdts(staged.adts.__put(name, adt),
+                staged.constructors.containsKey(adt) ? staged.constructors : staged.constructors.__put(adt, io.usethesource.capsule.Set.Immutable.of()));
+        }
+
+        private void stageAlias(Declarations[] sources, Type alias) {
+            String name = alias.getName();
+            Type oldAdt = lookup(sources, name, true);
+            if (oldAdt != null) {
+                throw new FactTypeRedeclaredException(name, oldAdt);
+            }
+
+            Type oldAlias = lookup(sources, name, false);
+            if (oldAlias != null) {
+                if (oldAlias == alias || (!alias.isOpen() && alias.isSubtypeOf(oldAlias))) {
+                    return;
+                }
+                throw new FactTypeRedeclaredException(name, oldAlias);
+            }
+
+            sources[0] = sources[0].withAliases(sources[0].aliases.__put(name, alias));
+        }
+
+        /**
+        * Constructors of different data-types are checked independently, so when there are many these checks run
+        * in parallel. They only read the staged declarations, which are updated afterwards, and run before the
+        * commit takes the update lock.
+        */
+        private void stageConstructors(Declarations[] sources) {
+            Map<Type, List<Type>> byAdt = new LinkedHashMap<>();
+            for (Type constructor : constructors) {
+                Type adt = constructor.getAbstractDataType();
+                if (lookup(sources, adt.getName(), true) == null) {
+                    throw new UndeclaredAbstractDataTypeException(adt);
+                }
+                byAdt.computeIfAbsent(adt, a -> new ArrayList<>()).add(constructor);
+            }
+
+            Stream<Map.Entry<Type, List<Type>>> groups = byAdt.entrySet().stream();
+            if (byAdt.size() > 1 && constructors.size() >= PARALLEL_THRESHOLD) {
+                groups = groups.parallel();
+            }
+
+            List<List<Type>> checked = groups
+                .map(group -> checkConstructors(sources, group.getKey(), group.getValue()))
+                .collect(Collectors.toList());
+
+            Declarations staged = sources[0];
+            io.usethesource.capsule.Map.Immutable<String, Type> adts = staged.adts;
+            io.usethesource.capsule.Map.Immutable<Type, io.usethesource.capsule.Set.Immutable<Type>> signatures = staged.constructors;
+            int i = 0;
+            for (Type adt : byAdt.keySet()) {
+                io.usethesource.capsule.Set.Immutable<Type> localSignature = signatures.get(adt);
+                if (localSignature == null) {
+                    localSignature = io.usethesource.capsule.Set.Immutable.of();
+                    if (!adts.containsKey(adt.getName())) {
+                        adts = adts.__put(adt.getName(), adt);
+                    }
+                }
+
+                for (Type constructor : checked.get(i++)) {
+                    localSignature = localSignature.__insert(constructor);
                 }
+                signatures = signatures.__put(adt, localSignature);
+            }
+            sources[0] = staged.withAdts(adts, signatures);
+        }
 
-                set.addAll(other.fConstructors.get(type));
-                fConstructors.put(type, set);
+        private List<Type> checkConstructors(Declarations[] sources, Type adt, List<Type> group) {
+            Set<Type> signature = new HashSet<>(alternatives(sources, dealias(adt)));
+            List<Type> result = new ArrayList<>(group.size());
+
+            for (Type constructor : group) {
+                constructor = expandAliases(constructor);
+
+                if (!IGNORE_OVERLOADING_CHECKS.contains(adt.getName())) {
+                    checkOverloading(signature, constructor.getName(), constructor.getFieldTypes());
+                    try {
+                        checkFieldNames(signature, constructor.getFieldTypes());
+                    }
+                    catch (RedeclaredFieldNameException e) {
+                        throw new RedeclaredFieldNameException(e.getFieldName(), e.getFirstType(), e.getSecondType(), adt);
+                    }
+                }
+
+                signature.add(constructor);
+                result.add(constructor);
             }
+
+            return result;
         }
 
-        synchronized (fkeywordParameters) {
-            fkeywordParameters.putAll(other.fkeywordParameters);
+        private void stageKeywordParameter(Declarations[] sources, KeywordParameter kw) {
+            Map<String, Type> declaredEarlier = keywordParameters(sources, kw.onType);
+            Type earlier = declaredEarlier.get(kw.key);
+
+            if (earlier == null) {
+                sources[0] = withKeywordParameter(sources[0], kw.onType, kw.key, kw.valueType);
+            }
+            else if (!earlier.equivalent(kw.valueType)) {
+                throw new RedeclaredKeywordParameterException(kw.key, earlier);
+            }
         }
 
-        synchronized (fImports) {
-            fImports.addAll(other.fImports);
+        private @Nullable Type lookup(Declarations[] sources, String name, boolean adt) {
+            for (Declarations d : sources) {
+                Type result = adt ? d.adts.get(name) : d.aliases.get(name);
+                if (result != null) {
+                    return result;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class KeywordParameter {
+        private final Type onType;
+        private final String key;
+        private final Type valueType;
+
+        private KeywordParameter(Type onType, String key, Type valueType) {
+            this.onType = onType;
+            this.key = key;
+            this.valueType = valueType;
         }
     }
 
     private void checkConstructorOverloading(TypeStore s) {
-        for (Type type : fADTs.values()) {
+        Declarations mine = fDeclarations;
+        Declarations theirs = s.fDeclarations;
+
+        for (Type type : mine.adts.values()) {
             if(IGNORE_OVERLOADING_CHECKS.contains(type.getName())) { continue; }
-            Type other = s.fADTs.get(type.getName());
+            Type other = theirs.adts.get(type.getName());
             if (other != null && other == type) {
-                Set<Type> signature1 = fConstructors.get(type);
-                Set<Type> signature2 = s.fConstructors.get(type);
+                Set<Type> signature1 = mine.constructors.get(type);
+                Set<Type> signature2 = theirs.constructors.get(type);
 
                 if (signature2 == null || signature1 == null) {
                     continue; // nothing to check
@@ -220,12 +697,12 @@ public class TypeStore {
     }
 
     private void checkOverlappingAliases(TypeStore s) {
-        synchronized (fAliases) {
-            for (Type alias : fAliases.values()) {
-                Type other = s.fAliases.get(alias.getName());
-                if (other != null && !other.comparable(alias)) {
-                    throw new FactTypeRedeclaredException(alias.getName(), other);
-                }
+        Map<String, Type> theirs = s.fDeclarations.aliases;
+
+        for (Type alias : fDeclarations.aliases.values()) {
+            Type other = theirs.get(alias.getName());
+            if (other != null && !other.comparable(alias)) {
+                throw new FactTypeRedeclaredException(alias.getName(), other);
             }
         }
     }
@@ -245,26 +722,25 @@ public class TypeStore {
     * @throws FactTypeRedeclaredException
     */
     public void declareAlias(Type alias) throws FactTypeDeclarationException {
-        synchronized (fADTs) {
-            synchronized (fAliases) {
-                String name = alias.getName();
-                Type oldAdt = lookupAbstractDataType(name);
-                if (oldAdt != null) {
-                    throw new FactTypeRedeclaredException(name, oldAdt);
-                }
+        synchronized (fUpdateLock) {
+            String name = alias.getName();
+            Type oldAdt = lookupAbstractDataType(name);
+            if (oldAdt != null) {
+                throw new FactTypeRedeclaredException(name, oldAdt);
+            }
 
-                Type oldAlias = lookupAlias(name);
+            Type oldAlias = lookupAlias(name);
 
-                if (oldAlias != null) {
-                    if (oldAlias == alias || (!alias.isOpen() && alias.isSubtypeOf(oldAlias))) {
-                        // instantiating can be ignored.
-                        return;
-                    }
-                    throw new FactTypeRedeclaredException(name, oldAlias);
+            if (oldAlias != null) {
+                if (oldAlias == alias || (!alias.isOpen() && alias.isSubtypeOf(oldAlias))) {
+                    // instantiating can be ignored.
+                    return;
                 }
-
-                fAliases.put(name, alias);
+                throw new FactTypeRedeclaredException(name, oldAlias);
             }
+
+            Declarations d = fDeclarations;
+            fDeclarations = d.withAliases(d.aliases.__put(name, alias));
         }
     }
 
@@ -278,32 +754,26 @@ public class TypeStore {
     */
     public void declareAbstractDataType(Type adt)
         throws FactTypeDeclarationException {
-        synchronized (fADTs) {
-            synchronized (fAliases) {
-                synchronized (fConstructors) {
-                    String name = adt.getName();
-                    Type oldAdt = lookupAbstractDataType(name);
-
-                    if (oldAdt != null) {
-                        if (adt.comparable(oldAdt) || oldAdt.isExternalType()) {
-                            return; // paramaterized ADT got instantiated, or a double declaration, so don't store.
-                        }
+        synchronized (fUpdateLock) {
+            String name = adt.getName();
+            Type oldAdt = lookupAbstractDataType(name);
 
-                        throw new FactTypeRedeclaredException(name, oldAdt);
-                    }
-
-                    Type oldAlias = lookupAlias(name);
-                    if (oldAlias != null) {
-                        throw new FactTypeRedeclaredException(name, oldAlias);
-                    }
+            if (oldAdt != null) {
+                if (adt.comparable(oldAdt) || oldAdt.isExternalType()) {
+                    return; // paramaterized ADT got instantiated, or a double declaration, so don't store.
+                }
 
-                    fADTs.put(name, adt);
+                throw new FactTypeRedeclaredException(name, oldAdt);
+            }
 
-                    if (fConstructors.get(adt) == null) {
-                        fConstructors.put(adt, new HashSet<Type>());
-                    }
-                }
+            Type oldAlias = lookupAlias(name);
+            if (oldAlias != null) {
+                throw new FactTypeRedeclaredException(name, oldAlias);
             }
+
+            Declarations d = fDeclarations;
+            fDeclarations = d.withAdts(d.adts.__put(name, adt),
+                d.constructors.containsKey(adt) ? d.constructors : d.constructors.__put(adt, io.usethesource.capsule.Set.Immutable.of()));
         }
     }
 
@@ -315,48 +785,43 @@ public class TypeStore {
     * @throws UndeclaredAbstractDataTypeException, RedeclaredFieldNameException, RedeclaredConstructorException
     */
     public void declareConstructor(Type constructor) throws FactTypeDeclarationException {
-        synchronized (fADTs) {
-            synchronized(fConstructors) {
-                Type adt = constructor.getAbstractDataType();
+        synchronized (fUpdateLock) {
+            Type adt = constructor.getAbstractDataType();
 
-                Type other = lookupAbstractDataType(adt.getName());
-                if (other == null) {
-                    throw new UndeclaredAbstractDataTypeException(adt);
-                }
+            Type other = lookupAbstractDataType(adt.getName());
+            if (other == null) {
+                throw new UndeclaredAbstractDataTypeException(adt);
+            }
 
-                Set<Type> signature = lookupAlternatives(adt);
-                if (signature == null) {
-                    throw new UndeclaredAbstractDataTypeException(adt);
-                }
+            Declarations d = fDeclarations;
+            Set<Type> signature = alternatives(sources(d, importsOtherThan(this, d)), dealias(adt));
 
-                Type constructor1 = expandAliases(constructor);
-                if(!constructor.equals(constructor1)){
-                    constructor = constructor1;
+            Type constructor1 = expandAliases(constructor);
+            if(!constructor.equals(constructor1)){
+                constructor = constructor1;
+            }
+            if(!IGNORE_OVERLOADING_CHECKS.contains(adt.getName())){
+                checkOverloading(signature, constructor.getName(), constructor.getFieldTypes());
+                try {
+                    checkFieldNames(signature, constructor.getFieldTypes());
                 }
-                if(!IGNORE_OVERLOADING_CHECKS.contains(adt.getName())){
-                    checkOverloading(signature, constructor.getName(), constructor.getFieldTypes());
-                    try {
-                        checkFieldNames(signature, constructor.getFieldTypes());
-                    }
-                    catch (RedeclaredFieldNameException e) {
-                        throw new RedeclaredFieldNameException(e.getFieldName(),
-                        e.getFirstType(), e.getSecondType(),
-                        adt);
-                    }
+                catch (RedeclaredFieldNameException e) {
+                    throw new RedeclaredFieldNameException(e.getFieldName(),
+                    e.getFirstType(), e.getSecondType(),
+                    adt);
                 }
+            }
 
-                Set<Type> localSignature = fConstructors.get(adt);
-                if (localSignature == null) {
-                    localSignature = new HashSet<>();
-                    fConstructors.put(adt, localSignature);
-
-                    if (!fADTs.containsKey(adt.getName())) {
-                        fADTs.put(adt.getName(), adt);
-                    }
+            io.usethesource.capsule.Map.Immutable<String, Type> adts = d.adts;
+            io.usethesource.capsule.Set.Immutable<Type> localSignature = d.constructors.get(adt);
+            if (localSignature == null) {
+                localSignature = io.usethesource.capsule.Set.Immutable.of();
+                if (!adts.containsKey(adt.getName())) {
+                    adts = adts.__put(adt.getName(), adt);
                 }
-
-                localSignature.add(constructor);
             }
+
+            fDeclarations = d.withAdts(adts, d.constructors.__put(adt, localSignature.__insert(constructor)));
         }
     }
 
@@ -402,96 +867,42 @@ public class TypeStore {
     * @return the AliasType
     */
     public @Nullable Type lookupAlias(final String name) {
-        synchronized (fAliases) {
-            synchronized (fImports) {
-                Type result = fAliases.get(name);
-
-                if (result == null) {
-                    for (TypeStore i : fImports) {
-                        result = i.fAliases.get(name);
-                        if (result != null) {
-                            return result;
-                        }
-                    }
-                }
+        Declarations d = fDeclarations;
+        Type result = d.aliases.get(name);
 
-                return result;
+        if (result == null) {
+            for (TypeStore i : d.imports) {
+                result = i.fDeclarations.aliases.get(name);
+                if (result != null) {
+                    return result;
+                }
             }
         }
+
+        return result;
     }
 
     /**
     * Returns all alternative ways of constructing a certain abstract data type.
     *
     * @param adt
-    * @return all types that construct the given type
+    * @return all types that construct the given type, as an unmodifiable set
     */
     public Set<Type> lookupAlternatives(Type adt) {
-        synchronized (fConstructors) {
-            synchronized (fImports) {
-                while (adt.isAliased()) {
-                    adt = adt.getAliased();
-                }
-
-                Set<Type> result = fConstructors.get(adt);
-
-                if (result == null) {
-                    result = new HashSet<>();
-                }
-
-                for (TypeStore s : fImports) {
-                    if (s != this) {
-                        Set<Type> imported = s.fConstructors.get(adt);
-                        if (imported != null) {
-                            result.addAll(imported);
-                        }
-                    }
-                }
-
-                return result;
-            }
-        }
+        MergedView view = view();
+        return view.alternatives.computeIfAbsent(dealias(adt), a -> alternatives(view.sources, a));
     }
 
     /**
     * Lookup a ConstructorType by name, and in the context of a certain AbstractDataType
     * @param adt             the AbstractDataType context
     * @param constructorName  the name of the ConstructorType
-    * @return a ConstructorType if it was declared before
-    * @throws a FactTypeError if the type was not declared before
+    * @return an unmodifiable set of the ConstructorTypes with this name, empty if none were declared before
     */
     public Set<Type> lookupConstructor(Type adt, String constructorName) throws FactTypeUseException {
-        synchronized (fConstructors) {
-            synchronized (fImports) {
-                while (adt.isAliased()) {
-                    adt = adt.getAliased();
-                }
-                Type parameterizedADT = fADTs.get(adt.getName());
-                Set<Type> local = parameterizedADT != null ? fConstructors.get(parameterizedADT) : null;
-                Set<Type> result = new HashSet<>();
-
-                if (local != null) {
-                    for (Type cand : local) {
-                        if (cand.getName().equals(constructorName)) {
-                            result.add(cand);
-                        }
-                    }
-                }
-
-                for (TypeStore i : fImports) {
-                    local = i.fConstructors.get(adt);
-                    if (local != null) {
-                        for (Type cand : local) {
-                            if (cand.getName().equals(constructorName)) {
-                                result.add(cand);
-                            }
-                        }
-                    }
-                }
-
-                return result;
-            }
-        }
+        MergedView view = view();
+        Map<String, Set<Type>> byName = view.constructorsByAdt.computeIfAbsent(dealias(adt), a -> constructorsByName(view.sources, a));
+        return byName.getOrDefault(constructorName, Collections.emptySet());
     }
 
     /**
@@ -500,15 +911,12 @@ public class TypeStore {
     *
     * @param constructorName  the name of the ConstructorType
     * @param args a tuple type defining the arguments of the constructor
-    * @return the first constructor that matches
+    * @return the first constructor that matches, which is the most specific one if there are several
     * @throws a FactTypeError if the type was not declared before
     */
     public @Nullable Type lookupFirstConstructor(final String cons, final Type args) {
-        Collection<Type> adts = allAbstractDataTypes();
-
-        for (Type adt : adts) {
-            Type cand = lookupConstructor(adt, cons, args);
-            if (cand != null) {
+        for (Type cand : view().candidates(cons).get(args)) {
+            if (args.isSubtypeOf(cand.getFieldTypes())) {
                 return cand;
             }
         }
@@ -516,21 +924,6 @@ public class TypeStore {
         return null;
     }
 
-    private Set<Type> allAbstractDataTypes() {
-        synchronized (fADTs) {
-            synchronized (fImports) {
-                Set<Type> result = new HashSet<>();
-                result.addAll(fADTs.values());
-
-                for (TypeStore s : fImports) {
-                    result.addAll(s.fADTs.values());
-                }
-
-                return result;
-            }
-        }
-    }
-
     /**
     * Lookup a ConstructorType by name, and in the context of a certain AbstractDataType
     * for a specific list of argument types.
@@ -559,37 +952,10 @@ public class TypeStore {
     * regardless of abstract data-type.
     *
     * @param constructName the name of the tree node
+    * @return an unmodifiable set of constructor types
     */
     public Set<Type> lookupConstructors(String constructorName) {
-        synchronized (fConstructors) {
-            synchronized (fImports) {
-                Set<Type> result = new HashSet<>();
-
-                for (Set<Type> adt : fConstructors.values()) {
-                    for (Type cand : adt) {
-                        String name = cand.getName();
-                        if (name.equals(constructorName)) {
-                            result.add(cand);
-                        }
-                    }
-                }
-
-                for (TypeStore i : fImports) {
-                    if (i != this) {
-                        for (Set<Type> adt : i.fConstructors.values()) {
-                            for (Type cand : adt) {
-                                String name = cand.getName();
-                                if (name.equals(constructorName)) {
-                                    result.add(cand);
-                                }
-                            }
-                        }
-                    }
-                }
-
-                return result;
-            }
-        }
+        return view().constructorsByName().getOrDefault(constructorName, Collections.emptySet());
     }
 
     /**
@@ -598,25 +964,21 @@ public class TypeStore {
     * @return null if such type does not exist, or the type if it was declared earlier
     */
     public @Nullable Type lookupAbstractDataType(String name) {
-        synchronized (fADTs) {
-            synchronized (fImports) {
-
-                Type result = fADTs.get(name);
+        Declarations d = fDeclarations;
+        Type result = d.adts.get(name);
 
-                if (result != null) {
-                    return result;
-                }
-
-                for (TypeStore s : fImports) {
-                    result = s.fADTs.get(name);
-                    if (result != null) {
-                        return result;
-                    }
-                }
+        if (result != null) {
+            return result;
+        }
 
+        for (TypeStore s : d.imports) {
+            result = s.fDeclarations.adts.get(name);
+            if (result != null) {
                 return result;
             }
         }
+
+        return result;
     }
 
     /**
@@ -638,22 +1000,16 @@ public class TypeStore {
 
         onType = expandAliases(onType);
 
-        synchronized (fkeywordParameters) {
-            Map<String, Type> kwParamsForType = fkeywordParameters.get(onType);
-
-            if (!factory.isIdentifier(key)) {
-                throw new IllegalIdentifierException(key);
-            }
-
-            if (kwParamsForType == null) {
-                kwParamsForType = new HashMap<>();
-                fkeywordParameters.put(onType, kwParamsForType);
-            }
+        if (!factory.isIdentifier(key)) {
+            throw new IllegalIdentifierException(key);
+        }
 
-            Map<String, Type> declaredEarlier = getKeywordParameters(onType);
+        synchronized (fUpdateLock) {
+            Declarations d = fDeclarations;
+            Map<String, Type> declaredEarlier = keywordParameters(sources(d, importsOtherThan(this, d)), onType);
 
             if (!declaredEarlier.containsKey(key)) {
-                kwParamsForType.put(key, valueType);
+                fDeclarations = withKeywordParameter(d, onType, key, valueType);
             }
             else if (!declaredEarlier.get(key).equivalent(valueType)) {
                 throw new RedeclaredKeywordParameterException(key, declaredEarlier.get(key));
@@ -823,51 +1179,16 @@ public class TypeStore {
     * Locates all declared keyword parameters for a constructor.
     *
     * @param onType
-    * @return a map of all keyword parameters declared for the onType constructor
+    * @return an unmodifiable map of all keyword parameters declared for the onType constructor
     */
     public Map<String, Type> getKeywordParameters(Type onType) {
         if (!onType.isConstructor() && !onType.isAbstractData()) {
             return Collections.<String,Type>emptyMap();
         }
 
-        onType = expandAliases(onType);
-
-        synchronized(fkeywordParameters) {
-            synchronized (fImports) {
-                Map<String, Type> result = new HashMap<>();
-
-                Map<String, Type> local = fkeywordParameters.get(onType);
-                if (local != null) {
-                    result.putAll(local);
-                }
-
-                if (onType.isConstructor()) {
-                    local = fkeywordParameters.get(onType.getAbstractDataType());
-                    if (local != null) {
-                        result.putAll(local);
-                    }
-                }
-
-                for (TypeStore s : fImports) {
-                    if (s.fkeywordParameters == null) {
-                        continue;
-                    }
-                    Map<String, Type> here = s.fkeywordParameters.get(onType);
-                    if (here != null) {
-                        result.putAll(here);
-                    }
-
-                    if (onType.isConstructor()) {
-                        here = s.fkeywordParameters.get(onType.getAbstractDataType());
-                        if (here != null) {
-                            result.putAll(here);
-                        }
-                    }
-                }
-
-                return result;
-            }
-        }
+        MergedView view = view();
+        // keyed on the type before alias expansion, which saves expanding it again on every lookup
+        return view.keywordParameters.computeIfAbsent(onType, t -> keywordParameters(view.sources, expandAliases(t)));
     }
 
     /**
@@ -888,27 +1209,20 @@ public class TypeStore {
             return false;
         }
 
-        synchronized(fkeywordParameters) {
-            synchronized (fImports) {
-                Map<String, Type> local = fkeywordParameters.get(onType);
-                if (local != null && local.size() > 0) {
-                    return true;
-                }
-
-                for (TypeStore s : fImports) {
-                    if (s.fkeywordParameters == null) {
-                        continue;
-                    }
-
-                    Map<String, Type> here = s.fkeywordParameters.get(onType);
-                    if (here != null && here.size() > 0) {
-                        return true;
-                    }
-                }
+        Declarations d = fDeclarations;
+        Map<String, Type> local = d.keywordParameters.get(onType);
+        if (local != null && local.size() > 0) {
+            return true;
+        }
 
-                return false;
+        for (TypeStore s : d.imports) {
+            Map<String, Type> here = s.fDeclarations.keywordParameters.get(onType);
+            if (here != null && here.size() > 0) {
+                return true;
             }
         }
+
+        return false;
     }
 
     public boolean hasKeywordParameter(Type onType, String label) {
@@ -916,59 +1230,155 @@ public class TypeStore {
             return false;
         }
 
-        onType = expandAliases(onType);
+        return getKeywordParameters(onType).containsKey(label);
+    }
 
-        synchronized(fkeywordParameters) {
-            synchronized (fImports) {
-                Map<String, Type> local = fkeywordParameters.get(onType);
-                if (local != null && local.containsKey(label)) {
-                    return true;
-                }
+    public @Nullable Type getAlias(String name) {
+        return lookupAlias(name);
+    }
 
-                local = fkeywordParameters.get(onType.getAbstractDataType());
-                if (local != null && local.containsKey(label)) {
-                    return true;
-                }
+    /**
+     * @return the merged view for the current snapshots of this store and its imports
+     */
+    private MergedView view() {
+        MergedView view = fView;
+
+        if (view == null || !view.isCurrent(this)) {
+            // racing threads may both compute a fresh view, which is harmless
+            view = new MergedView(this);
+            fView = view;
+        }
 
-                for (TypeStore s : fImports) {
-                    if (s.fkeywordParameters == null) {
-                        continue;
-                    }
+        return view;
+    }
 
-                    Map<String, Type> here = s.fkeywordParameters.get(onType);
-                    if (here != null && here.containsKey(label)) {
-                        return true;
-                    }
+    /**
+     * @return the current snapshots of this store and its imports; two stores with the same snapshots, compared
+     * element-wise by reference, have the same declarations. Used by {@link ReifiedTypeCache} as a version.
+     */
+    /*package*/ Object[] snapshots() {
+        Declarations own = fDeclarations;
+        return sources(own, importsOtherThan(this, own));
+    }
 
-                    here = s.fkeywordParameters.get(onType.getAbstractDataType());
-                    if (here != null && here.containsKey(label)) {
-                        return true;
-                    }
-                }
+    /**
+     * @return true if none of the snapshots, as returned by {@link #sources(Declarations, TypeStore[])} for the
+     * owner and these imports, has been replaced since
+     */
+    private static boolean isCurrent(TypeStore owner, Declarations[] sources, TypeStore[] imports) {
+        if (sources[0] != owner.fDeclarations) {
+            // a new snapshot may also import different stores
+            return false;
+        }
 
+        for (int i = 0; i < imports.length; i++) {
+            if (sources[i + 1] != imports[i].fDeclarations) {
                 return false;
             }
         }
+
+        return true;
     }
 
-    public @Nullable Type getAlias(String name) {
-        synchronized (fAliases) {
-            synchronized (fImports) {
-                Type result = fAliases.get(name);
+    private static TypeStore[] importsOtherThan(TypeStore owner, Declarations own) {
+        if (!own.imports(owner)) {
+            return own.imports;
+        }
 
-                if (result != null) {
-                    return result;
-                }
+        return Arrays.stream(own.imports).filter(s -> s != owner).toArray(TypeStore[]::new);
+    }
 
-                for (TypeStore s : fImports) {
-                    result = s.fAliases.get(name);
-                    if (result != null) {
-                        return result;
-                    }
-                }
+    private static Declarations[] sources(Declarations own, TypeStore[] imports) {
+        Declarations[] result = new Declarations[imports.length + 1];
+        result[0] = own;
+        for (int i = 0; i < imports.length; i++) {
+            result[i + 1] = imports[i].fDeclarations;
+        }
+        return result;
+    }
 
-                return null;
+    private static Set<Type> alternatives(Declarations[] sources, Type adt) {
+        Set<Type> result = new HashSet<>();
+
+        for (Declarations d : sources) {
+            Set<Type> here = d.constructors.get(adt);
+            if (here != null) {
+                result.addAll(here);
             }
         }
+
+        return Collections.unmodifiableSet(result);
+    }
+
+    private static Map<String, Set<Type>> constructorsByName(Declarations[] sources, Type adt) {
+        Map<String, Set<Type>> result = new HashMap<>();
+
+        // locally the ADT is found by name, to find the constructors of the parameterized declaration
+        Type parameterizedADT = sources[0].adts.get(adt.getName());
+        Set<Type> local = parameterizedADT != null ? sources[0].constructors.get(parameterizedADT) : null;
+        if (local != null) {
+            groupByName(result, local);
+        }
+
+        for (int i = 1; i < sources.length; i++) {
+            Set<Type> imported = sources[i].constructors.get(adt);
+            if (imported != null) {
+                groupByName(result, imported);
+            }
+        }
+
+        return unmodifiableValues(result);
+    }
+
+    private static Map<String, Type> keywordParameters(Declarations[] sources, Type onType) {
+        Map<String, Type> result = new HashMap<>();
+
+        for (Declarations d : sources) {
+            Map<String, Type> here = d.keywordParameters.get(onType);
+            if (here != null) {
+                result.putAll(here);
+            }
+
+            if (onType.isConstructor()) {
+                here = d.keywordParameters.get(onType.getAbstractDataType());
+                if (here != null) {
+                    result.putAll(here);
+                }
+            }
+        }
+
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static void groupByName(Map<String, Set<Type>> index, Set<Type> constructors) {
+        for (Type cand : constructors) {
+            index.computeIfAbsent(cand.getName(), n -> new HashSet<>()).add(cand);
+        }
+    }
+
+    private static Map<String, Set<Type>> unmodifiableValues(Map<String, Set<Type>> map) {
+        for (Map.Entry<String, Set<Type>> entry : map.entrySet()) {
+            entry.setValue(Collections.unmodifiableSet(entry.getValue()));
+        }
+        return map;
+    }
+
+    private static Type dealias(Type type) {
+        while (type.isAliased()) {
+            type = type.getAliased();
+        }
+        return type;
+    }
+
+    private static Declarations withKeywordParameter(Declarations d, Type onType, String key, Type valueType) {
+        io.usethesource.capsule.Map.Immutable<String, Type> kwParamsForType = d.keywordParameters.get(onType);
+        kwParamsForType = (kwParamsForType != null ? kwParamsForType : io.usethesource.capsule.Map.Immutable.<String, Type>of()).__put(key, valueType);
+        return d.withKeywordParameters(d.keywordParameters.__put(onType, kwParamsForType));
+    }
+
+    private static TypeStore[] append(TypeStore[] stores, TypeStore store) {
+        TypeStore[] result = Arrays.copyOf(stores, stores.length + 1);
+        result[stores.length] = store;
+        return result;
     }
 }
@@ -0,0 +1,250 @@
+/**
+ * Copyright (c) 2026, Centrum Wiskunde & Informatica (CWI)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package io.usethesource.vallang.util;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import io.usethesource.vallang.IList;
+import io.usethesource.vallang.IListWriter;
+import io.usethesource.vallang.ISourceLocation;
+import io.usethesource.vallang.IValueFactory;
+
+/**
+ * <p>
+ * A table of positions into a single file, such as all the locations of a parse tree. The offsets, lengths, lines and
+ * columns of all entries are packed into one int array, so an entry costs 8 or 24 bytes, without an object header or
+ * a reference to the file of its own.
+ * </p>
+ * <p>
+ * The table hands out the usual {@link ISourceLocation} values of its factory, which are created on demand and not
+ * retained: {@link #get(int)} returns a value equal to what {@link IValueFactory#sourceLocation(ISourceLocation, int, int, int, int, int, int)}
+ * returns for the same arguments. Code that only needs the positions can read them directly, without creating any
+ * location at all.
+ * </p>
+ * <p>
+ * Either all entries of a table have lines and columns, or none of them has. A table is not thread-safe while it is
+ * being filled.
+ * </p>
+ */
+public final class SourceLocationTable implements Iterable<ISourceLocation> {
+    private static final int OFFSET = 0;
+    private static final int LENGTH = 1;
+    private static final int BEGIN_LINE = 2;
+    private static final int END_LINE = 3;
+    private static final int BEGIN_COLUMN = 4;
+    private static final int END_COLUMN = 5;
+
+    private final IValueFactory vf;
+    private final ISourceLocation file;
+    private final int stride;
+    private int[] positions;
+    private int size;
+
+    /**
+     * @param vf          the factory that creates the locations handed out by the table
+     * @param file        the location of the file, the positions of the given location are ignored
+     * @param lineColumns whether the entries have lines and columns, next to offsets and lengths
+     */
+    public SourceLocationTable(IValueFactory vf, ISourceLocation file, boolean lineColumns) {
+        this(vf, file, lineColumns, 16);
+    }
+
+    public SourceLocationTable(IValueFactory vf, ISourceLocation file, boolean lineColumns, int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity should be positive");
+        }
+
+        this.vf = vf;
+        this.file = file.top();
+        this.stride = lineColumns ? 6 : 2;
+        this.positions = new int[Math.max(1, initialCapacity) * stride];
+    }
+
+    /**
+     * Adds an entry with an offset and a length only
+     * @return the index of the new entry
+     */
+    public int add(int offset, int length) {
+        if (stride != 2) {
+            throw new IllegalArgumentException("the entries of this table need lines and columns");
+        }
+        checkOffsetLength(offset, length);
+
+        int at = reserve();
+        positions[at + OFFSET] = offset;
+        positions[at + LENGTH] = length;
+        return size++;
+    }
+
+    /**
+     * Adds an entry with an offset, a length, lines and columns
+     * @return the index of the new entry
+     */
+    public int add(int offset, int length, int beginLine, int endLine, int beginCol, int endCol) {
+        if (stride != 6) {
+            throw new IllegalArgumentException("the entries of this table do not have lines and columns");
+        }
+        checkOffsetLength(offset, length);
+        if (beginLine < 0) { throw new IllegalArgumentException("beginLine should be positive"); }
+        if (beginCol < 0) { throw new IllegalArgumentException("beginCol should be positive"); }
+        if (endCol < 0) { throw new IllegalArgumentException("endCol should be positive"); }
+        if (endLine < beginLine) {
+            throw new IllegalArgumentException("endLine should be larger than or equal to beginLine");
+        }
+        if (endLine == beginLine && endCol < beginCol) {
+            throw new IllegalArgumentException("endCol should be larger than or equal to beginCol, if on the same line");
+        }
+
+        int at = reserve();
+        positions[at + OFFSET] = offset;
+        positions[at + LENGTH] = length;
+        positions[at + BEGIN_LINE] = beginLine;
+        positions[at + END_LINE] = endLine;
+        positions[at + BEGIN_COLUMN] = beginCol;
+        positions[at + END_COLUMN] = endCol;
+        return size++;
+    }
+
+    /**
+     * Adds the positions of a location into the file of this table
+     * @return the index of the new entry
+     */
+    public int add(ISourceLocation loc) {
+        if (!loc.hasOffsetLength() || loc.hasLineColumn() != hasLineColumn() || !file.equals(loc.top())) {
+            throw new IllegalArgumentException(loc + " does not fit in the table of " + file);
+        }
+
+        if (stride == 2) {
+            return add(loc.getOffset(), loc.getLength());
+        }
+
+        return add(loc.getOffset(), loc.getLength(), loc.getBeginLine(), loc.getEndLine(), loc.getBeginColumn(), loc.getEndColumn());
+    }
+
+    private static void checkOffsetLength(int offset, int length) {
+        if (offset < 0) { throw new IllegalArgumentException("offset should be positive"); }
+        if (length < 0) { throw new IllegalArgumentException("length should be positive"); }
+    }
+
+    private int reserve() {
+        int at = size * stride;
+        if (at == positions.length) {
+            positions = Arrays.copyOf(positions, positions.length * 2);
+        }
+        return at;
+    }
+
+    public ISourceLocation getFile() {
+        return file;
+    }
+
+    public boolean hasLineColumn() {
+        return stride == 6;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getOffset(int index) {
+        return positions[at(index) + OFFSET];
+    }
+
+    public int getLength(int index) {
+        return positions[at(index) + LENGTH];
+    }
+
+    public int getBeginLine(int index) {
+        return positions[lineColumnAt(index) + BEGIN_LINE];
+    }
+
+    public int getEndLine(int index) {
+        return positions[lineColumnAt(index) + END_LINE];
+    }
+
+    public int getBeginColumn(int index) {
+        return positions[lineColumnAt(index) + BEGIN_COLUMN];
+    }
+
+    public int getEndColumn(int index) {
+        return positions[lineColumnAt(index) + END_COLUMN];
+    }
+
+    private int at(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        return index * stride;
+    }
+
+    private int lineColumnAt(int index) {
+        if (stride != 6) {
+            throw new IllegalStateException("the entries of this table do not have lines and columns");
+        }
+        return at(index);
+    }
+
+    /**
+     * @return a location equal to the one the factory of the table creates for the positions of the entry
+     */
+    public ISourceLocation get(int index) {
+        int at = at(index);
+        int[] p = positions;
+
+        if (stride == 2) {
+            return vf.sourceLocation(file, p[at + OFFSET], p[at + LENGTH]);
+        }
+
+        return vf.sourceLocation(file, p[at + OFFSET], p[at + LENGTH], p[at + BEGIN_LINE], p[at + END_LINE], p[at + BEGIN_COLUMN], p[at + END_COLUMN]);
+    }
+
+    /**
+     * @return a list of the locations of all entries, in the order in which they were added
+     */
+    public IList toList() {
+        IListWriter w = vf.listWriter();
+        for (int i = 0; i < size; i++) {
+            w.append(get(i));
+        }
+        return w.done();
+    }
+
+    /**
+     * Reduces the storage of the table to the number of entries it has.
+     */
+    public void trimToSize() {
+        positions = Arrays.copyOf(positions, Math.max(1, size) * stride);
+    }
+
+    @Override
+    public Iterator<ISourceLocation> iterator() {
+        return new Iterator<ISourceLocation>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public ISourceLocation next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(next++);
+            }
+        };
+    }
+}
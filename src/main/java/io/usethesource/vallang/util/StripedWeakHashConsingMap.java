@@ -0,0 +1,226 @@
+/**
+ * Copyright (c) 2026, Centrum Wiskunde & Informatica (CWI)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package io.usethesource.vallang.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * <p>
+ * A Hash Consing implementation that keeps its values in weak references, split over a number of independently
+ * locked stripes.
+ * </p>
+ * <p>
+ * A lookup of a value that is already present reads the chain of its bucket without locking and without
+ * allocating. Only a miss takes the lock of its stripe, checks again and inserts; so threads only contend when
+ * they create new values that land in the same stripe. Each stripe has its own reference queue, which is
+ * drained when that stripe inserts, so there is no background sweeper.
+ * </p>
+ * <p>
+ * Readers may race with an insert or a resize and miss a value that is present, this is always resolved by the
+ * locked second lookup. Therefore it is safe to use in a multi-threaded context, and will always return the same
+ * reference, even in a race between multiple threads.
+ * </p>
+ * <p>
+ * Every stripe holds the values it inserted most recently strongly, so values which are briefly unused (like a
+ * type that is constructed over and over again, but not stored) do not get collected and recreated all the time.
+ * </p>
+ */
+public class StripedWeakHashConsingMap<T extends @NonNull Object> implements HashConsingMap<T> {
+    private static final class Entry<T extends @NonNull Object> extends WeakReference<T> {
+        private final int hash;
+        private volatile @Nullable Entry<T> next;
+
+        Entry(T referent, int hash, @Nullable Entry<T> next, ReferenceQueue<? super T> queue) {
+            super(referent, queue);
+            this.hash = hash;
+            this.next = next;
+        }
+    }
+
+    private static final class Stripe<T extends @NonNull Object> {
+        private final ReferenceQueue<T> queue = new ReferenceQueue<>();
+        private final int shift;
+        /** written under the lock of the stripe, read without it */
+        private volatile @Nullable Entry<T>[] table;
+        /** guarded by the lock of the stripe */
+        private int size;
+        /** guarded by the lock of the stripe */
+        private final @Nullable Object[] recent;
+        private int recentCursor;
+
+        @SuppressWarnings("unchecked")
+        Stripe(int capacity, int shift, int keepRecent) {
+            this.table = new Entry[capacity];
+            this.shift = shift;
+            this.recent = new Object[keepRecent];
+        }
+
+        private int index(int hash, int length) {
+            return (hash >>> shift) & (length - 1);
+        }
+
+        @Nullable T find(T key, int hash) {
+            @Nullable Entry<T>[] tab = table;
+            for (Entry<T> e = tab[index(hash, tab.length)]; e != null; e = e.next) {
+                if (e.hash == hash) {
+                    T candidate = e.get();
+                    if (candidate != null && (candidate == key || candidate.equals(key))) {
+                        return candidate;
+                    }
+                }
+            }
+            return null;
+        }
+
+        synchronized T insert(T key, int hash) {
+            expunge();
+
+            T existing = find(key, hash);
+            if (existing != null) {
+                return existing;
+            }
+
+            @Nullable Entry<T>[] tab = table;
+            if (size >= tab.length - (tab.length >>> 2)) {
+                tab = resize(tab);
+            }
+
+            int i = index(hash, tab.length);
+            tab[i] = new Entry<>(key, hash, tab[i], queue);
+            size++;
+
+            if (recent.length > 0) {
+                recent[recentCursor] = key;
+                recentCursor = (recentCursor + 1) % recent.length;
+            }
+            return key;
+        }
+
+        /**
+         * Unlink the entries of which the value has been collected. Entries which a resize dropped
+         * already are simply not found anymore.
+         */
+        private void expunge() {
+            Reference<? extends T> cleared;
+            while ((cleared = queue.poll()) != null) {
+                @SuppressWarnings("unchecked")
+                Entry<T> dead = (Entry<T>) cleared;
+                @Nullable Entry<T>[] tab = table;
+                int i = index(dead.hash, tab.length);
+
+                Entry<T> prev = null;
+                for (Entry<T> e = tab[i]; e != null; prev = e, e = e.next) {
+                    if (e == dead) {
+                        if (prev == null) {
+                            tab[i] = e.next;
+                        }
+                        else {
+                            prev.next = e.next;
+                        }
+                        size--;
+                        break;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Relinks the live entries into a table twice the size. Concurrent readers that follow a relinked
+         * entry can end up in the wrong chain, but that only causes a miss which the locked lookup resolves.
+         */
+        @SuppressWarnings("unchecked")
+        private @Nullable Entry<T>[] resize(@Nullable Entry<T>[] old) {
+            @Nullable Entry<T>[] tab = new Entry[old.length * 2];
+            int live = 0;
+
+            for (Entry<T> head : old) {
+                Entry<T> e = head;
+                while (e != null) {
+                    Entry<T> next = e.next;
+                    if (e.get() != null) {
+                        int i = index(e.hash, tab.length);
+                        e.next = tab[i];
+                        tab[i] = e;
+                        live++;
+                    }
+                    e = next;
+                }
+            }
+
+            size = live;
+            table = tab;
+            return tab;
+        }
+    }
+
+    private final Stripe<T>[] stripes;
+    private final int mask;
+
+    public StripedWeakHashConsingMap() {
+        this(64, 32 * 1024, 32);
+    }
+
+    /**
+     * @param stripes         the number of independently locked parts, rounded up to a power of two
+     * @param initialCapacity the total number of entries before the first stripes have to grow
+     * @param keepRecent      the number of most recently inserted values every stripe holds on to strongly
+     */
+    @SuppressWarnings("unchecked")
+    public StripedWeakHashConsingMap(int stripes, int initialCapacity, int keepRecent) {
+        if (stripes <= 0 || initialCapacity <= 0 || keepRecent < 0) {
+            throw new IllegalArgumentException("Stripes and capacity should be positive numbers");
+        }
+
+        stripes = powerOfTwo(stripes);
+        int perStripe = powerOfTwo(Math.max(4, initialCapacity / stripes));
+        int shift = Integer.numberOfTrailingZeros(stripes);
+
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe<>(perStripe, shift, keepRecent);
+        }
+        this.mask = stripes - 1;
+    }
+
+    private static int powerOfTwo(int n) {
+        return n == 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+    }
+
+    private static int improve(int hash) {
+        // based on XXH32_avalanche from xxHash (BSD2 license, Yann Collet)
+        hash ^= hash >>> 15;
+        hash *= 0x85EBCA77;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE3D;
+        return hash ^ (hash >>> 16);
+    }
+
+    @Override
+    public T get(T key) {
+        // the avalanche is a bijection, so equal improved hashes still mean equal hash codes
+        final int hash = improve(key.hashCode());
+        final Stripe<T> stripe = stripes[hash & mask];
+
+        T result = stripe.find(key, hash);
+        if (result != null) {
+            return result;
+        }
+
+        return stripe.insert(key, hash);
+    }
+}
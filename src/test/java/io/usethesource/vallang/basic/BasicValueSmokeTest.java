@@ -10,8 +10,15 @@ import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.IOException;
 import java.io.StringWriter;
+import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.CharBuffer;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.OffsetTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.PrimitiveIterator.OfInt;
 import java.util.Random;
 import java.util.regex.Pattern;
@@ -21,6 +28,7 @@ import org.junit.jupiter.params.provider.ArgumentsSource;
 
 import io.usethesource.vallang.IDateTime;
 import io.usethesource.vallang.IInteger;
+import io.usethesource.vallang.IListWriter;
 import io.usethesource.vallang.INumber;
 import io.usethesource.vallang.IReal;
 import io.usethesource.vallang.ISourceLocation;
@@ -28,8 +36,10 @@ import io.usethesource.vallang.IString;
 import io.usethesource.vallang.IValue;
 import io.usethesource.vallang.IValueFactory;
 import io.usethesource.vallang.ValueProvider;
+import io.usethesource.vallang.exceptions.InvalidDateTimeException;
 import io.usethesource.vallang.impl.primitive.StringValue;
 import io.usethesource.vallang.random.util.RandomUtil;
+import io.usethesource.vallang.util.SourceLocationTable;
 import io.usethesource.vallang.type.TypeFactory;
 
 public final class BasicValueSmokeTest {
@@ -628,6 +638,69 @@ public final class BasicValueSmokeTest {
             vf.datetime(dt.getInstant(), dt.getTimezoneOffsetHours(), dt.getTimezoneOffsetMinutes()));
     }
 
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testDateTimeFieldsAndOrder(IValueFactory vf) {
+        Random r = new Random(42);
+        String pattern = "uuuu-MM-dd'T'HH:mm:ss.SSSxxx";
+        IDateTime[] values = new IDateTime[200];
+        OffsetDateTime[] expected = new OffsetDateTime[values.length];
+
+        for (int i = 0; i < values.length; i++) {
+            // around the epoch, with negative instants, and far from it; a few instants share their values
+            long instant = i % 10 == 0 ? 0 : r.nextLong() % (i % 2 == 0 ? 100_000_000_000L : 100_000_000_000_000L);
+            int hours = r.nextInt(37) - 18;
+            int minutes = hours == 18 || hours == -18 ? 0 : Integer.signum(hours) * 15 * r.nextInt(4);
+            values[i] = vf.datetime(instant, hours, minutes);
+            expected[i] = Instant.ofEpochMilli(instant).atOffset(ZoneOffset.ofHoursMinutes(hours, minutes));
+
+            IDateTime dt = values[i];
+            OffsetDateTime e = expected[i];
+            assertEquals(e.getYear(), dt.getYear());
+            assertEquals(e.getMonthValue(), dt.getMonthOfYear());
+            assertEquals(e.getDayOfMonth(), dt.getDayOfMonth());
+            assertEquals(e.getHour(), dt.getHourOfDay());
+            assertEquals(e.getMinute(), dt.getMinuteOfHour());
+            assertEquals(e.getSecond(), dt.getSecondOfMinute());
+            assertEquals(e.getNano() / 1_000_000, dt.getMillisecondsOfSecond());
+            assertEquals(hours, dt.getTimezoneOffsetHours());
+            assertEquals(minutes, dt.getTimezoneOffsetMinutes());
+            assertEquals(instant, dt.getInstant());
+            assertEquals(e.format(DateTimeFormatter.ofPattern(pattern)), dt.format(pattern).getValue());
+            assertEqual(dt, vf.datetime(dt.getYear(), dt.getMonthOfYear(), dt.getDayOfMonth(), dt.getHourOfDay(),
+                dt.getMinuteOfHour(), dt.getSecondOfMinute(), dt.getMillisecondsOfSecond(), hours, minutes));
+        }
+
+        for (int i = 0; i < values.length; i++) {
+            for (int j = 0; j < values.length; j++) {
+                assertEquals(Integer.signum(expected[i].compareTo(expected[j])), Integer.signum(values[i].compareTo(values[j])));
+                assertEquals(expected[i].equals(expected[j]), values[i].equals(values[j]));
+                if (values[i].equals(values[j])) {
+                    assertEquals(values[i].hashCode(), values[j].hashCode());
+                }
+            }
+        }
+
+        OffsetTime time = OffsetTime.of(23, 59, 58, 999_000_000, ZoneOffset.ofHoursMinutes(-3, -30));
+        IDateTime t = vf.time(23, 59, 58, 999, -3, -30);
+        assertEquals(time.getHour(), t.getHourOfDay());
+        assertEquals(time.getMinute(), t.getMinuteOfHour());
+        assertEquals(time.getSecond(), t.getSecondOfMinute());
+        assertEquals(999, t.getMillisecondsOfSecond());
+        assertEquals(time.atDate(LocalDate.of(1970, 1, 1)).toInstant().toEpochMilli(), t.getInstant());
+        assertEquals(time.format(DateTimeFormatter.ofPattern("HH:mm:ss.SSSxxx")), t.format("HH:mm:ss.SSSxxx").getValue());
+        assertTrue(vf.time(1, 0, 0, 0, 1, 0).compareTo(vf.time(0, 0, 0, 0, 0, 0)) > 0);
+        assertFalse(vf.time(1, 0, 0, 0, 1, 0).equals(vf.time(0, 0, 0, 0, 0, 0)));
+
+        IDateTime date = vf.date(-44, 3, 15);
+        assertEquals(-44, date.getYear());
+        assertEquals(3, date.getMonthOfYear());
+        assertEquals(15, date.getDayOfMonth());
+        assertEquals("-0044/03/15", date.format("uuuu/MM/dd").getValue());
+        assertTrue(date.compareTo(vf.date(-44, 3, 16)) < 0);
+        assertEqual(date, vf.date(-44, 3, 15));
+        assertThrows(InvalidDateTimeException.class, () -> vf.date(2023, 2, 29));
+    }
+
     @ParameterizedTest @ArgumentsSource(ValueProvider.class)
     public void testLocationTop(IValueFactory vf) throws URISyntaxException {
         ISourceLocation l = vf.sourceLocation("tmp", "", "/file.txt");
@@ -636,4 +709,103 @@ public final class BasicValueSmokeTest {
         ISourceLocation m = vf.sourceLocation(l, 10, 20);
         assertEquals(m.top(), l);
     }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testLocationPaths(IValueFactory vf) throws URISyntaxException {
+        String[] paths = {
+            "/a", "/a/b", "/a/b/", "/a/b/c.txt", "/a/bc", "/ab/c", "/pkZ/T5/17152/7/𒉻𒂮𠇯", "/a b/c%20d/e?f", "/a/../b",
+        };
+
+        for (String path : paths) {
+            // build the path again, such that it is not the same string
+            String copy = new StringBuilder(path).toString();
+            for (String authority : new String[] { "", "auth" }) {
+                ISourceLocation l = vf.sourceLocation("tmp", authority, path);
+                ISourceLocation m = vf.sourceLocation("tmp", authority, copy);
+                assertEquals(path, l.getPath());
+                assertEquals(l, m);
+                assertEquals(l.hashCode(), m.hashCode());
+                assertEquals(l, vf.sourceLocation(l.getURI()));
+
+                for (String other : paths) {
+                    if (!other.equals(path)) {
+                        assertFalse(l.equals(vf.sourceLocation("tmp", authority, other)));
+                    }
+                }
+            }
+        }
+
+        assertEquals("/a/b", vf.sourceLocation("tmp", "", "a//b").getPath());
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testSourceLocationFromURI(IValueFactory vf) throws URISyntaxException {
+        String[] uris = {
+            "file:///", "file:///a/b.txt", "file:/a//b", "std:///", "http://user@host:80/a?b=c&d#e", "project://p",
+            "project://p?q", "tmp:///a%20b/c", "tmp:///%C3%A9?%25#%23", "tmp:///é", "tmp://[::1]/a",
+            "a+b-c.d:/x;y/:@&=+$,/-_.!~*'()?/?:#/?", "tmp://a@b@c/d", "tmp:/a/../b/./c",
+        };
+
+        for (String uri : uris) {
+            ISourceLocation expected = vf.sourceLocation(new URI(uri));
+            ISourceLocation actual = vf.sourceLocationFromURI(uri);
+            assertEqual(expected, actual);
+            assertEquals(expected.getURI(), actual.getURI());
+        }
+
+        for (String uri : new String[] { "tmp:", "tmp://", "tmp:///a b", "tmp:///a#b#c", "1tmp:///", ":///a", "tmp:///a%2" }) {
+            assertThrows(URISyntaxException.class, () -> vf.sourceLocationFromURI(uri), uri);
+        }
+
+        assertThrows(UnsupportedOperationException.class, () -> vf.sourceLocationFromURI("tmp:a/b"));
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testSourceLocationTable(IValueFactory vf) {
+        ISourceLocation file = vf.sourceLocation("/a/b.txt");
+        SourceLocationTable lines = new SourceLocationTable(vf, vf.sourceLocation(file, 1, 2), true, 0);
+        SourceLocationTable offsets = new SourceLocationTable(vf, file, false);
+        IListWriter expected = vf.listWriter();
+        Random r = new Random(42);
+
+        for (int i = 0; i < 1000; i++) {
+            // cover all the value ranges of the specialized location classes
+            int scale = 1 << r.nextInt(24);
+            int offset = r.nextInt(scale);
+            int length = r.nextInt(scale);
+            int beginLine = r.nextInt(scale);
+            int endLine = beginLine + r.nextInt(scale);
+            int beginCol = r.nextInt(scale);
+            int endCol = endLine == beginLine ? beginCol + r.nextInt(scale) : r.nextInt(scale);
+
+            ISourceLocation loc = vf.sourceLocation(file, offset, length, beginLine, endLine, beginCol, endCol);
+            assertEquals(i, lines.add(offset, length, beginLine, endLine, beginCol, endCol));
+            assertEquals(i, offsets.add(vf.sourceLocation(file, offset, length)));
+            assertEqual(loc, lines.get(i));
+            assertEquals(loc.hashCode(), lines.get(i).hashCode());
+            assertEqual(vf.sourceLocation(file, offset, length), offsets.get(i));
+            assertEquals(beginLine, lines.getBeginLine(i));
+            assertEquals(endCol, lines.getEndColumn(i));
+            expected.append(loc);
+        }
+
+        lines.trimToSize();
+        assertEquals(1000, lines.size());
+        assertEqual(expected.done(), lines.toList());
+        assertEquals(file, lines.getFile());
+
+        int i = 0;
+        for (ISourceLocation loc : offsets) {
+            assertEquals(offsets.getOffset(i), loc.getOffset());
+            assertEquals(offsets.getLength(i++), loc.getLength());
+        }
+        assertEquals(1000, i);
+
+        assertThrows(IllegalArgumentException.class, () -> offsets.add(1, 2, 3, 4, 5, 6));
+        assertThrows(IllegalArgumentException.class, () -> lines.add(1, 2));
+        assertThrows(IllegalArgumentException.class, () -> lines.add(1, 2, 4, 3, 5, 6));
+        assertThrows(IllegalArgumentException.class, () -> offsets.add(vf.sourceLocation(vf.sourceLocation("/c"), 1, 2)));
+        assertThrows(IllegalStateException.class, () -> offsets.getBeginLine(0));
+        assertThrows(IndexOutOfBoundsException.class, () -> offsets.get(1000));
+    }
 }
@@ -142,6 +142,47 @@ public final class BigDecimalCalculationSmokeTest {
         }
     }
 
+    private static void assertWithin(IValueFactory vf, IReal actual, IReal expected, int digits) {
+        IReal tolerance = vf.real("1E-" + digits);
+        assertTrue(actual.subtract(expected).abs().lessEqual(tolerance).getValue(), () -> "expected " + expected + " got " + actual);
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testPowFractionalExponentOfBaseNearOne(IValueFactory vf) {
+        // log2 of these bases rounds to 0, while the results have many integer digits
+        assertWithin(vf, vf.real("1.5").pow(vf.real("100.25"), 30),
+            vf.real("449933904430295260.263916898201617216450885122691"), 29);
+        assertWithin(vf, vf.real("1.0001").pow(vf.real("12345.678"), 30),
+            vf.real("3.436680641433237995328116346023"), 29);
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testHighPrecisionIdentities(IValueFactory vf) {
+        int precision = 600;
+        IReal one = vf.real(1);
+
+        IReal x = vf.real("0.7");
+        IReal sin = x.sin(precision);
+        IReal cos = x.cos(precision);
+        assertWithin(vf, sin.multiply(sin).add(cos.multiply(cos)), one, precision - 5);
+
+        IReal y = vf.real("123.456");
+        assertWithin(vf, y.ln(precision + 5).exp(precision), y, precision - 5);
+        assertWithin(vf, vf.real(2).sqrt(precision).multiply(vf.real(2).sqrt(precision)), vf.real(2), precision - 5);
+
+        IReal pi = vf.pi(precision);
+        assertWithin(vf, pi.divide(vf.real(6), precision + 5).sin(precision), vf.real("0.5"), precision - 5);
+        assertWithin(vf, pi.add(vf.real(1000).multiply(pi)).cos(precision), one.negate(), precision - 5);
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testConstantsBeyondThousandDigits(IValueFactory vf) {
+        assertWithin(vf, vf.pi(1500), vf.pi(1000), 1000);
+        assertWithin(vf, vf.e(1500), vf.e(1000), 1000);
+        // above 3000 digits ln uses the arithmetic-geometric mean
+        assertWithin(vf, vf.e(3200).ln(3100), vf.real(1), 3095);
+    }
+
     private void assertTakesLessThan(final int seconds, String call, final Runnable x) {
         final Semaphore done = new Semaphore(0);
         Thread t = new Thread(new Runnable() {
@@ -10,7 +10,10 @@
  *******************************************************************************/
 package io.usethesource.vallang.basic;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -20,10 +23,14 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FilterInputStream;
 import java.io.IOException;
+import java.net.URISyntaxException;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -35,15 +42,22 @@ import io.usethesource.vallang.GivenValue;
 import io.usethesource.vallang.IConstructor;
 import io.usethesource.vallang.IDateTime;
 import io.usethesource.vallang.IList;
+import io.usethesource.vallang.IListWriter;
+import io.usethesource.vallang.ISetWriter;
+import io.usethesource.vallang.ISourceLocation;
 import io.usethesource.vallang.IValue;
 import io.usethesource.vallang.IValueFactory;
 import io.usethesource.vallang.ValueProvider;
 import io.usethesource.vallang.exceptions.FactTypeUseException;
+import io.usethesource.vallang.io.binary.message.IValueIDs;
 import io.usethesource.vallang.io.binary.message.IValueReader;
 import io.usethesource.vallang.io.binary.message.IValueWriter;
+import io.usethesource.vallang.io.binary.message.IValueWriter.Packing;
+import io.usethesource.vallang.io.binary.message.IValueWriter.Sharing;
 import io.usethesource.vallang.io.binary.stream.IValueInputStream;
 import io.usethesource.vallang.io.binary.stream.IValueOutputStream;
 import io.usethesource.vallang.io.binary.stream.IValueOutputStream.CompressionRate;
+import io.usethesource.vallang.io.binary.stream.TypeStoreSnapshot;
 import io.usethesource.vallang.io.binary.util.WindowSizes;
 import io.usethesource.vallang.io.binary.wire.IWireInputStream;
 import io.usethesource.vallang.io.binary.wire.IWireOutputStream;
@@ -137,6 +151,214 @@ public final class BinaryIoSmokeTest extends BooleanStoreProvider {
         ioRoundTripFile2(vf, ts, list);
     }
 
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class) @ArgumentsMaxDepth(10) @ArgumentsMaxWidth(20)
+    public void testAsyncFileIO(IValueFactory vf, TypeStore ts, IValue value) throws IOException {
+        File target = File.createTempFile("valllang-test-file", "async");
+        target.deleteOnExit();
+        try {
+            for (var rate: RATES_TO_TESTS) {
+                IValue result = IValueOutputStream.writeAsync(target.toPath(), vf, rate, value)
+                    .thenCompose(v -> IValueInputStream.readAsync(target.toPath(), vf, () -> ts))
+                    .join();
+                assertEquals(value, result, "Error with " + rate + " compression");
+            }
+        }
+        finally {
+            target.delete();
+        }
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class) @ArgumentsMaxDepth(10) @ArgumentsMaxWidth(20)
+    public void testAdaptiveWindowsIO(IValueFactory vf, TypeStore ts, IValue value) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (IValueOutputStream w = new IValueOutputStream(buffer, vf, CompressionRate.Normal)) {
+            w.setAdaptiveWindowSizes(true);
+            for (int i = 0; i < 3; i++) {
+                w.write(value);
+                assertNotNull(w.getLastWindowStatistics());
+            }
+        }
+        try (IValueInputStream read = new IValueInputStream(new ByteArrayInputStream(buffer.toByteArray()), vf, () -> ts)) {
+            for (int i = 0; i < 3; i++) {
+                assertEquals(value, read.read());
+            }
+        }
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testStringSizesFileIO(IValueFactory vf, TypeStore ts) throws IOException {
+        IListWriter result = vf.listWriter();
+        for (int size : new int[] { 0, 1, 255, 256, 257, 70_000, 3 }) {
+            StringBuilder content = new StringBuilder();
+            for (int i = 0; i < size; i++) {
+                // mix in some multi-byte characters
+                content.appendCodePoint(i % 7 == 0 ? 0x1F600 : (i % 5 == 0 ? '\u00e9' : 'a' + (i % 26)));
+            }
+            result.append(vf.string(content.toString()));
+        }
+        ioRoundTripFile(vf, ts, result.done());
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class) @ArgumentsMaxDepth(10) @ArgumentsMaxWidth(20)
+    public void testStructuralSharingIO(IValueFactory vf, TypeStore ts, IValue value) throws IOException {
+        for (var rate: RATES_TO_TESTS) {
+            ioRoundTrip(vf, ts, value, rate, Sharing.STRUCTURAL);
+        }
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testStructuralSharingIsSmaller(IValueFactory vf, TypeStore ts) throws IOException {
+        IListWriter result = vf.listWriter();
+        for (int i = 0; i < 100; i++) {
+            // the elements are equal, but none of them are the same reference
+            result.append(vf.tuple(vf.string("a"), vf.node("f", vf.integer(i % 2), vf.list(vf.integer(1000 + (i % 2))))));
+        }
+        IList value = result.done();
+
+        byte[] byReference = wireWrite(vf, value, Sharing.REFERENCE);
+        byte[] byStructure = wireWrite(vf, value, Sharing.STRUCTURAL);
+        assertTrue(byStructure.length < byReference.length, "structural sharing should produce a smaller result");
+
+        try (IWireInputStream read = new BinaryWireInputStream(new ByteArrayInputStream(byStructure))) {
+            assertEquals(value, IValueReader.readValue(read, vf, () -> ts));
+        }
+
+        // the same holds for the complete stream, with its header and type store
+        byte[] streamByReference = ioRoundTrip(vf, ts, value, CompressionRate.Light, Sharing.REFERENCE);
+        byte[] streamByStructure = ioRoundTrip(vf, ts, value, CompressionRate.Light, Sharing.STRUCTURAL);
+        assertTrue(streamByStructure.length < streamByReference.length, "structural sharing should produce a smaller stream");
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testPackedIntegersIO(IValueFactory vf, TypeStore ts) throws IOException {
+        IListWriter list = vf.listWriter();
+        ISetWriter set = vf.setWriter();
+        for (int i = -50; i < 50; i++) {
+            list.append(vf.integer(i * 7919));
+            set.insert(vf.integer(i * 7919));
+        }
+        list.append(vf.integer(Integer.MIN_VALUE), vf.integer(Integer.MAX_VALUE), vf.integer(0), vf.integer(Integer.MIN_VALUE));
+        set.insert(vf.integer(Integer.MIN_VALUE), vf.integer(Integer.MAX_VALUE));
+        IList ints = list.done();
+        ioRoundTripPacked(vf, ts, ints);
+        ioRoundTripPacked(vf, ts, set.done());
+        // one too large for the packed encoding
+        ioRoundTripPacked(vf, ts, ints.append(vf.integer(Long.MAX_VALUE)));
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testPackedIntegersAreSmall(IValueFactory vf, TypeStore ts) throws IOException {
+        IListWriter result = vf.listWriter();
+        for (int i = 0; i < 1000; i++) {
+            result.append(vf.integer(100_000 + i));
+        }
+        IList value = result.done();
+        byte[] written = wireWrite(vf, value, Sharing.REFERENCE, Packing.PACKED);
+        assertTrue(written.length < 2 * value.length(), "consecutive integers should take about a byte each");
+        try (IWireInputStream read = new BinaryWireInputStream(new ByteArrayInputStream(written))) {
+            assertEquals(value, IValueReader.readValue(read, vf, () -> ts));
+        }
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testPackingIsOptIn(IValueFactory vf, TypeStore ts) throws IOException {
+        IListWriter result = vf.listWriter();
+        for (int i = 0; i < 1000; i++) {
+            result.append(vf.integer(100_000 + i));
+        }
+        IList value = result.done();
+
+        // readers of earlier versions only understand the element-wise encoding, so that stays the default
+        byte[] byDefault = wireWrite(vf, value, Sharing.REFERENCE);
+        assertArrayEquals(wireWrite(vf, value, Sharing.REFERENCE, Packing.ELEMENTS), byDefault);
+        assertTrue(wireWrite(vf, value, Sharing.REFERENCE, Packing.PACKED).length < byDefault.length);
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testPackedStringsIO(IValueFactory vf, TypeStore ts) throws IOException {
+        IListWriter unique = vf.listWriter();
+        IListWriter duplicates = vf.listWriter();
+        ISetWriter set = vf.setWriter();
+        for (int i = 0; i < 100; i++) {
+            unique.append(vf.string("s" + i));
+            duplicates.append(vf.string("d" + (i % 7)));
+            set.insert(vf.string("\u00e9" + i));
+        }
+        ioRoundTripPacked(vf, ts, unique.done());
+        ioRoundTripPacked(vf, ts, duplicates.done());
+        ioRoundTripPacked(vf, ts, set.done());
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testPackedLocationsIO(IValueFactory vf, TypeStore ts) throws IOException, URISyntaxException {
+        ISourceLocation file = vf.sourceLocation("file", "", "/some/file.txt");
+        ISourceLocation other = vf.sourceLocation("file", "", "/some/other.txt");
+        IListWriter offsets = vf.listWriter();
+        IListWriter lineColumns = vf.listWriter();
+        ISetWriter set = vf.setWriter();
+        for (int i = 0; i < 100; i++) {
+            offsets.append(vf.sourceLocation(file, (i * 31) % 1000, i));
+            lineColumns.append(vf.sourceLocation(file, i * 10, 5, 100 - i, 100 - i + (i % 3), i % 80, i % 80 + 5));
+            set.insert(vf.sourceLocation(file, (i * 31) % 1000, i, i, i + 1, 0, 1));
+        }
+        IList offsetLocs = offsets.done();
+        IList lineColumnLocs = lineColumns.done();
+        ioRoundTripPacked(vf, ts, offsetLocs);
+        ioRoundTripPacked(vf, ts, lineColumnLocs);
+        ioRoundTripPacked(vf, ts, set.done());
+        // mixed files and mixed line column info fall back to the normal encoding
+        ioRoundTripPacked(vf, ts, offsetLocs.append(vf.sourceLocation(other, 1, 2)));
+        ioRoundTripPacked(vf, ts, lineColumnLocs.append(vf.sourceLocation(file, 1, 2)));
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testPackedValuesSkipUnknownNestedField(IValueFactory vf, TypeStore ts) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (IWireOutputStream w = new BinaryWireOutputStream(buffer, 1000)) {
+            w.startMessage(IValueIDs.Header.ID);
+            w.writeNestedField(IValueIDs.Header.VALUE);
+            w.startMessage(IValueIDs.ListValue.ID);
+            w.writeRepeatedNestedField(IValueIDs.ListValue.ELEMENTS, 2);
+            // [1, 2, 3] as zig-zag encoded deltas
+            w.startMessage(IValueIDs.PackedValues.ID);
+            w.writeField(IValueIDs.PackedValues.INTS, new int[] { 2, 2, 2 });
+            // an unknown field, as a newer writer could add it
+            w.writeNestedField(100);
+            w.startMessage(1);
+            w.writeField(1, 42);
+            w.writeField(2, "unknown");
+            w.endMessage();
+            w.endMessage();
+            // the value after the packed list is only read correctly if the unknown field is skipped completely
+            w.startMessage(IValueIDs.StringValue.ID);
+            w.writeField(IValueIDs.StringValue.CONTENT, "after");
+            w.endMessage();
+            w.endMessage();
+            w.endMessage();
+        }
+
+        IValue expected = vf.list(vf.list(vf.integer(1), vf.integer(2), vf.integer(3)), vf.string("after"));
+        try (IWireInputStream read = new BinaryWireInputStream(new ByteArrayInputStream(buffer.toByteArray()))) {
+            assertEquals(expected, IValueReader.readValue(read, vf, () -> ts));
+        }
+    }
+
+    private static byte[] wireWrite(IValueFactory vf, IValue value, Sharing sharing) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (IWireOutputStream w = new BinaryWireOutputStream(buffer, 1000)) {
+            IValueWriter.write(w, vf, WindowSizes.SMALL_WINDOW, sharing, value);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static byte[] wireWrite(IValueFactory vf, IValue value, Sharing sharing, Packing packing) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (IWireOutputStream w = new BinaryWireOutputStream(buffer, 1000)) {
+            IValueWriter.write(w, vf, WindowSizes.SMALL_WINDOW, sharing, packing, value);
+        }
+        return buffer.toByteArray();
+    }
+
     @ParameterizedTest @ArgumentsSource(ValueProvider.class)
     public void testConstructorTypeWithLabel(IValueFactory vf, TypeFactory tf, TypeStore ts) throws IOException {
         Type adt = tf.abstractDataType(ts, "A");
@@ -220,6 +442,54 @@ public final class BinaryIoSmokeTest extends BooleanStoreProvider {
         ioRoundTrip(vf, ts, vf.constructor(cons, vf.tuple(vf.integer(1), vf.string("a"))));
     }
 
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testTypeStoreSnapshot(IValueFactory vf, TypeFactory tf) throws IOException {
+        TypeStore lib = new TypeStore();
+        Type A = tf.abstractDataType(lib, "A", tf.parameterType("T"));
+        Type a = tf.constructor(lib, A, "a", tf.parameterType("T"), "t");
+        Type alias = tf.aliasType(lib, "AList", tf.listType(A), tf.parameterType("T"));
+        TypeStore main = new TypeStore(lib);
+        Type B = tf.abstractDataType(main, "B");
+        Type b = tf.constructor(main, B, "b", A, "child", tf.setType(tf.stringType()), "names");
+        main.declareKeywordParameter(b, "origin", tf.sourceLocationType());
+
+        for (CompressionRate rate : RATES_TO_TESTS) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            TypeStoreSnapshot.write(buffer, vf, rate, main);
+
+            TypeStore[] restored = TypeStoreSnapshot.read(new ByteArrayInputStream(buffer.toByteArray()), vf);
+            assertEquals(2, restored.length);
+            TypeStore restoredMain = restored[0];
+            TypeStore restoredLib = restored[1];
+
+            assertTrue(restoredMain.getImports().contains(restoredLib));
+            assertTrue(restoredMain.lookupAbstractDataType("B") == B);
+            assertTrue(restoredMain.lookupAbstractDataType("A") == A);
+            assertTrue(restoredLib.lookupAlias("AList") == alias);
+            assertEquals(lib.lookupAlternatives(A), restoredLib.lookupAlternatives(A));
+            assertTrue(restoredLib.lookupConstructor(A, "a").contains(a));
+            assertTrue(restoredMain.lookupConstructor(B, "b").contains(b));
+            assertEquals(main.getKeywordParameters(b), restoredMain.getKeywordParameters(b));
+        }
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testTypeStoreSnapshotConstructorOfImportedADT(IValueFactory vf, TypeFactory tf) throws IOException {
+        TypeStore lib = new TypeStore();
+        Type A = tf.abstractDataType(lib, "A");
+        Type a = tf.constructor(lib, A, "a");
+        TypeStore main = new TypeStore(lib);
+        Type c = tf.constructor(main, A, "c", tf.integerType(), "i");
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        TypeStoreSnapshot.write(buffer, vf, main);
+
+        TypeStore[] restored = TypeStoreSnapshot.read(new ByteArrayInputStream(buffer.toByteArray()), vf);
+        assertEquals(2, restored.length);
+        assertEquals(new HashSet<>(Arrays.asList(a, c)), restored[0].lookupAlternatives(A));
+        assertEquals(Collections.singleton(a), restored[1].lookupAlternatives(A));
+    }
+
     @ParameterizedTest @ArgumentsSource(ValueProvider.class)
     public void iopRoundTrip(IValueFactory vf, TypeStore ts, Type tp) throws IOException {
         ByteArrayOutputStream buffer = new ByteArrayOutputStream();
@@ -251,9 +521,29 @@ public final class BinaryIoSmokeTest extends BooleanStoreProvider {
         }
     }
 
+    private void ioRoundTripPacked(IValueFactory vf, TypeStore ts, IValue value) throws IOException {
+        for (var rate: RATES_TO_TESTS) {
+            try {
+                ioRoundTrip(vf, ts, value, rate, Sharing.REFERENCE, Packing.PACKED);
+            }
+            catch (Throwable e) {
+                fail("Error with "+ rate + " compression", e);
+            }
+        }
+    }
+
     private void ioRoundTrip(IValueFactory vf, TypeStore ts, IValue value, IValueOutputStream.CompressionRate compression) throws IOException {
+        ioRoundTrip(vf, ts, value, compression, Sharing.REFERENCE);
+    }
+
+    private byte[] ioRoundTrip(IValueFactory vf, TypeStore ts, IValue value, IValueOutputStream.CompressionRate compression, Sharing sharing) throws IOException {
+        return ioRoundTrip(vf, ts, value, compression, sharing, Packing.ELEMENTS);
+    }
+
+    private byte[] ioRoundTrip(IValueFactory vf, TypeStore ts, IValue value, IValueOutputStream.CompressionRate compression, Sharing sharing, Packing packing) throws IOException {
         ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-        try (IValueOutputStream w = new IValueOutputStream(buffer, vf, compression)) {
+        try (IValueOutputStream w = new IValueOutputStream(buffer, vf, compression, sharing)) {
+            w.setPacking(packing);
             w.write(value);
         }
         try (IValueInputStream read = new IValueInputStream(new ByteArrayInputStream(buffer.toByteArray()), vf, () -> ts)) {
@@ -284,6 +574,7 @@ public final class BinaryIoSmokeTest extends BooleanStoreProvider {
                 }
             }
         }
+        return buffer.toByteArray();
     }
 
     private void ioRoundTripFile(IValueFactory vf, TypeStore ts, IValue value) throws IOException {
@@ -1,5 +1,6 @@
 package io.usethesource.vallang.basic;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import java.util.Random;
 import java.util.concurrent.BrokenBarrierException;
@@ -7,6 +8,7 @@ import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ArgumentsSource;
 import io.usethesource.vallang.IValueFactory;
@@ -75,4 +77,68 @@ public class ConcurrentTests {
         allDone.await(10, TimeUnit.MINUTES);
         assertNull(error.get(), "Should be no exception when running init");
     }
+
+    @Test
+    public void lookupsDuringDeclarations() throws InterruptedException, BrokenBarrierException, TimeoutException {
+        int readers = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+        int constructors = 500;
+        TypeFactory tf = TypeFactory.getInstance();
+        TypeStore declarations = new TypeStore();
+        TypeStore user = new TypeStore(declarations);
+        Type Exp = tf.abstractDataType(declarations, "Exp");
+        var allStarted = new CyclicBarrier(readers + 2);
+        var error = new AtomicReference<Throwable>(null);
+        var threads = new Thread[readers + 1];
+
+        threads[0] = new Thread(() -> {
+            try {
+                allStarted.await();
+                for (int i = 0; i < constructors; i++) {
+                    tf.constructor(declarations, Exp, "c" + i, tf.integerType());
+                }
+            }
+            catch (Throwable failure) {
+                error.set(failure);
+            }
+        });
+
+        for (int r = 1; r <= readers; r++) {
+            threads[r] = new Thread(() -> {
+                try {
+                    allStarted.await();
+                    int seen = 0;
+                    while (seen < constructors) {
+                        // the alternatives only ever grow, and every one of them can be found by name
+                        int now = user.lookupAlternatives(Exp).size();
+                        if (now < seen) {
+                            throw new AssertionError("alternatives shrunk from " + seen + " to " + now);
+                        }
+                        seen = now;
+                        for (Type alt : user.lookupAlternatives(Exp)) {
+                            if (user.lookupConstructor(Exp, alt.getName()).isEmpty()) {
+                                throw new AssertionError("missing " + alt);
+                            }
+                        }
+                    }
+                }
+                catch (Throwable failure) {
+                    error.set(failure);
+                }
+            });
+        }
+
+        for (Thread t : threads) {
+            t.setDaemon(true);
+            t.start();
+        }
+
+        allStarted.await(1, TimeUnit.MINUTES);
+        for (Thread t : threads) {
+            t.join(TimeUnit.MINUTES.toMillis(10));
+        }
+
+        assertNull(error.get(), "Should be no exception when looking up during declarations");
+        assertEquals(constructors, user.lookupAlternatives(Exp).size());
+        assertEquals(1, user.lookupConstructors("c" + (constructors - 1)).size());
+    }
 }
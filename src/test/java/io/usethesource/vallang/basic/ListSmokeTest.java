@@ -12,10 +12,14 @@
 
 package io.usethesource.vallang.basic;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Random;
 import java.util.Set;
 
@@ -24,6 +28,7 @@ import org.junit.jupiter.params.provider.ArgumentsSource;
 
 import io.usethesource.vallang.IList;
 import io.usethesource.vallang.IListWriter;
+import io.usethesource.vallang.INumber;
 import io.usethesource.vallang.IValue;
 import io.usethesource.vallang.IValueFactory;
 import io.usethesource.vallang.ValueProvider;
@@ -343,6 +348,91 @@ public final class ListSmokeTest {
             fail("12312 subtract 123213213 should be empty");
     }
 
+    private IList boxedList(IValueFactory vf, long[] values) {
+        IListWriter w = vf.listWriter();
+        for (long v : values) {
+            w.append(vf.integer(v));
+        }
+        return w.done();
+    }
+
+    private void assertSameNumericList(IList expected, IList actual) {
+        assertEquals(expected, actual);
+        assertEquals(actual, expected);
+        assertEquals(expected.hashCode(), actual.hashCode());
+        assertEquals(expected.getType(), actual.getType());
+        for (int i = 0; i < expected.length(); i++) {
+            assertEquals(expected.get(i), actual.get(i));
+        }
+    }
+
+    private void assertSameNumericOperations(IList expected, IList actual, INumber... terms) {
+        assertSameNumericList(expected, actual);
+        assertEquals(expected.sum(), actual.sum());
+        assertEquals(expected.min(), actual.min());
+        assertEquals(expected.max(), actual.max());
+        assertSameNumericList(expected.sort(), actual.sort());
+        for (INumber t : terms) {
+            assertSameNumericList(expected.addEach(t), actual.addEach(t));
+            assertSameNumericList(expected.multiplyEach(t), actual.multiplyEach(t));
+        }
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testIntegerListOperations(IValueFactory vf) {
+        INumber[] terms = { vf.integer(0), vf.integer(-3), vf.integer(Integer.MAX_VALUE), vf.integer(Long.MAX_VALUE),
+            vf.integer("123456789012345678901234567890"), vf.rational(1, 3), vf.real(0.5) };
+
+        long[][] inputs = {
+            { 3, -1, 4, 1, -5, 9, 2, 6 },
+            { 42 },
+            { Integer.MIN_VALUE, Integer.MAX_VALUE, 0 },
+            { Long.MAX_VALUE, 1, Long.MIN_VALUE, -7 },
+            { Long.MAX_VALUE, Long.MAX_VALUE },
+        };
+
+        for (long[] input : inputs) {
+            IList expected = boxedList(vf, input);
+            assertSameNumericOperations(expected, vf.integerList(input), terms);
+
+            if (Arrays.stream(input).allMatch(v -> v == (int) v)) {
+                int[] ints = Arrays.stream(input).mapToInt(v -> (int) v).toArray();
+                assertSameNumericOperations(expected, vf.integerList(ints), terms);
+            }
+        }
+
+        // the lists do not share the array they were created from
+        int[] values = { 1, 2, 3 };
+        IList list = vf.integerList(values);
+        values[0] = 10;
+        assertEquals(vf.integer(1), list.get(0));
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testRealListOperations(IValueFactory vf) {
+        double[] input = { 2.5, -0.0, 1e-3, 0.0, -7.25, 1e300, 0.1 };
+        IListWriter w = vf.listWriter();
+        for (double v : input) {
+            w.append(vf.real(v));
+        }
+        IList expected = w.done();
+
+        assertSameNumericOperations(expected, vf.realList(input), vf.integer(2), vf.real(0.1), vf.rational(1, 3));
+        assertThrows(NumberFormatException.class, () -> vf.realList(new double[] { 1.0, Double.NaN }));
+        assertThrows(NumberFormatException.class, () -> vf.realList(new double[] { Double.POSITIVE_INFINITY }));
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testEmptyNumericLists(IValueFactory vf) {
+        assertEquals(vf.list(), vf.integerList(new int[0]));
+        assertEquals(vf.list(), vf.integerList(new long[0]));
+        assertEquals(vf.list(), vf.realList(new double[0]));
+        assertEquals(vf.list(), vf.list().sort());
+        assertThrows(NoSuchElementException.class, () -> vf.list().sum());
+        assertThrows(NoSuchElementException.class, () -> vf.integerList(new int[0]).min());
+        assertThrows(NoSuchElementException.class, () -> vf.realList(new double[0]).max());
+    }
+
     private boolean checkListEquality(IList lst1, IList lst2) {
         return lst1.isSubListOf(lst2) && lst2.isSubListOf(lst2);
 
@@ -12,7 +12,10 @@
 
 package io.usethesource.vallang.basic;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
@@ -20,6 +23,7 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -31,6 +35,7 @@ import io.usethesource.vallang.IValueFactory;
 import io.usethesource.vallang.ValueProvider;
 import io.usethesource.vallang.exceptions.FactTypeDeclarationException;
 import io.usethesource.vallang.exceptions.FactTypeUseException;
+import io.usethesource.vallang.exceptions.UndeclaredFieldException;
 import io.usethesource.vallang.type.Type;
 import io.usethesource.vallang.type.TypeFactory;
 import io.usethesource.vallang.type.TypeStore;
@@ -461,6 +466,153 @@ public final class TypeFactorySmokeTest {
         }
     }
 
+    @ParameterizedTest
+    @ArgumentsSource(ValueProvider.class)
+    public void testLookupFirstConstructor() {
+        TypeStore imported = new TypeStore();
+        TypeStore ts = new TypeStore(imported);
+        Type A = ft.abstractDataType(ts, "A");
+        Type B = ft.abstractDataType(ts, "B");
+        Type litNum = ft.constructor(ts, A, "lit", ft.numberType());
+        Type litInts = ft.constructor(ts, A, "lit", ft.integerType(), ft.integerType());
+        Type litInt = ft.constructor(ts, B, "lit", ft.integerType());
+
+        assertSame(litInt, ts.lookupFirstConstructor("lit", ft.tupleType(ft.integerType())));
+        assertSame(litNum, ts.lookupFirstConstructor("lit", ft.tupleType(ft.realType())));
+        assertSame(litInts, ts.lookupFirstConstructor("lit", ft.tupleType(ft.integerType(), ft.integerType())));
+        assertNull(ts.lookupFirstConstructor("lit", ft.tupleType(ft.stringType())));
+        assertNull(ts.lookupFirstConstructor("lit", ft.tupleType(ft.integerType(), ft.integerType(), ft.integerType())));
+        assertNull(ts.lookupFirstConstructor("other", ft.tupleType(ft.integerType())));
+
+        // declarations in imports are visible after earlier lookups
+        Type C = ft.abstractDataType(imported, "C");
+        Type litStr = ft.constructor(imported, C, "lit", ft.stringType());
+        assertSame(litStr, ts.lookupFirstConstructor("lit", ft.tupleType(ft.stringType())));
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(ValueProvider.class)
+    public void testFieldIndexOfWideTuples() {
+        for (int arity = 1; arity < 40; arity++) {
+            Type[] fieldTypes = new Type[arity];
+            String[] fieldNames = new String[arity];
+            for (int i = 0; i < arity; i++) {
+                fieldTypes[i] = types[i % types.length];
+                fieldNames[i] = "field" + i;
+            }
+            Type tuple = ft.tupleType(fieldTypes, fieldNames);
+
+            for (int i = 0; i < arity; i++) {
+                // a fresh string, so the lookup can not rely on identity
+                String name = new String("field" + i);
+                assertEquals(i, tuple.getFieldIndex(name));
+                assertTrue(tuple.hasField(name));
+                assertSame(fieldTypes[i], tuple.getFieldType(name));
+            }
+
+            assertFalse(tuple.hasField("field" + arity));
+            assertFalse(tuple.hasField("other"));
+
+            try {
+                tuple.getFieldIndex("other");
+                fail("other is not a field");
+            } catch (UndeclaredFieldException e) {
+                // this should happen
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(ValueProvider.class)
+    public void testBatchDeclarations() {
+        TypeStore imported = new TypeStore();
+        Type E = ft.abstractDataType(imported, "E");
+        TypeStore ts = new TypeStore(imported);
+
+        TypeStore.Batch batch = ts.batch();
+        Type A = batch.abstractDataType("A");
+        Type a = batch.constructor(A, "a", ft.integerType(), "i");
+        Type e = batch.constructor(E, "e", A, "child");
+        Type alias = batch.aliasType("Alias", ft.listType(A));
+        batch.declareKeywordParameter(a, "k", ft.stringType());
+
+        // many constructors, so they are checked in parallel
+        Type[] bs = new Type[1000];
+        for (int i = 0; i < bs.length; i++) {
+            Type B = batch.abstractDataType("B" + i);
+            bs[i] = batch.constructor(B, "b", ft.integerType(), "i");
+        }
+
+        assertNull(ts.lookupAbstractDataType("A"));
+        assertTrue(ts.lookupAlternatives(E).isEmpty());
+
+        batch.commit();
+        assertSame(A, ts.lookupAbstractDataType("A"));
+        assertSame(alias, ts.lookupAlias("Alias"));
+        assertEquals(Collections.singleton(a), ts.lookupAlternatives(A));
+        assertEquals(Collections.singleton(e), ts.lookupAlternatives(E));
+        assertSame(ft.stringType(), ts.getKeywordParameterType(a, "k"));
+        assertEquals(bs.length, ts.lookupConstructors("b").size());
+        assertTrue(imported.lookupAlternatives(E).isEmpty());
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(ValueProvider.class)
+    public void testBatchDeclarationsAreAtomic() {
+        TypeStore ts = new TypeStore();
+        Type A = ft.abstractDataType(ts, "A");
+        ft.constructor(ts, A, "a", ft.integerType(), "i");
+
+        TypeStore.Batch batch = ts.batch();
+        Type B = batch.abstractDataType("B");
+        batch.constructor(B, "b");
+        batch.constructor(A, "a", ft.realType(), "i");
+
+        try {
+            batch.commit();
+            fail("a(int) and a(real) are comparable");
+        } catch (FactTypeDeclarationException expected) {
+            // this should happen
+        }
+
+        assertNull(ts.lookupAbstractDataType("B"));
+        assertEquals(1, ts.lookupAlternatives(A).size());
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(ValueProvider.class)
+    public void testConcurrentBatchCommits() throws InterruptedException {
+        TypeStore ts = new TypeStore();
+        Type S = ft.abstractDataType(ts, "S");
+
+        // batches and single declarations race for the same store and data-type
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int id = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 50; i++) {
+                    if (id == 0) {
+                        ft.constructor(ts, S, "single" + i);
+                        continue;
+                    }
+                    TypeStore.Batch batch = ts.batch();
+                    Type T = batch.abstractDataType("T" + id + "_" + i);
+                    batch.constructor(T, "t");
+                    batch.constructor(S, "s" + id + "_" + i);
+                    batch.commit();
+                }
+            });
+            threads[t].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(threads.length * 50, ts.lookupAlternatives(S).size());
+        assertEquals((threads.length - 1) * 50, ts.lookupConstructors("t").size());
+    }
+
     @ParameterizedTest
     @ArgumentsSource(ValueProvider.class)
     public void testListType() {
@@ -12,9 +12,12 @@
 
 package io.usethesource.vallang.basic;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
+import java.util.Random;
 import java.util.stream.Stream;
 
 import org.junit.jupiter.api.extension.ExtensionContext;
@@ -31,6 +34,7 @@ import io.usethesource.vallang.ITuple;
 import io.usethesource.vallang.IValueFactory;
 import io.usethesource.vallang.ValueProvider;
 import io.usethesource.vallang.exceptions.FactTypeUseException;
+import io.usethesource.vallang.impl.primitive.AbstractPrimitiveValueFactory;
 import io.usethesource.vallang.type.TypeFactory;
 import io.usethesource.vallang.type.TypeStore;
 
@@ -280,6 +284,90 @@ public final class ValueFactorySmokeTest {
         assertTrue(vf.integer(42).toString().equals("42"));
     }
 
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testCachedNumbers(IValueFactory vf) {
+        for (int i = -200; i < 70000; i += 7) {
+            assertTrue(vf.integer(i).equals(vf.integer(Integer.toString(i))));
+            assertTrue(vf.integer(i).toString().equals(Integer.toString(i)));
+        }
+        for (int i = -200; i < 200; i++) {
+            assertTrue(vf.rational(i, 1).equals(vf.rational(vf.integer(2 * i), vf.integer(2))));
+            assertTrue(vf.real((double) i).equals(vf.real(Integer.toString(i) + ".0")));
+        }
+        assertTrue(vf.rational(0, 5).equals(vf.rational(0, 1)));
+        assertTrue(vf.real(-0.0).equals(vf.real(0.0)));
+        assertTrue(vf.real(1.0).toString().equals("1.0"));
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testDoubleReals(IValueFactory vf) {
+        AbstractPrimitiveValueFactory factory = (AbstractPrimitiveValueFactory) vf;
+        Random rnd = new Random(42);
+        double[] doubles = new double[64];
+        double[] fixed = { 0.0, -0.0, 1.0, -1.5, 0.1, 84.5, 1e20, 1e-20, 1e300, -1e-300, Double.MIN_NORMAL };
+        System.arraycopy(fixed, 0, doubles, 0, fixed.length);
+        for (int i = fixed.length; i < doubles.length; i++) {
+            doubles[i] = (rnd.nextDouble() - 0.5) * Math.pow(10, rnd.nextInt(40) - 20);
+        }
+
+        boolean previous = factory.setDoubleReals(true);
+        try {
+            IReal[] fast = new IReal[doubles.length];
+            for (int i = 0; i < doubles.length; i++) {
+                fast[i] = vf.real(doubles[i]);
+            }
+            factory.setDoubleReals(false);
+
+            for (int i = 0; i < doubles.length; i++) {
+                IReal exact = vf.real(doubles[i]);
+                assertTrue(fast[i].equals(exact));
+                assertTrue(exact.equals(fast[i]));
+                assertEquals(exact.hashCode(), fast[i].hashCode());
+                assertEquals(exact.getStringRepresentation(), fast[i].getStringRepresentation());
+                assertEquals(exact.scale(), fast[i].scale());
+                assertEquals(exact.unscaled(), fast[i].unscaled());
+                assertEquals(exact.toInteger(), fast[i].toInteger());
+
+                for (int j = 0; j < doubles.length; j++) {
+                    IReal otherExact = vf.real(doubles[j]);
+                    // sums are only precise relative to the operands, in case they cancel out
+                    double magnitude = Math.max(Math.abs(doubles[i]), Math.abs(doubles[j]));
+                    assertEquals(exact.compare(otherExact), fast[i].compare(fast[j]));
+                    assertEquals(exact.compare(otherExact), fast[i].compare(otherExact));
+                    assertWithinPrecision(exact.add(otherExact), fast[i].add(fast[j]), magnitude);
+                    assertWithinPrecision(exact.subtract(otherExact), fast[i].subtract(fast[j]), magnitude);
+                    assertWithinPrecision(exact.multiply(otherExact), fast[i].multiply(fast[j]), 0);
+                    if (doubles[j] != 0) {
+                        assertWithinPrecision(exact.divide(otherExact, 15), fast[i].divide(fast[j], 15), 0);
+                    }
+                }
+                assertWithinPrecision((IReal) exact.add(vf.integer(7)), (IReal) fast[i].add(vf.integer(7)), 7);
+            }
+
+            factory.setDoubleReals(true);
+            // results which do not fit a double are promoted
+            assertEquals(vf.real("1.00E+600"), vf.real(1e300).multiply(vf.real(1e300)));
+            assertEquals(1, vf.real(1e-300).multiply(vf.real(1e-300)).signum());
+            assertEquals(1, vf.real(1e-300).divide(vf.real(1e300), 15).signum());
+            assertThrows(ArithmeticException.class, () -> vf.real(1.0).divide(vf.real(0.0), 10));
+            // as are divisions with more precision than a double has
+            assertEquals(vf.real("0.33333333333333333333"), vf.real(1.0).divide(vf.real(3.0), 20));
+        }
+        finally {
+            factory.setDoubleReals(previous);
+        }
+    }
+
+    private static void assertWithinPrecision(IReal expected, IReal actual, double magnitude) {
+        if (expected.equals(actual)) {
+            // also for promoted results, which do not fit a double
+            return;
+        }
+        double e = expected.doubleValue();
+        double a = actual.doubleValue();
+        assertTrue(Math.abs(e - a) <= 1e-14 * Math.max(Math.abs(e), magnitude), () -> "expected " + expected + " but got " + actual);
+    }
+
     @ParameterizedTest @ArgumentsSource(ValueProvider.class)
     public void testDubble(IValueFactory vf) {
         assertTrue(vf.real(84.5).toString().equals("84.5"));
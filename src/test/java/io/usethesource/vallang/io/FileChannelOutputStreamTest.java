@@ -3,12 +3,14 @@ package io.usethesource.vallang.io;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import java.io.IOException;
+import java.nio.channels.AsynchronousFileChannel;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.Random;
 import org.junit.jupiter.api.Test;
+import io.usethesource.vallang.io.binary.util.AsynchronousFileChannelOutputStream;
 import io.usethesource.vallang.io.binary.util.FileChannelDirectInputStream;
 import io.usethesource.vallang.io.binary.util.FileChannelDirectOutputStream;
 
@@ -56,6 +58,23 @@ class FileChannelOutputStreamTest {
     }
 
 
+    @Test
+    void testAsynchronousChunkedBigWrite() throws IOException {
+        byte[][] buffers = new byte[1024][];
+        var r = new Random();
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new byte[i * 128];
+            r.nextBytes(buffers[i]);
+        }
+        try (var writer = new AsynchronousFileChannelOutputStream(AsynchronousFileChannel.open(targetFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), 0)) {
+            for (byte[] buf: buffers) {
+                writer.write(buf);
+            }
+        }
+        verifyChannelInBulk(buffers);
+    }
+
+
     private void roundTripChannel(byte[][] buffers) throws IOException {
         writeChannelInBulk(buffers);
         verifyChannelInBulk(buffers);
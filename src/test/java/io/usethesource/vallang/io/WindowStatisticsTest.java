@@ -0,0 +1,69 @@
+package io.usethesource.vallang.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import io.usethesource.vallang.io.binary.util.OpenAddressingLastWritten;
+import io.usethesource.vallang.io.binary.util.TrackLastWritten;
+import io.usethesource.vallang.io.binary.util.WindowSizes;
+import io.usethesource.vallang.io.binary.util.WindowStatistics;
+
+public class WindowStatisticsTest {
+
+    private static void writeWithDistance(TrackLastWritten<Object> window, int objects, int distance) {
+        Object[] written = new Object[objects];
+        for (int i = 0; i < objects; i++) {
+            written[i] = new Object();
+            if (i >= distance) {
+                window.howLongAgo(written[i - distance]);
+            }
+            window.write(written[i]);
+        }
+    }
+
+    @Test
+    public void countsHitsAndMisses() {
+        WindowStatistics stats = new WindowStatistics(new WindowSizes(1000, 1000, 1000));
+        TrackLastWritten<Object> window = stats.values.measure(OpenAddressingLastWritten.referenceEquality(1000));
+        Object a = new Object();
+        window.howLongAgo(a);
+        window.write(a);
+        window.write(new Object());
+        window.howLongAgo(a);
+
+        assertEquals(2, stats.values.getWrites());
+        assertEquals(2, stats.values.getLookups());
+        assertEquals(1, stats.values.getHits());
+        assertEquals(1, stats.values.getMaxDistance());
+        assertEquals(0.5, stats.values.getHitRate());
+    }
+
+    @Test
+    public void keepsSizeIfWindowNeverFilled() {
+        WindowSizes sizes = new WindowSizes(1000, 1000, 1000);
+        WindowStatistics stats = new WindowStatistics(sizes);
+        writeWithDistance(stats.values.measure(OpenAddressingLastWritten.referenceEquality(1000)), 500, 400);
+        assertSame(sizes, stats.suggest(sizes));
+    }
+
+    @Test
+    public void growsIfHitsAreNearTheEdge() {
+        WindowSizes sizes = new WindowSizes(1000, 1000, 1000);
+        WindowStatistics stats = new WindowStatistics(sizes);
+        writeWithDistance(stats.values.measure(OpenAddressingLastWritten.referenceEquality(1000)), 5000, 900);
+        assertEquals(2000, stats.suggest(sizes).valueWindow);
+        assertEquals(1000, stats.suggest(sizes).typeWindow);
+    }
+
+    @Test
+    public void shrinksIfHitsAreClose() {
+        WindowSizes sizes = new WindowSizes(100_000, 1000, 1000);
+        WindowStatistics stats = new WindowStatistics(sizes);
+        writeWithDistance(stats.values.measure(OpenAddressingLastWritten.referenceEquality(100_000)), 200_000, 100);
+        int suggested = stats.suggest(sizes).valueWindow;
+        assertTrue(suggested > 100 && suggested < 100_000, "suggested: " + suggested);
+    }
+}
@@ -5,6 +5,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.math.BigInteger;
+
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ArgumentsSource;
@@ -383,6 +385,93 @@ public class INumberTests {
         assertEqualNumber(a.toRational().multiply(b.toRational()).toInteger(), a.multiply(b));
     }
 
+    /**
+    * Check the arithmetic around the 32-bit and 64-bit boundaries against BigInteger, and that every
+    * value has one representation no matter how it was computed.
+    **/
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testIntegerBoundaries(IValueFactory vf) {
+        BigInteger[] boundaries = new BigInteger[] {
+            BigInteger.ZERO, BigInteger.ONE, BigInteger.valueOf(-1), BigInteger.valueOf(2),
+            BigInteger.valueOf(Integer.MAX_VALUE), BigInteger.valueOf(Integer.MIN_VALUE),
+            BigInteger.valueOf(Integer.MAX_VALUE).add(BigInteger.ONE), BigInteger.valueOf(Integer.MIN_VALUE).subtract(BigInteger.ONE),
+            BigInteger.valueOf(Long.MAX_VALUE), BigInteger.valueOf(Long.MIN_VALUE),
+            BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE), BigInteger.valueOf(Long.MIN_VALUE).subtract(BigInteger.ONE),
+            BigInteger.valueOf(3037000500L), BigInteger.valueOf(-3037000500L),
+        };
+
+        for (BigInteger l : boundaries) {
+            IInteger a = vf.integer(l.toString());
+            assertEquals(a, vf.integer(l.toByteArray()));
+            assertEquals(l, new BigInteger(a.getTwosComplementRepresentation()));
+            assertEquals(l.negate().toString(), a.negate().getStringRepresentation());
+            assertEquals(l.abs().toString(), a.abs().getStringRepresentation());
+            if (l.bitLength() < 64) {
+                assertEquals(a, vf.integer(l.longValue()));
+            }
+
+            for (BigInteger r : boundaries) {
+                IInteger b = vf.integer(r.toString());
+                assertEquals(vf.integer(l.add(r).toString()), a.add(b));
+                assertEquals(vf.integer(l.subtract(r).toString()), a.subtract(b));
+                assertEquals(vf.integer(l.multiply(r).toString()), a.multiply(b));
+                assertEquals(Integer.signum(l.compareTo(r)), Integer.signum(a.compare(b)));
+                if (r.signum() != 0) {
+                    assertEquals(vf.integer(l.divide(r).toString()), a.divide(b));
+                    assertEquals(vf.integer(l.remainder(r).toString()), a.remainder(b));
+                }
+                if (r.signum() > 0) {
+                    assertEquals(vf.integer(l.mod(r).toString()), a.mod(b));
+                }
+            }
+        }
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void testRationalBoundaries(IValueFactory vf) {
+        long[] boundaries = new long[] {
+            0, 1, -1, 2, 3, -6, 1L << 32, 3037000499L, -3037000500L,
+            Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1, Long.MAX_VALUE - 1,
+        };
+
+        for (long n1 : boundaries) {
+            for (long d1 : boundaries) {
+                if (d1 == 0) {
+                    continue;
+                }
+                IRational a = vf.rational(n1, d1);
+                BigInteger bn1 = BigInteger.valueOf(n1);
+                BigInteger bd1 = BigInteger.valueOf(d1);
+                assertEquals(a, vf.rational(vf.integer(bn1.toString()), vf.integer(bd1.toString())));
+                assertEquals(a.hashCode(), vf.rational(vf.integer(bn1.toString()), vf.integer(bd1.toString())).hashCode());
+                BigInteger num = new BigInteger(a.numerator().getTwosComplementRepresentation());
+                BigInteger denom = new BigInteger(a.denominator().getTwosComplementRepresentation());
+                assertEquals(BigInteger.ONE, num.gcd(denom));
+                assertEquals(1, denom.signum());
+                assertEquals(bn1.multiply(denom), num.multiply(bd1));
+
+                for (long n2 : new long[] { 1, -3, 7, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE }) {
+                    for (long d2 : new long[] { 1, 2, -9, Long.MAX_VALUE }) {
+                        IRational b = vf.rational(n2, d2);
+                        BigInteger bn2 = BigInteger.valueOf(n2);
+                        BigInteger bd2 = BigInteger.valueOf(d2);
+                        assertEquals(rational(vf, bn1.multiply(bd2).add(bn2.multiply(bd1)), bd1.multiply(bd2)), a.add(b));
+                        assertEquals(rational(vf, bn1.multiply(bd2).subtract(bn2.multiply(bd1)), bd1.multiply(bd2)), a.subtract(b));
+                        assertEquals(rational(vf, bn1.multiply(bn2), bd1.multiply(bd2)), a.multiply(b));
+                        assertEquals(rational(vf, bn1.multiply(bd2), bd1.multiply(bn2)), a.divide(b));
+                        assertEquals(bn1.multiply(bd2).subtract(bn2.multiply(bd1)).multiply(bd1.multiply(bd2)).signum(), a.compare(b));
+                        assertEquals(rational(vf, bn1.add(bn2.multiply(bd1)), bd1), a.add(vf.integer(n2)));
+                        assertEquals(rational(vf, bn1.multiply(bn2), bd1), a.multiply(vf.integer(n2)));
+                    }
+                }
+            }
+        }
+    }
+
+    private static IRational rational(IValueFactory vf, BigInteger num, BigInteger denom) {
+        return vf.rational(vf.integer(num.toString()), vf.integer(denom.toString()));
+    }
+
     @ParameterizedTest @ArgumentsSource(ValueProvider.class)
     public void testRealBehavior(IValueFactory vf, IReal a, IReal b) {
         assertApprox(vf, a, a.add(b).subtract(b));
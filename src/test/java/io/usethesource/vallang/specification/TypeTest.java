@@ -1,14 +1,19 @@
 package io.usethesource.vallang.specification;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.IOException;
 import java.io.StringReader;
+import java.lang.ref.WeakReference;
 import java.util.AbstractMap;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -17,13 +22,21 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ArgumentsSource;
 
+import io.usethesource.vallang.IConstructor;
+import io.usethesource.vallang.ISet;
+import io.usethesource.vallang.ISetWriter;
 import io.usethesource.vallang.IValue;
+import io.usethesource.vallang.IValueFactory;
 import io.usethesource.vallang.TypeConfig;
 import io.usethesource.vallang.TypeConfig.Option;
 import io.usethesource.vallang.ValueProvider;
 import io.usethesource.vallang.exceptions.FactTypeDeclarationException;
+import io.usethesource.vallang.exceptions.FactTypeUseException;
 import io.usethesource.vallang.type.Type;
 import io.usethesource.vallang.type.TypeFactory;
+import io.usethesource.vallang.type.TypeFacts;
+import io.usethesource.vallang.type.TypeMatcher;
+import io.usethesource.vallang.type.TypeRelationCache;
 import io.usethesource.vallang.type.TypeStore;
 
 public class TypeTest {
@@ -519,4 +532,168 @@ public class TypeTest {
     public void openTypeParametersAlwaysMatchReversed(TypeFactory tf, Type matched) {
         assertTrue(matched.match(tf.parameterType("Free"), new HashMap<>()));
     }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class) @TypeConfig(Option.ALL)
+    public void memoizedRelationsAreStable(Type t, Type u) {
+        boolean subtype = t.isSubtypeOf(u);
+        Type lub = t.lub(u);
+        Type glb = t.glb(u);
+
+        // second time around the answers come from the memo table
+        assertTrue(t.isSubtypeOf(u) == subtype);
+        assertTrue(t.lub(u) == lub);
+        assertTrue(t.glb(u) == glb);
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void memoizedRelationsAreHit(TypeFactory tf) {
+        Type left = tf.listType(tf.tupleType(tf.integerType(), tf.setType(tf.stringType())));
+        Type right = tf.listType(tf.tupleType(tf.realType(), tf.setType(tf.stringType())));
+        Type expected = tf.listType(tf.tupleType(tf.numberType(), tf.setType(tf.stringType())));
+
+        assertTrue(left.lub(right) == expected);
+        TypeRelationCache.lubs().setStatistics(true);
+        try {
+            long hits = TypeRelationCache.lubs().getHits();
+            for (int i = 0; i < 10; i++) {
+                assertTrue(left.lub(right) == expected);
+                assertFalse(left.isSubtypeOf(right));
+            }
+            assertTrue(TypeRelationCache.lubs().getHits() > hits);
+        }
+        finally {
+            TypeRelationCache.lubs().setStatistics(false);
+        }
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void memoizedRelationsDoNotRetainTypes(TypeFactory tf) throws InterruptedException {
+        WeakReference<Type> adt = memoizeRelationsOfFreshType(tf);
+
+        // the type factory holds on to the types it created most recently, so create enough others
+        for (int i = 0; i < 20_000; i++) {
+            tf.parameterType("Flush" + i);
+        }
+        for (int i = 0; i < 20 && adt.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(adt.get(), "the memo tables should not keep the types of a discarded store alive");
+    }
+
+    private WeakReference<Type> memoizeRelationsOfFreshType(TypeFactory tf) {
+        TypeStore store = new TypeStore();
+        Type adt = tf.abstractDataType(store, "Discarded" + System.nanoTime());
+        Type cons = tf.constructor(store, adt, "cons", tf.integerType(), "i");
+        Type list = tf.listType(adt);
+        Type other = tf.listType(tf.tupleType(adt, tf.stringType()));
+
+        assertTrue(cons.isSubtypeOf(adt));
+        assertFalse(list.isSubtypeOf(other));
+        list.lub(other);
+        list.glb(other);
+        return new WeakReference<>(adt);
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class) @TypeConfig(Option.ALL)
+    public void compiledMatchersAgree(Type t, Type u) {
+        TypeMatcher matcher = TypeMatcher.compile(t);
+        Type[] bindings = matcher.newBindings();
+
+        // besides u itself, closed instances of both types are matched by the compiled nodes
+        for (Type actual : new Type[] { u, closedInstance(u), closedInstance(t) }) {
+            Map<Type, Type> expected = new HashMap<>();
+            boolean matched;
+            try {
+                matched = t.match(actual, expected);
+            }
+            catch (FactTypeUseException e) {
+                continue;
+            }
+
+            Arrays.fill(bindings, null);
+            assertEquals(matched, matcher.match(actual, bindings), t + " matches " + actual);
+            if (matched) {
+                for (int i = 0; i < matcher.getArity(); i++) {
+                    assertEquals(expected.get(matcher.getParameter(i)), bindings[i], t + " matches " + actual);
+                }
+                assertEquals(expected.size(), matcher.toMap(bindings).size());
+            }
+        }
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class) @TypeConfig(Option.ALL)
+    public void factsAgreeWithPredicates(Type t) {
+        TypeFacts facts = t.getFacts();
+        assertTrue(t.getFacts() == facts);
+
+        assertEquals(t.isList(), facts.isAny(TypeFacts.LIST));
+        assertEquals(t.isSet(), facts.isAny(TypeFacts.SET));
+        assertEquals(t.isMap(), facts.isAny(TypeFacts.MAP));
+        assertEquals(t.isTuple(), facts.isAny(TypeFacts.TUPLE));
+        assertEquals(t.isAbstractData(), facts.isAny(TypeFacts.ABSTRACT_DATA));
+        assertEquals(t.isConstructor(), facts.isAny(TypeFacts.CONSTRUCTOR));
+        assertEquals(t.isSourceLocation(), facts.isAny(TypeFacts.SOURCE_LOCATION));
+        assertEquals(t.isAliased(), facts.isAny(TypeFacts.ALIASED));
+        assertEquals(t.isOpen(), facts.isAny(TypeFacts.OPEN));
+        assertEquals(t.isParameterized(), facts.isAny(TypeFacts.PARAMETERIZED));
+        assertEquals(t.isInteger() || t.isString(), facts.isAny(TypeFacts.INTEGER | TypeFacts.STRING));
+
+        Type dealiased = t;
+        while (dealiased.isAliased()) {
+            dealiased = dealiased.getAliased();
+        }
+        assertTrue(facts.getDealiased() == dealiased);
+        assertEquals(dealiased.getFacts().getKinds(), facts.getDealiasedKinds());
+        assertEquals(dealiased.isTuple() || dealiased.isConstructor() ? dealiased.getArity() : -1, facts.getArity());
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void reifiedSymbolsAreStable(IValueFactory vf, TypeFactory tf, TypeStore store, Type t) {
+        ISetWriter direct = vf.setWriter();
+        IConstructor expected = t.asSymbol(vf, store, direct, new HashSet<>());
+        ISet expectedGrammar = direct.done();
+
+        // second time around the symbol and grammar come from the cache
+        for (int i = 0; i < 2; i++) {
+            ISetWriter grammar = vf.setWriter();
+            assertEquals(expected, tf.asSymbol(t, vf, store, grammar));
+            assertEquals(expectedGrammar, grammar.done());
+        }
+
+        Type reified = tf.fromSymbol(expected);
+        assertTrue(tf.fromSymbol(expected) == reified);
+    }
+
+    @ParameterizedTest @ArgumentsSource(ValueProvider.class)
+    public void reifiedGrammarFollowsDeclarations(IValueFactory vf, TypeFactory tf) {
+        TypeStore store = new TypeStore();
+        Type E = tf.abstractDataType(store, "E");
+        tf.constructor(store, E, "f", tf.integerType(), "i");
+        Type list = tf.listType(E);
+
+        ISetWriter grammar = vf.setWriter();
+        IConstructor symbol = tf.asSymbol(list, vf, store, grammar);
+        assertEquals(1, grammar.done().size());
+
+        tf.constructor(store, E, "g", tf.stringType(), "s");
+        grammar = vf.setWriter();
+        assertEquals(symbol, tf.asSymbol(list, vf, store, grammar));
+        assertEquals(2, grammar.done().size());
+
+        // converting the symbol in a store without a grammar still declares the data-type
+        assertTrue(tf.fromSymbol(symbol) == list);
+        TypeStore other = new TypeStore();
+        assertTrue(tf.fromSymbol(symbol, other, x -> Collections.emptySet()) == list);
+        assertTrue(other.lookupAbstractDataType("E") == E);
+    }
+
+    private static Type closedInstance(Type t) {
+        TypeMatcher matcher = TypeMatcher.compile(t);
+        Type[] bindings = matcher.newBindings();
+        for (int i = 0; i < bindings.length; i++) {
+            bindings[i] = matcher.getParameter(i).getBound();
+        }
+        return matcher.instantiate(bindings);
+    }
 }
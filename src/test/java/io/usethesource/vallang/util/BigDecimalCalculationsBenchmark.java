@@ -0,0 +1,48 @@
+package io.usethesource.vallang.util;
+
+import java.math.BigDecimal;
+import java.util.function.Supplier;
+
+import io.usethesource.vallang.impl.util.BigDecimalCalculations;
+
+/**
+ * Times the transcendental functions of {@link BigDecimalCalculations} at increasing precisions.
+ *
+ * NB! make sure to run with asserts disabled.
+ */
+public class BigDecimalCalculationsBenchmark {
+    private static final int[] PRECISIONS = { 10, 50, 100, 300, 1000, 3000 };
+
+    public static void main(String[] args) {
+        BigDecimal x = new BigDecimal("42.125");
+        BigDecimal small = new BigDecimal("0.7071");
+        BigDecimal power = new BigDecimal("1.37");
+
+        for (int round = 0; round < 2; round++) {
+            for (int precision : PRECISIONS) {
+                final int p = precision;
+                // fewer repetitions at high precisions, the costs grow more than quadratically
+                int repetitions = Math.max(1, 200_000 / (p * p));
+
+                System.err.println("precision " + p
+                    + ": sin " + time(() -> BigDecimalCalculations.sin(x, p), repetitions)
+                    + ", cos " + time(() -> BigDecimalCalculations.cos(small, p), repetitions)
+                    + ", exp " + time(() -> BigDecimalCalculations.exp(x, p), repetitions)
+                    + ", ln " + time(() -> BigDecimalCalculations.ln(x, p), repetitions)
+                    + ", sqrt " + time(() -> BigDecimalCalculations.sqrt(x, p), repetitions)
+                    + ", pow " + time(() -> BigDecimalCalculations.pow(x, power, p), repetitions)
+                    + ", pi " + time(() -> BigDecimalCalculations.pi(p), repetitions));
+            }
+        }
+    }
+
+    private static String time(Supplier<BigDecimal> f, int repetitions) {
+        int sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < repetitions; i++) {
+            sink += f.get().signum();
+        }
+        long time = System.nanoTime() - start;
+        return (time / repetitions / 1000) + "us" + (sink == 42 ? "!" : "");
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2026, Centrum Wiskunde & Informatica (CWI)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package io.usethesource.vallang.util;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import io.usethesource.vallang.IDateTime;
+import io.usethesource.vallang.IValueFactory;
+import io.usethesource.vallang.impl.persistent.ValueFactory;
+
+/**
+ * Measures the retained heap of the date-time values of a log, and the time to create, sort, hash, take apart and
+ * format them.
+ *
+ * NB! make sure to run with asserts disabled.
+ */
+public class DateTimeBenchmark {
+    private static final int COUNT = 1_000_000;
+    private static final int FORMATTED = 100_000;
+
+    public static void main(String[] args) {
+        IValueFactory vf = ValueFactory.getInstance();
+        Random r = new Random(42);
+        long[] instants = new long[COUNT];
+        int[] offsets = new int[COUNT];
+        long now = 1_700_000_000_000L;
+        for (int i = 0; i < COUNT; i++) {
+            // a month of log lines, from servers in a few time zones
+            instants[i] = now + (long) (r.nextDouble() * 30L * 24 * 3600 * 1000);
+            offsets[i] = r.nextInt(5) - 2;
+        }
+
+        for (int round = 0; round < 5; round++) {
+            long before = usedHeap();
+            long start = System.nanoTime();
+            IDateTime[] values = new IDateTime[COUNT];
+            for (int i = 0; i < COUNT; i++) {
+                values[i] = vf.datetime(instants[i], offsets[i], 0);
+            }
+            long create = System.nanoTime() - start;
+            long retained = usedHeap() - before;
+
+            start = System.nanoTime();
+            IDateTime[] sorted = values.clone();
+            Arrays.sort(sorted, IDateTime::compareTo);
+            long sort = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            Set<IDateTime> distinct = new HashSet<>(Arrays.asList(values));
+            long hash = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long sink = 0;
+            for (IDateTime dt : values) {
+                sink += dt.getYear() + dt.getDayOfMonth() + dt.getHourOfDay() + dt.getMinuteOfHour() + dt.getTimezoneOffsetHours();
+            }
+            long fields = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < FORMATTED; i++) {
+                sink += values[i].format("yyyy-MM-dd HH:mm:ss.SSS").length();
+            }
+            long format = System.nanoTime() - start;
+
+            System.err.println("create: " + (create / 1_000_000) + "ms, " + String.format("%.1f", (double) retained / COUNT)
+                + " bytes/value, sort: " + (sort / 1_000_000) + "ms, hash: " + (hash / 1_000_000) + "ms, fields: "
+                + (fields / 1_000_000) + "ms, format " + FORMATTED + ": " + (format / 1_000_000) + "ms ("
+                + distinct.size() + ", " + sink + ")");
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2026, Centrum Wiskunde & Informatica (CWI)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package io.usethesource.vallang.util;
+
+import java.util.Random;
+
+import io.usethesource.vallang.IReal;
+import io.usethesource.vallang.impl.persistent.ValueFactory;
+
+/**
+ * Compares a small numeric simulation (damped springs) on reals backed by decimals and on reals backed by doubles
+ * (see {@link ValueFactory#setDoubleReals(boolean)}).
+ *
+ * NB! make sure to run with asserts disabled.
+ */
+public class DoubleRealBenchmark {
+    private static final int SPRINGS = 1024;
+    private static final int STEPS = 200;
+
+    public static void main(String[] args) {
+        ValueFactory vf = ValueFactory.getInstance();
+        Random r = new Random(42);
+        double[] positions = new double[SPRINGS];
+        for (int i = 0; i < SPRINGS; i++) {
+            positions[i] = r.nextDouble() * 10 - 5;
+        }
+
+        for (boolean doubles : new boolean[] { false, true, false, true }) {
+            boolean previous = vf.setDoubleReals(doubles);
+            try {
+                IReal dt = vf.real(0.01);
+                IReal stiffness = vf.real(4.0);
+                IReal damping = vf.real(0.1);
+                IReal bound = vf.real(1.0);
+
+                long start = System.nanoTime();
+                IReal energy = vf.real(0.0);
+                int outside = 0;
+                for (int i = 0; i < SPRINGS; i++) {
+                    IReal x = vf.real(positions[i]);
+                    IReal v = vf.real(0.0);
+                    for (int step = 0; step < STEPS; step++) {
+                        IReal a = stiffness.multiply(x).add(damping.multiply(v)).negate();
+                        v = v.add(a.multiply(dt));
+                        x = x.add(v.multiply(dt));
+                        if (x.abs().compare(bound) > 0) {
+                            outside++;
+                        }
+                    }
+                    energy = energy.add(x.multiply(x).multiply(stiffness)).add(v.multiply(v));
+                }
+                long time = System.nanoTime() - start;
+
+                System.err.println((doubles ? "double  " : "decimal ") + (time / 1_000_000) + "ms ("
+                    + energy.doubleValue() + ", " + outside + ")");
+            }
+            finally {
+                vf.setDoubleReals(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package io.usethesource.vallang.util;
+
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+import java.util.function.Supplier;
+
+/**
+ * Compares the hash-consing maps when many threads look up values, of which most are present already.
+ *
+ * NB! make sure to run with asserts disabled.
+ */
+public class HashConsingMapBenchmark {
+    private static final int KEYS = 64 * 1024;
+    private static final int LOOKUPS = 2_000_000;
+    private static final double NEW_VALUES = 0.05;
+
+    public static void main(String[] args) throws Exception {
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+
+        for (int round = 0; round < 2; round++) {
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                run("weak reference", threads, () -> new WeakReferenceHashConsingMap<>(32 * 1024, 30 * 60));
+                run("striped       ", threads, StripedWeakHashConsingMap::new);
+            }
+        }
+    }
+
+    private static void run(String name, int threads, Supplier<HashConsingMap<String>> factory) throws Exception {
+        HashConsingMap<String> map = factory.get();
+        String[] keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = map.get("value" + i);
+        }
+
+        CyclicBarrier start = new CyclicBarrier(threads + 1);
+        CyclicBarrier done = new CyclicBarrier(threads + 1);
+        int[] sinks = new int[threads];
+
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    Random r = new Random(id);
+                    start.await();
+                    int sink = 0;
+                    for (int i = 0; i < LOOKUPS; i++) {
+                        // equal copies of the present values, or a value which is new most of the time
+                        String key = r.nextDouble() < NEW_VALUES ? "new" + r.nextInt() : new String(keys[r.nextInt(KEYS)]);
+                        sink += System.identityHashCode(map.get(key));
+                    }
+                    sinks[id] = sink;
+                    done.await();
+                }
+                catch (Exception e) {
+                    e.printStackTrace();
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        start.await();
+        long begin = System.nanoTime();
+        done.await();
+        long time = System.nanoTime() - begin;
+
+        System.err.println(name + " threads: " + threads + ", " + (time / 1_000_000) + "ms, "
+            + String.format("%.1f", (double) LOOKUPS * threads / (time / 1000.0)) + " lookups/us (" + sinks[0] + ")");
+    }
+}
@@ -0,0 +1,61 @@
+package io.usethesource.vallang.util;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import io.usethesource.vallang.IInteger;
+import io.usethesource.vallang.IValueFactory;
+import io.usethesource.vallang.impl.persistent.ValueFactory;
+
+/**
+ * Arithmetic-heavy workloads on 64-bit integers (counters, timestamps and hashes), on IIntegers and on plain
+ * BigIntegers for comparison.
+ *
+ * NB! make sure to run with asserts disabled.
+ */
+public class IntegerArithmeticBenchmark {
+    private static final int VALUES = 4096;
+    private static final int ROUNDS = 2_000;
+
+    public static void main(String[] args) {
+        IValueFactory vf = ValueFactory.getInstance();
+        Random r = new Random(42);
+        IInteger[] values = new IInteger[VALUES];
+        BigInteger[] bigValues = new BigInteger[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            // timestamps in milliseconds and 48-bit hashes, all outside the 32-bit range
+            long v = i % 2 == 0 ? 1_700_000_000_000L + r.nextInt() : r.nextLong() >> 16;
+            values[i] = vf.integer(v);
+            bigValues[i] = BigInteger.valueOf(v);
+        }
+        IInteger prime = vf.integer(1_000_003);
+        BigInteger bigPrime = BigInteger.valueOf(1_000_003);
+
+        for (int run = 0; run < 3; run++) {
+            long start = System.nanoTime();
+            IInteger sum = vf.integer(0);
+            IInteger mixed = vf.integer(0);
+            for (int round = 0; round < ROUNDS; round++) {
+                for (int i = 0; i < VALUES; i++) {
+                    sum = sum.add(values[i]).subtract(values[(i + 1) % VALUES]);
+                    mixed = values[i].remainder(prime).multiply(prime).add(mixed).remainder(values[0]);
+                }
+            }
+            long iintegers = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            BigInteger bigSum = BigInteger.ZERO;
+            BigInteger bigMixed = BigInteger.ZERO;
+            for (int round = 0; round < ROUNDS; round++) {
+                for (int i = 0; i < VALUES; i++) {
+                    bigSum = bigSum.add(bigValues[i]).subtract(bigValues[(i + 1) % VALUES]);
+                    bigMixed = bigValues[i].remainder(bigPrime).multiply(bigPrime).add(bigMixed).remainder(bigValues[0]);
+                }
+            }
+            long bigIntegers = System.nanoTime() - start;
+
+            System.err.println("IInteger: " + (iintegers / 1_000_000) + "ms, BigInteger: " + (bigIntegers / 1_000_000)
+                + "ms (" + sum + ", " + mixed + ", " + bigSum + ", " + bigMixed + ")");
+        }
+    }
+}
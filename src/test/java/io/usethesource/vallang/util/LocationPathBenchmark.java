@@ -0,0 +1,78 @@
+/**
+ * Copyright (c) 2026, Centrum Wiskunde & Informatica (CWI)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package io.usethesource.vallang.util;
+
+import java.net.URISyntaxException;
+import java.util.HashSet;
+import java.util.Set;
+
+import io.usethesource.vallang.ISourceLocation;
+import io.usethesource.vallang.IValueFactory;
+import io.usethesource.vallang.impl.persistent.ValueFactory;
+
+/**
+ * Measures the retained heap of a large corpus of source locations into a few thousand directories, like the
+ * fact bases of a code base, and the time to construct and to hash and compare them.
+ *
+ * NB! make sure to run with asserts disabled.
+ */
+public class LocationPathBenchmark {
+    private static final int PROJECTS = 20;
+    private static final int DIRECTORIES = 100;
+    private static final int FILES = 50;
+    private static final int LOCATIONS = 10;
+
+    public static void main(String[] args) throws URISyntaxException {
+        IValueFactory vf = ValueFactory.getInstance();
+        int count = PROJECTS * DIRECTORIES * FILES * LOCATIONS;
+
+        for (int round = 0; round < 5; round++) {
+            ISourceLocation[] corpus = new ISourceLocation[count];
+            long before = usedHeap();
+            long start = System.nanoTime();
+            int i = 0;
+            for (int p = 0; p < PROJECTS; p++) {
+                for (int d = 0; d < DIRECTORIES; d++) {
+                    for (int f = 0; f < FILES; f++) {
+                        for (int l = 0; l < LOCATIONS; l++) {
+                            // every location has its own root, with a freshly built path, as after reading a fact base
+                            String path = "/project" + p + "/src/main/java/org/example/package" + d + "/Module" + f + ".java";
+                            corpus[i++] = vf.sourceLocation(vf.sourceLocation("project", "", path), l * 100, 50);
+                        }
+                    }
+                }
+            }
+            long construct = System.nanoTime() - start;
+            long retained = usedHeap() - before;
+
+            start = System.nanoTime();
+            Set<ISourceLocation> tops = new HashSet<>();
+            for (ISourceLocation loc : corpus) {
+                tops.add(loc.top());
+            }
+            long hashing = System.nanoTime() - start;
+
+            System.err.println("construct: " + (construct / 1_000_000) + "ms, retained: "
+                + String.format("%.1f", (double) retained / count) + " bytes/location, distinct tops: " + tops.size()
+                + " in " + (hashing / 1_000_000) + "ms");
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2026, Centrum Wiskunde & Informatica (CWI)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package io.usethesource.vallang.util;
+
+import java.util.Random;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import io.usethesource.vallang.IList;
+import io.usethesource.vallang.IListWriter;
+import io.usethesource.vallang.INumber;
+import io.usethesource.vallang.IValueFactory;
+import io.usethesource.vallang.impl.persistent.ValueFactory;
+
+/**
+ * Compares the bulk numeric operations on a list of boxed numbers with those on the same list created from an
+ * array of primitive values, for integers and for reals.
+ *
+ * NB! make sure to run with asserts disabled.
+ */
+public class NumericListBenchmark {
+    private static final int COUNT = 1_000_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        IValueFactory vf = ValueFactory.getInstance();
+        Random r = new Random(42);
+        int[] ints = new int[COUNT];
+        double[] doubles = new double[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            ints[i] = r.nextInt(1_000_000);
+            doubles[i] = r.nextGaussian() * 1000;
+        }
+
+        IListWriter intWriter = vf.listWriter();
+        IListWriter realWriter = vf.listWriter();
+        for (int i = 0; i < COUNT; i++) {
+            intWriter.append(vf.integer(ints[i]));
+            realWriter.append(vf.real(doubles[i]));
+        }
+
+        for (int round = 0; round < 3; round++) {
+            measure("boxed int     ", intWriter.done(), vf.integer(3));
+            measure("primitive int ", vf.integerList(ints), vf.integer(3));
+            // the sum and the element-wise arithmetic of reals always use the boxed numbers
+            measure("boxed real    ", realWriter.done(), null);
+            measure("primitive real", vf.realList(doubles), null);
+        }
+    }
+
+    private static void measure(String name, IList list, @Nullable INumber factor) {
+        long sink = 0;
+
+        long start = System.nanoTime();
+        if (factor != null) {
+            for (int i = 0; i < ROUNDS; i++) {
+                sink += list.sum().hashCode();
+            }
+        }
+        long sum = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            sink += list.min().hashCode() + list.max().hashCode();
+        }
+        long minMax = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            sink += list.sort().length();
+        }
+        long sort = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        if (factor != null) {
+            for (int i = 0; i < ROUNDS; i++) {
+                sink += list.multiplyEach(factor).addEach(factor).length();
+            }
+        }
+        long scale = System.nanoTime() - start;
+
+        System.err.println(name + ": sum " + (sum / 1_000_000) + "ms, min/max " + (minMax / 1_000_000) + "ms, sort "
+            + (sort / 1_000_000) + "ms, scale " + (scale / 1_000_000) + "ms (" + sink + ")");
+    }
+}
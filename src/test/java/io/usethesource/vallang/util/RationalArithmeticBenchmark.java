@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2026, Centrum Wiskunde & Informatica (CWI)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package io.usethesource.vallang.util;
+
+import io.usethesource.vallang.IRational;
+import io.usethesource.vallang.IValueFactory;
+import io.usethesource.vallang.impl.persistent.ValueFactory;
+
+/**
+ * Times two symbolic workloads on rationals: inverting Hilbert matrices by Gauss-Jordan elimination, of which
+ * the fractions stay small, and summing harmonic series, of which the denominators grow out of the 64-bit range.
+ *
+ * NB! make sure to run with asserts disabled.
+ */
+public class RationalArithmeticBenchmark {
+    private static final int SIZE = 10;
+    private static final int INVERSIONS = 200;
+    private static final int TERMS = 60;
+    private static final int SUMS = 2_000;
+
+    public static void main(String[] args) {
+        IValueFactory vf = ValueFactory.getInstance();
+
+        for (int run = 0; run < 5; run++) {
+            long start = System.nanoTime();
+            IRational trace = vf.rational(0, 1);
+            for (int i = 0; i < INVERSIONS; i++) {
+                IRational[][] inverse = invert(vf, hilbert(vf, SIZE));
+                for (int j = 0; j < SIZE; j++) {
+                    trace = trace.add(inverse[j][j]);
+                }
+            }
+            long hilbert = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            IRational harmonic = vf.rational(0, 1);
+            for (int i = 0; i < SUMS; i++) {
+                harmonic = vf.rational(0, 1);
+                for (int n = 1; n <= TERMS; n++) {
+                    harmonic = harmonic.add(vf.rational(1, n));
+                }
+            }
+            long sums = System.nanoTime() - start;
+
+            System.err.println("hilbert: " + (hilbert / 1_000_000) + "ms, harmonic: " + (sums / 1_000_000) + "ms ("
+                + trace + ", " + harmonic.doubleValue() + ")");
+        }
+    }
+
+    private static IRational[][] hilbert(IValueFactory vf, int size) {
+        IRational[][] result = new IRational[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                result[i][j] = vf.rational(1, i + j + 1);
+            }
+        }
+        return result;
+    }
+
+    private static IRational[][] invert(IValueFactory vf, IRational[][] matrix) {
+        int size = matrix.length;
+        IRational[][] inverse = new IRational[size][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                inverse[i][j] = vf.rational(i == j ? 1 : 0, 1);
+            }
+        }
+
+        // the Hilbert matrix is positive definite, so the pivots are never zero
+        for (int col = 0; col < size; col++) {
+            IRational pivot = matrix[col][col];
+            for (int j = 0; j < size; j++) {
+                matrix[col][j] = matrix[col][j].divide(pivot);
+                inverse[col][j] = inverse[col][j].divide(pivot);
+            }
+            for (int row = 0; row < size; row++) {
+                IRational factor = matrix[row][col];
+                if (row != col && factor.signum() != 0) {
+                    for (int j = 0; j < size; j++) {
+                        matrix[row][j] = matrix[row][j].subtract(factor.multiply(matrix[col][j]));
+                        inverse[row][j] = inverse[row][j].subtract(factor.multiply(inverse[col][j]));
+                    }
+                }
+            }
+        }
+        return inverse;
+    }
+}
@@ -0,0 +1,69 @@
+package io.usethesource.vallang.util;
+
+import java.util.Collections;
+import java.util.Random;
+
+import io.usethesource.vallang.IConstructor;
+import io.usethesource.vallang.ISetWriter;
+import io.usethesource.vallang.IValueFactory;
+import io.usethesource.vallang.impl.persistent.ValueFactory;
+import io.usethesource.vallang.type.ReifiedTypeCache;
+import io.usethesource.vallang.type.Type;
+import io.usethesource.vallang.type.TypeFactory;
+import io.usethesource.vallang.type.TypeStore;
+
+/**
+ * Compares reifying random nested types to symbols and back, with and without the {@link ReifiedTypeCache}.
+ *
+ * NB! make sure to run with asserts disabled.
+ */
+public class ReifiedTypeCacheBenchmark {
+    private static final int TYPES = 256;
+    private static final int ROUNDS = 50;
+
+    public static void main(String[] args) {
+        TypeFactory tf = TypeFactory.getInstance();
+        IValueFactory vf = ValueFactory.getInstance();
+        TypeStore store = new TypeStore();
+        Random r = new Random(42);
+        Type[] types = new Type[TYPES];
+        IConstructor[] symbols = new IConstructor[TYPES];
+        for (int i = 0; i < TYPES; i++) {
+            // the random types include data-types declared in the store, which have grammars
+            types[i] = tf.randomType(store, r, 5);
+            symbols[i] = tf.asSymbol(types[i], vf, store, vf.setWriter());
+        }
+
+        ReifiedTypeCache cache = ReifiedTypeCache.getInstance();
+        for (boolean enabled : new boolean[] { false, true, false, true }) {
+            cache.setEnabled(enabled);
+            cache.clear();
+
+            long start = System.nanoTime();
+            int sink = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                for (int i = 0; i < TYPES; i++) {
+                    ISetWriter grammar = vf.setWriter();
+                    sink += tf.asSymbol(types[i], vf, store, grammar).hashCode();
+                    sink += grammar.done().size();
+                }
+            }
+            long asSymbol = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int round = 0; round < ROUNDS; round++) {
+                for (int i = 0; i < TYPES; i++) {
+                    sink += tf.fromSymbol(symbols[i]).hashCode();
+                    sink += tf.fromSymbol(symbols[i], store, x -> Collections.emptySet()).hashCode();
+                }
+            }
+            long fromSymbol = System.nanoTime() - start;
+
+            System.err.println((enabled ? "memoized" : "direct  ") + ": asSymbol " + (asSymbol / 1_000_000) + "ms, fromSymbol "
+                + (fromSymbol / 1_000_000) + "ms (" + sink + ")");
+            if (enabled) {
+                System.err.println("  " + cache);
+            }
+        }
+    }
+}
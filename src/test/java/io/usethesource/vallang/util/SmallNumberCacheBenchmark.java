@@ -0,0 +1,58 @@
+package io.usethesource.vallang.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import io.usethesource.vallang.IValue;
+import io.usethesource.vallang.IValueFactory;
+import io.usethesource.vallang.impl.persistent.ValueFactory;
+
+/**
+ * Measures time and allocated bytes of creating the kind of small numbers found in source locations and counters.
+ * Compare the default with a run using <code>-Dvallang.integer.cache.high=100</code> to see the effect of the
+ * small integer cache.
+ *
+ * NB! make sure to run with asserts disabled.
+ */
+public class SmallNumberCacheBenchmark {
+    private static final int VALUES = 1_000_000;
+
+    public static void main(String[] args) {
+        IValueFactory vf = ValueFactory.getInstance();
+        Random r = new Random(42);
+        int[] offsets = new int[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            offsets[i] = r.nextInt(65536);
+        }
+        IValue[] retained = new IValue[VALUES];
+
+        for (int round = 0; round < 5; round++) {
+            run("integers ", () -> {
+                for (int i = 0; i < VALUES; i++) {
+                    retained[i] = vf.integer(offsets[i]);
+                }
+            });
+            run("rationals", () -> {
+                for (int i = 0; i < VALUES; i++) {
+                    retained[i] = vf.rational(offsets[i] & 0x7f, 1);
+                }
+            });
+            run("reals    ", () -> {
+                for (int i = 0; i < VALUES; i++) {
+                    retained[i] = vf.real((double) (offsets[i] & 0x7f));
+                }
+            });
+        }
+    }
+
+    private static void run(String name, Runnable work) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long allocated = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        work.run();
+        long time = System.nanoTime() - start;
+        allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+        System.err.println(name + ": " + (time / 1_000_000) + "ms, " + String.format("%.1f", (double) allocated / VALUES) + " bytes/value");
+    }
+}
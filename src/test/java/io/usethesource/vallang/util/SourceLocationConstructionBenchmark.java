@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) 2026, Centrum Wiskunde & Informatica (CWI)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package io.usethesource.vallang.util;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import io.usethesource.vallang.ISourceLocation;
+import io.usethesource.vallang.IValueFactory;
+import io.usethesource.vallang.impl.persistent.ValueFactory;
+
+/**
+ * Compares the throughput of constructing source locations via {@link URI}, from the textual form of a URI, and from
+ * their components, and of the (lazy) translation back to a {@link URI}.
+ *
+ * NB! make sure to run with asserts disabled.
+ */
+public class SourceLocationConstructionBenchmark {
+    private static final int COUNT = 1_000_000;
+
+    public static void main(String[] args) throws URISyntaxException {
+        IValueFactory vf = ValueFactory.getInstance();
+        String[] uris = new String[COUNT];
+        String[] paths = new String[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            paths[i] = "/src/main/java/org/example/package" + (i % 1000) + "/Module" + i + ".java";
+            uris[i] = "project://example" + paths[i];
+        }
+
+        for (int round = 0; round < 5; round++) {
+            ISourceLocation[] result = new ISourceLocation[COUNT];
+
+            long start = System.nanoTime();
+            for (int i = 0; i < COUNT; i++) {
+                result[i] = vf.sourceLocation(new URI(uris[i]));
+            }
+            long viaURI = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < COUNT; i++) {
+                result[i] = vf.sourceLocationFromURI(uris[i]);
+            }
+            long fromString = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < COUNT; i++) {
+                result[i] = vf.sourceLocation("project", "example", paths[i]);
+            }
+            long fromComponents = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int sink = 0;
+            for (int i = 0; i < COUNT; i++) {
+                sink += result[i].getURI().getPath().length();
+            }
+            long toURI = System.nanoTime() - start;
+
+            System.err.println("via URI " + (viaURI / 1_000_000) + "ms, from string " + (fromString / 1_000_000)
+                + "ms, from components " + (fromComponents / 1_000_000) + "ms, getURI " + (toURI / 1_000_000)
+                + "ms (" + sink + ")");
+        }
+    }
+}
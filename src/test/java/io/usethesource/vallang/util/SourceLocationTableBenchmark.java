@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2026, Centrum Wiskunde & Informatica (CWI)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice, this list of conditions and the following disclaimer in the documentation and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package io.usethesource.vallang.util;
+
+import io.usethesource.vallang.IList;
+import io.usethesource.vallang.IListWriter;
+import io.usethesource.vallang.ISourceLocation;
+import io.usethesource.vallang.IValueFactory;
+import io.usethesource.vallang.impl.persistent.ValueFactory;
+
+/**
+ * Compares the retained heap and the time to fill and scan the locations of a large parse tree of a single file,
+ * as a list of locations and as a {@link SourceLocationTable}.
+ *
+ * NB! make sure to run with asserts disabled.
+ */
+public class SourceLocationTableBenchmark {
+    private static final int COUNT = 2_000_000;
+    private static final int LINE = 80;
+
+    public static void main(String[] args) {
+        IValueFactory vf = ValueFactory.getInstance();
+        ISourceLocation file = vf.sourceLocation("/project/src/main/java/org/example/Module.java");
+
+        for (int round = 0; round < 5; round++) {
+            long before = usedHeap();
+            long start = System.nanoTime();
+            IListWriter w = vf.listWriter();
+            for (int i = 0; i < COUNT; i++) {
+                int offset = i * 4;
+                w.append(vf.sourceLocation(file, offset, 12, offset / LINE, (offset + 12) / LINE, offset % LINE, (offset + 12) % LINE));
+            }
+            IList list = w.done();
+            long fillList = System.nanoTime() - start;
+            long listBytes = usedHeap() - before;
+
+            start = System.nanoTime();
+            long sink = 0;
+            for (int i = 0; i < COUNT; i++) {
+                ISourceLocation loc = (ISourceLocation) list.get(i);
+                sink += loc.getOffset() + loc.getEndLine();
+            }
+            long scanList = System.nanoTime() - start;
+            list = null;
+
+            before = usedHeap();
+            start = System.nanoTime();
+            SourceLocationTable table = new SourceLocationTable(vf, file, true);
+            for (int i = 0; i < COUNT; i++) {
+                int offset = i * 4;
+                table.add(offset, 12, offset / LINE, (offset + 12) / LINE, offset % LINE, (offset + 12) % LINE);
+            }
+            table.trimToSize();
+            long fillTable = System.nanoTime() - start;
+            long tableBytes = usedHeap() - before;
+
+            start = System.nanoTime();
+            for (int i = 0; i < COUNT; i++) {
+                sink += table.getOffset(i) + table.getEndLine(i);
+            }
+            long scanTable = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (ISourceLocation loc : table) {
+                sink += loc.getOffset() + loc.getEndLine();
+            }
+            long iterateTable = System.nanoTime() - start;
+
+            System.err.println("list: " + (fillList / 1_000_000) + "ms, " + String.format("%.1f", (double) listBytes / COUNT)
+                + " bytes/location, scan " + (scanList / 1_000_000) + "ms; table: " + (fillTable / 1_000_000) + "ms, "
+                + String.format("%.1f", (double) tableBytes / COUNT) + " bytes/location, scan " + (scanTable / 1_000_000)
+                + "ms, iterate " + (iterateTable / 1_000_000) + "ms (" + sink + ")");
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
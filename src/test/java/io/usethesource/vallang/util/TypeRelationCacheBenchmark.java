@@ -0,0 +1,62 @@
+package io.usethesource.vallang.util;
+
+import java.util.Random;
+
+import io.usethesource.vallang.type.Type;
+import io.usethesource.vallang.type.TypeFactory;
+import io.usethesource.vallang.type.TypeRelationCache;
+import io.usethesource.vallang.type.TypeStore;
+
+/**
+ * Compares sub-typing, lub and glb on random nested types with and without the {@link TypeRelationCache}.
+ *
+ * NB! make sure to run with asserts disabled.
+ */
+public class TypeRelationCacheBenchmark {
+    private static final int TYPES = 256;
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) {
+        TypeFactory tf = TypeFactory.getInstance();
+        TypeStore store = new TypeStore();
+        Random r = new Random(42);
+        Type[] types = new Type[TYPES];
+        for (int i = 0; i < TYPES; i++) {
+            // wrap in a list, so that every pair takes the memoized path
+            types[i] = tf.listType(tf.randomType(store, r, 5));
+        }
+
+        for (boolean enabled : new boolean[] { false, true, false, true }) {
+            TypeRelationCache.subtypes().setEnabled(enabled);
+            TypeRelationCache.lubs().setEnabled(enabled);
+            TypeRelationCache.glbs().setEnabled(enabled);
+            TypeRelationCache.subtypes().setStatistics(enabled);
+            TypeRelationCache.lubs().setStatistics(enabled);
+            TypeRelationCache.glbs().setStatistics(enabled);
+            TypeRelationCache.subtypes().clear();
+            TypeRelationCache.lubs().clear();
+            TypeRelationCache.glbs().clear();
+
+            long start = System.nanoTime();
+            int sink = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                for (int i = 0; i < TYPES; i++) {
+                    // a small working set per row, like the element types added to a single collection
+                    for (int j = i; j < Math.min(TYPES, i + 8); j++) {
+                        sink += types[i].isSubtypeOf(types[j]) ? 1 : 0;
+                        sink += types[i].lub(types[j]).hashCode();
+                        sink += types[i].glb(types[j]).hashCode();
+                    }
+                }
+            }
+            long time = System.nanoTime() - start;
+
+            System.err.println((enabled ? "memoized" : "direct  ") + ": " + (time / 1_000_000) + "ms (" + sink + ")");
+            if (enabled) {
+                System.err.println("  subtypes: " + TypeRelationCache.subtypes());
+                System.err.println("  lubs    : " + TypeRelationCache.lubs());
+                System.err.println("  glbs    : " + TypeRelationCache.glbs());
+            }
+        }
+    }
+}